@@ -0,0 +1,110 @@
+/**
+ * Benchmark of annotating sentences.
+ * @author agent
+ * @since 10/17/2026
+ */
+package docTagger;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Annotation of one sentence by one tagger per thread, all threads sharing
+ * the dictionary as the workers of a run do. A short sentence is a clause, a
+ * medium one a long sentence of a judgment, and a huge one a whole field
+ * without a single delimiter, which the tagger has to take as one sentence.
+ * Words are claimed by either engine of the tagger.
+ */
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class AnnotateBenchmark {
+  static final int WORDS = 100000; // Words of the dictionary
+  static final int SHORT = 16;
+  static final int MEDIUM = 512;
+  static final int HUGE = 65536;
+
+  @Param({"short", "medium", "huge"})
+  private String sentence;
+
+  @Param({StreamConfig.MULTI_PASS, StreamConfig.SINGLE_PASS})
+  private String engine;
+
+  private Dictionary dict;
+  private String text;
+
+  /**
+   * Load the dictionary and generate the sentence
+   * @throws IOException
+   */
+  @Setup(Level.Trial)
+  public void setUp() throws IOException {
+    Corpus corpus = new Corpus(WORDS);
+    Path csv = Files.createTempFile("dict", ".csv");
+    try {
+      corpus.writeDictionary(csv);
+      this.dict = Dictionary.load(csv.toString(), docTagger.INIT_WL);
+    } finally {
+      Files.delete(csv);
+    }
+    switch (this.sentence) {
+    case "short":
+      this.text = corpus.sentence(SHORT);
+      break;
+    case "medium":
+      this.text = corpus.sentence(MEDIUM);
+      break;
+    default:
+      this.text = corpus.sentence(HUGE);
+    }
+  }
+
+  /**
+   * The tagger and output buffer of one thread
+   */
+  @State(Scope.Thread)
+  public static class Worker {
+    private docTagger tagger;
+    private StringBuilder out;
+
+    /**
+     * Create the tagger on the shared dictionary
+     * @param benchmark - shared state
+     */
+    @Setup(Level.Trial)
+    public void setUp(AnnotateBenchmark benchmark) {
+      this.tagger = new docTagger(benchmark.dict, null, null, null);
+      this.tagger.setSinglePass(benchmark.engine.equals(
+          StreamConfig.SINGLE_PASS));
+      this.out = new StringBuilder();
+    }
+  }
+
+  /**
+   * Annotate the sentence into the reused buffer of the thread
+   * @param worker - state of this thread
+   * @return the annotated sentence
+   * @throws IOException
+   */
+  @Benchmark
+  public StringBuilder annotate(Worker worker) throws IOException {
+    worker.out.setLength(0);
+    worker.tagger.annotate(this.text, worker.out);
+    return worker.out;
+  }
+}
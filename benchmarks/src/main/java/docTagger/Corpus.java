@@ -0,0 +1,156 @@
+/**
+ * Generated dictionaries and documents for the benchmarks.
+ * @author agent
+ * @since 10/17/2026
+ */
+package docTagger;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+/**
+ * A class that generates a dictionary of Chinese words and text made of those
+ * words, so that the benchmarks run the same way on every machine.
+ *
+ * Words are two to six characters long, most of them two or three, drawn from
+ * a pool of common characters. Text is a mix of dictionary words, picked with
+ * a skew towards the first words as in real text, and single characters, some
+ * of which form words by accident. Sentences end with the delimiter of the
+ * tagger.
+ */
+final class Corpus {
+  static final long SEED = 20170210L;
+  static final int CHAR_BASE = 0x4E00; // First CJK unified ideograph
+  static final int CHAR_POOL = 3000; // Characters words are made of
+  static final int[] LENGTHS = {2, 2, 2, 2, 2, 3, 3, 3, 4, 4, 5, 6};
+  static final double WORD_SHARE = 0.6; // Share of text made of words
+  static final int SKEW = 3; // Higher favors the first words more
+  static final int SENTENCE = 40; // Mean characters per sentence
+  static final int ELEMENTS = 4; // Elements of each array field
+
+  private final List<String> words;
+  private final Random random;
+
+  /**
+   * Constructor
+   * @param size - number of dictionary words
+   */
+  Corpus(int size) {
+    this.random = new Random(SEED);
+    Set<String> words = new LinkedHashSet<>();
+    StringBuilder word = new StringBuilder();
+    while (words.size() < size) {
+      word.setLength(0);
+      int length = LENGTHS[this.random.nextInt(LENGTHS.length)];
+      for (int i = 0; i < length; i++)
+        word.append(this.character());
+      words.add(word.toString());
+    }
+    this.words = new ArrayList<>(words);
+  }
+
+  /**
+   * Generate text of one sentence without a delimiter
+   * @param length - number of characters
+   * @return the text
+   */
+  String sentence(int length) {
+    StringBuilder text = new StringBuilder(length + LENGTHS.length);
+    while (text.length() < length) {
+      if (this.random.nextDouble() < WORD_SHARE)
+        text.append(this.word());
+      else
+        text.append(this.character());
+    }
+    text.setLength(length);
+    return text.toString();
+  }
+
+  /**
+   * Generate text of several sentences
+   * @param length - number of characters, about
+   * @return the text
+   */
+  String text(int length) {
+    StringBuilder text = new StringBuilder(length + SENTENCE * 2);
+    while (text.length() < length) {
+      text.append(this.sentence(1 + this.random.nextInt(SENTENCE * 2)));
+      text.append(docTagger.STOP);
+    }
+    return text.toString();
+  }
+
+  /**
+   * Write the dictionary as CSV
+   * @param file - dictionary file
+   * @throws IOException
+   */
+  void writeDictionary(Path file) throws IOException {
+    try (Writer out = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+      for (int i = 0; i < this.words.size(); i++)
+        out.append("\"w").append(String.valueOf(i)).append("\",\"\",\"")
+            .append(this.words.get(i)).append("\"\n");
+    }
+  }
+
+  /**
+   * Write documents with every field the Simulator targets
+   * @param dir - input directory
+   * @param count - number of documents
+   * @param length - characters of each field, about
+   * @return names of the document files
+   * @throws IOException
+   */
+  List<String> writeDocuments(Path dir, int count, int length)
+      throws IOException {
+    List<String> files = new ArrayList<>(count);
+    for (int i = 0; i < count; i++) {
+      String id = String.format("c%05d", i);
+      Path file = dir.resolve(id + ".json");
+      try (Writer out = Files.newBufferedWriter(file,
+          StandardCharsets.UTF_8)) {
+        out.append("{\"file\": \"").append(id).append(".json\", ");
+        out.append("\"statute\": \"").append(this.text(length)).append('"');
+        for (String field : Simulator.FIELDS) {
+          if (!field.endsWith(".*"))
+            continue;
+          out.append(", \"").append(field, 2, field.length() - 2)
+              .append("\": [");
+          for (int j = 0; j < ELEMENTS; j++) {
+            out.append(j == 0 ? "\"" : ", \"")
+                .append(this.text(length / ELEMENTS)).append('"');
+          }
+          out.append(']');
+        }
+        out.append("}\n");
+      }
+      files.add(file.toString());
+    }
+    return files;
+  }
+
+  /**
+   * Pick a dictionary word, the first words more often
+   * @return the word
+   */
+  private String word() {
+    double r = Math.pow(this.random.nextDouble(), SKEW);
+    return this.words.get((int) (r * this.words.size()));
+  }
+
+  /**
+   * Pick a character of the pool
+   * @return the character
+   */
+  private char character() {
+    return (char) (CHAR_BASE + this.random.nextInt(CHAR_POOL));
+  }
+}
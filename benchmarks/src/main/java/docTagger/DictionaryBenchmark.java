@@ -0,0 +1,80 @@
+/**
+ * Benchmark of loading the dictionary.
+ * @author agent
+ * @since 10/17/2026
+ */
+package docTagger;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Loads of a generated dictionary, from CSV, which is parsed, normalized and
+ * compiled, or from a compiled snapshot, which is mapped into memory.
+ */
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class DictionaryBenchmark {
+  static final String CSV = "csv";
+  static final String SNAPSHOT = "snapshot";
+
+  @Param({"10000", "100000"})
+  private int words;
+
+  @Param({CSV, SNAPSHOT})
+  private String format;
+
+  private Path csv;
+  private Path snapshot;
+
+  /**
+   * Write the dictionary files
+   * @throws IOException
+   */
+  @Setup(Level.Trial)
+  public void setUp() throws IOException {
+    this.csv = Files.createTempFile("dict", ".csv");
+    new Corpus(this.words).writeDictionary(this.csv);
+    this.snapshot = Files.createTempFile("dict", ".snapshot");
+    DictionarySnapshot.write(Dictionary.load(this.csv.toString(),
+        docTagger.INIT_WL), this.snapshot.toString());
+  }
+
+  /**
+   * Remove the dictionary files
+   * @throws IOException
+   */
+  @TearDown(Level.Trial)
+  public void tearDown() throws IOException {
+    Files.deleteIfExists(this.csv);
+    Files.deleteIfExists(this.snapshot);
+  }
+
+  /**
+   * Load the dictionary, as the StreamManager does at the start of a run
+   * @return the dictionary
+   * @throws IOException
+   */
+  @Benchmark
+  public Dictionary load() throws IOException {
+    Path file = this.format.equals(CSV) ? this.csv : this.snapshot;
+    return Dictionary.load(file.toString(), docTagger.INIT_WL);
+  }
+}
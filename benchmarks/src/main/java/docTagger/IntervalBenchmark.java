@@ -0,0 +1,159 @@
+/**
+ * Benchmark of tracking matched words in a sentence.
+ * @author agent
+ * @since 10/17/2026
+ */
+package docTagger;
+
+import java.util.BitSet;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * The insert and nextAvailable calls the tagger makes while segmenting one
+ * sentence, on the IntervalTree it used to keep, on a reused IntIntervalTree
+ * and on the CoverageMap it keeps now.
+ *
+ * A sentence is scanned for each word length from the longest down to two,
+ * skipping positions already claimed by a longer word, then once more
+ * character by character, exactly as the tagger does. Where a word starts is
+ * random; the density is the share of positions where a word of some length
+ * starts, about a third in judgments.
+ */
+@State(Scope.Thread)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class IntervalBenchmark {
+  static final int MAX_WORD = 6; // Longest word of the corpus
+
+  @Param({"64", "1024", "16384"})
+  private int length;
+
+  @Param({"0.1", "0.3", "0.6"})
+  private double density;
+
+  private BitSet[] words; // Positions where a word of each length starts
+  private IntIntervalTree intTree;
+  private CoverageMap coverage;
+
+  /**
+   * Place the words in the sentence
+   */
+  @Setup(Level.Trial)
+  public void setUp() {
+    Random random = new Random(Corpus.SEED);
+    this.words = new BitSet[MAX_WORD + 1];
+    for (int n = 2; n <= MAX_WORD; n++) {
+      this.words[n] = new BitSet(this.length);
+      for (int j = 0; j + n <= this.length; j++) {
+        if (random.nextDouble() < this.density / (MAX_WORD - 1))
+          this.words[n].set(j);
+      }
+    }
+    this.intTree = new IntIntervalTree();
+    this.coverage = new CoverageMap();
+  }
+
+  /**
+   * Segment the sentence with a new IntervalTree, as the tagger used to
+   * @return number of matched words and unmatched characters
+   */
+  @Benchmark
+  public int intervalTree() {
+    IntervalTree<IndexInterval> tree = new IntervalTree<>();
+    int count = 0;
+    for (int n = MAX_WORD; n > 1; n--) {
+      for (int j = tree.nextAvailable(new IndexInterval(0, n - 1));
+          j + n <= this.length;) {
+        int next = tree.nextAvailable(new IndexInterval(j, j + n - 1));
+        if (next != j) {
+          j = next;
+        } else if (this.words[n].get(j)) {
+          tree.insert(new IndexInterval(j, j + n - 1));
+          count++;
+          j += n;
+        } else {
+          j++;
+        }
+      }
+    }
+    for (int j = 0; j < this.length; j++) {
+      if (tree.nextAvailable(new IndexInterval(j, j)) == j)
+        count++;
+    }
+    return count;
+  }
+
+  /**
+   * Segment the sentence with the reused IntIntervalTree
+   * @return number of matched words and unmatched characters
+   */
+  @Benchmark
+  public int intIntervalTree() {
+    IntIntervalTree tree = this.intTree;
+    tree.clear();
+    int count = 0;
+    for (int n = MAX_WORD; n > 1; n--) {
+      for (int j = tree.nextAvailable(0, n - 1); j + n <= this.length;) {
+        int next = tree.nextAvailable(j, j + n - 1);
+        if (next != j) {
+          j = next;
+        } else if (this.words[n].get(j)) {
+          tree.insert(j, j + n - 1);
+          count++;
+          j += n;
+        } else {
+          j++;
+        }
+      }
+    }
+    for (int j = 0; j < this.length; j++) {
+      if (tree.nextAvailable(j, j) == j)
+        count++;
+    }
+    return count;
+  }
+
+  /**
+   * Segment the sentence with the reused CoverageMap, as the tagger does
+   * @return number of matched words and unmatched characters
+   */
+  @Benchmark
+  public int coverageMap() {
+    CoverageMap map = this.coverage;
+    map.reset(this.length);
+    int count = 0;
+    for (int n = MAX_WORD; n > 1; n--) {
+      for (int j = map.nextAvailable(0, n - 1); j + n <= this.length;) {
+        int next = map.nextAvailable(j, j + n - 1);
+        if (next != j) {
+          j = next;
+        } else if (this.words[n].get(j)) {
+          map.insert(j, j + n - 1);
+          count++;
+          j += n;
+        } else {
+          j++;
+        }
+      }
+    }
+    for (int j = 0; j < this.length; j++) {
+      if (map.nextAvailable(j, j) == j)
+        count++;
+    }
+    return count;
+  }
+}
@@ -0,0 +1,82 @@
+/**
+ * Runs the benchmarks at growing thread counts.
+ * @author agent
+ * @since 10/17/2026
+ */
+package docTagger;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.openjdk.jmh.infra.BenchmarkParams;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.Result;
+import org.openjdk.jmh.results.RunResult;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * A class that runs the selected benchmarks with one thread, then two, four
+ * and so on up to the number of cores, with the GC profiler, and prints for
+ * each benchmark its throughput and allocation per operation at every thread
+ * count. Perfect scaling doubles the throughput with the threads.
+ *
+ * The StreamBenchmark scales with its workers parameter instead and is left
+ * out unless selected.
+ */
+public class ScalingRunner {
+  static final String DEFAULT = "AnnotateBenchmark|IntervalBenchmark";
+  static final String ALLOCATION = "gc.alloc.rate.norm";
+  static final String ROW = "%-60s %7d %14.1f %12.1f%n";
+
+  /**
+   * Driver of the scaling runs
+   * @param args - command line arguments
+   *        args1 - regular expression of the benchmarks, optional
+   * @throws RunnerException
+   */
+  public static void main(String[] args) throws RunnerException {
+    String include = args.length > 0 ? args[0] : DEFAULT;
+    int cores = Runtime.getRuntime().availableProcessors();
+    List<Integer> counts = new ArrayList<>();
+    for (int threads = 1; threads < cores; threads *= 2)
+      counts.add(threads);
+    counts.add(cores);
+
+    List<String> rows = new ArrayList<>();
+    for (int threads : counts) {
+      Options options = new OptionsBuilder()
+          .include(include)
+          .threads(threads)
+          .addProfiler(GCProfiler.class)
+          .build();
+      for (RunResult result : new Runner(options).run())
+        rows.add(row(result, threads));
+    }
+
+    System.out.printf("%-60s %7s %14s %12s%n", "Benchmark", "Threads",
+        "ops/s", "B/op");
+    for (String row : rows)
+      System.out.print(row);
+  }
+
+  /**
+   * Format the result of one benchmark at one thread count
+   * @param result - the result
+   * @param threads - number of threads
+   * @return a line of the summary
+   */
+  private static String row(RunResult result, int threads) {
+    BenchmarkParams params = result.getParams();
+    StringBuilder name = new StringBuilder(params.getBenchmark()
+        .substring(ScalingRunner.class.getPackage().getName().length() + 1));
+    for (String key : params.getParamsKeys())
+      name.append(' ').append(key).append('=').append(params.getParam(key));
+    Result<?> allocation = result.getSecondaryResults().get(ALLOCATION);
+    return String.format(ROW, name, threads,
+        result.getPrimaryResult().getScore(),
+        allocation == null ? Double.NaN : allocation.getScore());
+  }
+}
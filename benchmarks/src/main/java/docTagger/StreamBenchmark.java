@@ -0,0 +1,135 @@
+/**
+ * Benchmark of whole streaming runs.
+ * @author agent
+ * @since 10/17/2026
+ */
+package docTagger;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Vector;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Whole runs of the StreamManager over a generated corpus, from loading the
+ * dictionary to the last output file, in each of its modes. The run scales
+ * with its own workers rather than with benchmark threads, so the number of
+ * workers is a parameter and the benchmark runs on one thread. Besides runs
+ * per second, the documents counter reports documents per second.
+ *
+ * Output files are written where the benchmark runs, as the Simulator writes
+ * them, and removed after each iteration.
+ */
+@State(Scope.Benchmark)
+@Fork(1)
+@Threads(1)
+@Warmup(iterations = 2, time = 10)
+@Measurement(iterations = 5, time = 10)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class StreamBenchmark {
+  static final int WORDS = 100000; // Words of the dictionary
+  static final int FIELD = 2000; // Characters of each field, about
+
+  @Param({"1", "2", "4", "8"})
+  private int workers;
+
+  @Param({"pipeline", "autoTune", "virtual"})
+  private String mode;
+
+  @Param({"200"})
+  private int documents;
+
+  private Path dir;
+  private String dictName;
+  private List<String> files;
+  private StreamConfig config;
+
+  /**
+   * Write the dictionary and the documents
+   * @throws IOException
+   */
+  @Setup(Level.Trial)
+  public void setUp() throws IOException {
+    Corpus corpus = new Corpus(WORDS);
+    this.dir = Files.createTempDirectory("corpus");
+    Path dict = this.dir.resolve("dict.csv");
+    corpus.writeDictionary(dict);
+    this.dictName = dict.toString();
+    Path input = Files.createDirectory(this.dir.resolve("in"));
+    this.files = corpus.writeDocuments(input, this.documents, FIELD);
+    this.config = new StreamConfig.Builder()
+        .workers(this.workers)
+        .autoTune(this.mode.equals("autoTune"))
+        .virtual(this.mode.equals("virtual"))
+        .build();
+  }
+
+  /**
+   * Remove the output of the runs of an iteration
+   */
+  @TearDown(Level.Iteration)
+  public void clean() {
+    for (File file : Retagger.outputFiles())
+      file.delete();
+  }
+
+  /**
+   * Remove the dictionary and the documents
+   * @throws IOException
+   */
+  @TearDown(Level.Trial)
+  public void tearDown() throws IOException {
+    try (Stream<Path> paths = Files.walk(this.dir)) {
+      paths.sorted(Comparator.reverseOrder()).map(Path::toFile)
+          .forEach(File::delete);
+    }
+  }
+
+  /**
+   * Documents tagged in an iteration
+   */
+  @State(Scope.Thread)
+  @AuxCounters(AuxCounters.Type.OPERATIONS)
+  public static class Counters {
+    public long documents;
+
+    /**
+     * Start counting an iteration
+     */
+    @Setup(Level.Iteration)
+    public void reset() {
+      this.documents = 0;
+    }
+  }
+
+  /**
+   * Tag the whole corpus and wait until all output is written
+   * @param counters - documents tagged so far
+   * @throws InterruptedException
+   */
+  @Benchmark
+  public void process(Counters counters) throws InterruptedException {
+    new StreamManager(this.config).process(new Vector<>(this.files),
+        this.dictName, Simulator.FIELDS, Simulator.ID).join();
+    counters.documents += this.documents;
+  }
+}
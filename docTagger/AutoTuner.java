@@ -0,0 +1,225 @@
+/**
+ * Adjusts the number of tagging workers during a run.
+ * @author agent
+ * @since 10/17/2026
+ */
+package docTagger;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * A class that hill-climbs the number of workers on measured throughput.
+ *
+ * Workers report every finished document and the time they spent waiting for
+ * the queue. At a fixed interval the tuner compares the throughput with the
+ * previous interval. While workers are busy, meaning they rarely wait for
+ * input, and the last added worker paid off, one more worker is started. If
+ * workers mostly wait, the reader is the bottleneck and the tuner settles; if
+ * the last added worker did not improve throughput, it is retired and the
+ * tuner settles. The settled configuration is reported once.
+ *
+ * No worker is started once the last one has exited, so the executor may be
+ * shut down when finished() completes, and not before: until then the tuner
+ * may still add a worker, even after the reader has queued every document.
+ */
+public class AutoTuner implements Runnable {
+  static final long INTERVAL = 1000; // Milliseconds between adjustments
+  static final double MIN_GAIN = 0.05; // Smallest gain worth a worker
+  static final double BUSY_WAIT = 0.1; // Share of time waiting while busy
+  static final int MAX_MUL = 2; // At most MAX_MUL workers per core
+
+  private final AtomicInteger target; // Number of workers wanted
+  private final AtomicInteger active; // Number of workers running
+  private final LongAdder documents;
+  private final LongAdder waitNanos;
+  private final int maxWorkers;
+  private final Executor executor;
+  private final Function<AutoTuner, Runnable> worker; // Creates a worker
+  private final ScheduledExecutorService timer;
+  private final CompletableFuture<Void> finished;
+  private long lastDocuments;
+  private long lastWait;
+  private long lastTime;
+  private long startTime;
+  private double lastThroughput;
+  private boolean settled;
+  private boolean done; // The last worker has exited
+
+  /**
+   * Constructor
+   * @param workers - initial number of workers
+   * @param executor - runs the workers
+   * @param worker - creates a worker reporting to this tuner
+   */
+  public AutoTuner(int workers, Executor executor,
+      Function<AutoTuner, Runnable> worker) {
+    this.target = new AtomicInteger(workers);
+    this.active = new AtomicInteger(0);
+    this.documents = new LongAdder();
+    this.waitNanos = new LongAdder();
+    this.maxWorkers = Math.max(workers,
+        Runtime.getRuntime().availableProcessors() * MAX_MUL);
+    this.executor = executor;
+    this.worker = worker;
+    this.timer = Executors.newSingleThreadScheduledExecutor(r -> {
+      Thread t = new Thread(r, "auto-tuner");
+      t.setDaemon(true);
+      return t;
+    });
+    this.finished = new CompletableFuture<>();
+  }
+
+  /**
+   * Start the initial workers and the periodic adjustment. Workers that exit
+   * meanwhile wait until everything is started.
+   */
+  public synchronized void start() {
+    this.startTime = System.nanoTime();
+    this.lastTime = this.startTime;
+    int workers = this.target.getAndSet(0);
+    for (int i = 0; i < workers; i++)
+      this.addWorker();
+    if (!this.done)
+      this.timer.scheduleAtFixedRate(this, INTERVAL, INTERVAL,
+          TimeUnit.MILLISECONDS);
+  }
+
+  /**
+   * Getter for the end of the run
+   * @return a future that completes once the last worker has exited
+   */
+  public CompletableFuture<Void> finished() {
+    return this.finished;
+  }
+
+  /**
+   * Record the time a worker waited for a document
+   * @param nanos - waiting time
+   */
+  public void waited(long nanos) {
+    this.waitNanos.add(nanos);
+  }
+
+  /**
+   * Record a finished document
+   */
+  public void completed() {
+    this.documents.increment();
+  }
+
+  /**
+   * Called by a worker after each document to check whether it should stop
+   * @return true if the worker is retired and must exit
+   */
+  public boolean retire() {
+    int n = this.active.get();
+    while (n > this.target.get()) {
+      if (this.active.compareAndSet(n, n - 1))
+        return true;
+      n = this.active.get();
+    }
+    return false;
+  }
+
+  /**
+   * Called by a worker that exits at the end of the input
+   */
+  public void exited() {
+    synchronized (this) {
+      if (this.active.decrementAndGet() > 0)
+        return;
+      this.done = true;
+      if (this.lastThroughput == 0) // Finished within the first interval
+        this.lastThroughput = this.documents.sum() * 1e9 /
+            Math.max(1, System.nanoTime() - this.startTime);
+      this.settle("at end of input");
+    }
+    this.finished.complete(null);
+  }
+
+  /**
+   * Adjust the number of workers once
+   */
+  @Override
+  public void run() {
+    long now = System.nanoTime();
+    long docs = this.documents.sum();
+    long wait = this.waitNanos.sum();
+    int workers = this.active.get();
+    if (workers == 0 || now == this.lastTime)
+      return;
+    double throughput = (docs - this.lastDocuments) * 1e9 /
+        (now - this.lastTime);
+    double waitShare = (double) (wait - this.lastWait) /
+        ((now - this.lastTime) * workers);
+    boolean gained = this.lastThroughput == 0 ||
+        throughput > this.lastThroughput * (1 + MIN_GAIN);
+    this.lastDocuments = docs;
+    this.lastWait = wait;
+    this.lastTime = now;
+
+    if (waitShare > BUSY_WAIT) {
+      this.lastThroughput = throughput;
+      this.settle("input bound");
+    }
+    else if (!gained) { // Keep the best throughput seen
+      this.target.decrementAndGet();
+      this.settle("no gain from the last worker");
+    }
+    else if (workers < this.maxWorkers) {
+      this.lastThroughput = throughput;
+      this.addWorker();
+    }
+    else {
+      this.lastThroughput = throughput;
+      this.settle("at maximum workers");
+    }
+  }
+
+  /**
+   * Getter for the number of workers wanted
+   * @return number of workers
+   */
+  public int workers() {
+    return this.target.get();
+  }
+
+  /**
+   * Start one more worker, unless the last one has already exited. A worker
+   * the executor rejects counts as exited at once.
+   */
+  private synchronized void addWorker() {
+    if (this.done)
+      return;
+    this.target.incrementAndGet();
+    this.active.incrementAndGet();
+    try {
+      this.executor.execute(this.worker.apply(this));
+    } catch (RejectedExecutionException e) {
+      this.target.decrementAndGet();
+      this.exited();
+    }
+  }
+
+  /**
+   * Stop adjusting and report the configuration
+   * @param reason - why the tuner stopped
+   */
+  private synchronized void settle(String reason) {
+    if (this.settled)
+      return;
+    this.settled = true;
+    this.timer.shutdown();
+    System.out.println("Auto-tune settled on " + this.target.get() +
+        " workers (" + reason + ", " + Math.round(this.lastThroughput) +
+        " documents/s).");
+  }
+}
@@ -0,0 +1,103 @@
+/**
+ * Simple unit tests for the AutoTuner
+ * @author agent
+ * @since 10/17/2026
+ */
+package docTagger;
+
+import static org.junit.Assert.*;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class AutoTunerTester {
+  private ExecutorService executor;
+  private CountDownLatch release;
+  private AtomicInteger started;
+
+  /**
+   * Set up testing fixture
+   *
+   * @throws Exception
+   */
+  @Before
+  public void setUp() throws Exception {
+    this.executor = Executors.newCachedThreadPool();
+    this.release = new CountDownLatch(1);
+    this.started = new AtomicInteger();
+  }
+
+  /**
+   * Stop the workers
+   */
+  @After
+  public void tearDown() {
+    this.release.countDown();
+    this.executor.shutdownNow();
+  }
+
+  /**
+   * Test that a worker can still be added once the whole input is queued, and
+   * that the run finishes and the executor may be shut down only after every
+   * worker has exited
+   *
+   * @throws Exception
+   */
+  @Test
+  public void testFinish() throws Exception {
+    AutoTuner tuner = new AutoTuner(1, this.executor, this::worker);
+    tuner.start();
+    assertEquals(1, tuner.workers());
+    tuner.run(); // First adjustment, nothing measured yet
+    int workers = Math.min(2, Runtime.getRuntime().availableProcessors() *
+        AutoTuner.MAX_MUL);
+    assertEquals(workers, tuner.workers());
+    assertEquals(workers, this.started.get());
+    assertFalse(tuner.finished().isDone());
+
+    this.release.countDown();
+    tuner.finished().get(5, TimeUnit.SECONDS);
+    tuner.run(); // No worker is started after the last one exited
+    assertEquals(workers, this.started.get());
+    assertFalse(this.executor.isShutdown());
+  }
+
+  /**
+   * Test that workers the executor rejects are not counted, and that the run
+   * finishes at once if none can be started
+   *
+   * @throws Exception
+   */
+  @Test
+  public void testRejected() throws Exception {
+    this.executor.shutdown();
+    AutoTuner tuner = new AutoTuner(2, this.executor, this::worker);
+    tuner.start();
+    assertTrue(tuner.finished().isDone());
+    assertEquals(0, tuner.workers());
+  }
+
+  /**
+   * Create a worker that exits once released, counting it as started
+   * @param tuner - the tuner it reports to
+   * @return the worker
+   */
+  private Runnable worker(AutoTuner tuner) {
+    this.started.incrementAndGet();
+    return () -> {
+      try {
+        this.release.await();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+      tuner.exited();
+    };
+  }
+}
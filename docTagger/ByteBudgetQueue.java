@@ -0,0 +1,160 @@
+/**
+ * Work queue bounded by the size of the documents it holds.
+ * @author agent
+ * @since 10/17/2026
+ */
+package docTagger;
+
+import java.util.ArrayDeque;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * A blocking FIFO queue of documents that is bounded by the total number of
+ * bytes held rather than by the number of documents.
+ *
+ * A document weighs the size of its characters on the heap. Producers block
+ * while adding a document would exceed the budget, except that a document is
+ * always admitted into an empty queue, so that one document larger than the
+ * whole budget cannot stall the pipeline. The end indicator weighs nothing and
+ * never blocks, so workers can always put it back for each other.
+ *
+ * The current and peak occupancy, in bytes and in documents, can be read at
+ * any time to size the heap against a known ceiling.
+ */
+public class ByteBudgetQueue {
+  private final long budget;
+  private final ArrayDeque<String> queue;
+  private final ReentrantLock lock;
+  private final Condition notEmpty;
+  private final Condition notFull;
+  private long bytes;
+  private long peakBytes;
+  private int peakSize;
+
+  /**
+   * Constructor
+   * @param budget - maximum number of bytes held
+   */
+  public ByteBudgetQueue(long budget) {
+    if (budget <= 0)
+      throw new IllegalArgumentException("Invalid budget " + budget);
+    this.budget = budget;
+    this.queue = new ArrayDeque<>();
+    this.lock = new ReentrantLock();
+    this.notEmpty = this.lock.newCondition();
+    this.notFull = this.lock.newCondition();
+  }
+
+  /**
+   * Add a document, waiting until it fits in the budget, or the end
+   * indicator without waiting
+   * @param document - document to add
+   * @throws InterruptedException
+   */
+  public void put(String document) throws InterruptedException {
+    long weight = weigh(document);
+    this.lock.lockInterruptibly();
+    try {
+      while (weight > 0 && !this.queue.isEmpty() &&
+          this.bytes + weight > this.budget)
+        this.notFull.await();
+      this.queue.add(document);
+      this.bytes += weight;
+      this.peakBytes = Math.max(this.peakBytes, this.bytes);
+      this.peakSize = Math.max(this.peakSize, this.queue.size());
+      this.notEmpty.signal();
+    } finally {
+      this.lock.unlock();
+    }
+  }
+
+  /**
+   * Remove the oldest document, waiting until there is one
+   * @return the document
+   * @throws InterruptedException
+   */
+  public String take() throws InterruptedException {
+    this.lock.lockInterruptibly();
+    try {
+      while (this.queue.isEmpty())
+        this.notEmpty.await();
+      String document = this.queue.remove();
+      this.bytes -= weigh(document);
+      this.notFull.signalAll();
+      return document;
+    } finally {
+      this.lock.unlock();
+    }
+  }
+
+  /**
+   * Getter for the budget
+   * @return maximum number of bytes held
+   */
+  public long budget() {
+    return this.budget;
+  }
+
+  /**
+   * Getter for the number of bytes held
+   * @return bytes of all documents in the queue
+   */
+  public long bytes() {
+    this.lock.lock();
+    try {
+      return this.bytes;
+    } finally {
+      this.lock.unlock();
+    }
+  }
+
+  /**
+   * Getter for the number of documents held
+   * @return number of documents in the queue
+   */
+  public int size() {
+    this.lock.lock();
+    try {
+      return this.queue.size();
+    } finally {
+      this.lock.unlock();
+    }
+  }
+
+  /**
+   * Getter for the largest number of bytes held so far
+   * @return peak bytes
+   */
+  public long peakBytes() {
+    this.lock.lock();
+    try {
+      return this.peakBytes;
+    } finally {
+      this.lock.unlock();
+    }
+  }
+
+  /**
+   * Getter for the largest number of documents held so far
+   * @return peak number of documents
+   */
+  public int peakSize() {
+    this.lock.lock();
+    try {
+      return this.peakSize;
+    } finally {
+      this.lock.unlock();
+    }
+  }
+
+  /**
+   * Weigh a document by the size of its characters
+   * @param document - the document
+   * @return bytes it occupies, zero for the end indicator
+   */
+  static long weigh(String document) {
+    return document.equals(StreamManager.END) ? 0 :
+        (long) document.length() * Character.BYTES;
+  }
+}
@@ -0,0 +1,88 @@
+/**
+ * Simple unit tests for the ByteBudgetQueue
+ * @author agent
+ * @since 10/17/2026
+ */
+package docTagger;
+
+import static org.junit.Assert.*;
+
+import org.junit.Before;
+import org.junit.Test;
+
+public class ByteBudgetQueueTester {
+  private ByteBudgetQueue queue;
+
+  /**
+   * Set up testing fixture
+   *
+   * @throws Exception
+   */
+  @Before
+  public void setUp() throws Exception {
+    this.queue = new ByteBudgetQueue(8);
+  }
+
+  /**
+   * Test that occupancy is tracked in bytes and documents, and that the end
+   * indicator weighs nothing
+   */
+  @Test
+  public void testOccupancy() throws InterruptedException {
+    this.queue.put("ab");
+    this.queue.put("cd");
+    this.queue.put(StreamManager.END);
+    assertEquals(8, this.queue.bytes());
+    assertEquals(3, this.queue.size());
+    assertEquals("ab", this.queue.take());
+    assertEquals(4, this.queue.bytes());
+    assertEquals(8, this.queue.peakBytes());
+    assertEquals(3, this.queue.peakSize());
+  }
+
+  /**
+   * Test that a document larger than the budget is admitted into an empty
+   * queue, and that producers block until it is taken
+   */
+  @Test
+  public void testOversized() throws InterruptedException {
+    this.queue.put("abcdefgh");
+    assertEquals(16, this.queue.bytes());
+    Thread producer = new Thread(() -> {
+      try {
+        this.queue.put("x");
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+    });
+    producer.start();
+    producer.join(100);
+    assertTrue(producer.isAlive());
+    assertEquals(1, this.queue.size());
+    assertEquals("abcdefgh", this.queue.take());
+    producer.join();
+    assertEquals("x", this.queue.take());
+    assertEquals(0, this.queue.bytes());
+  }
+
+  /**
+   * Test that the end indicator is admitted at once while the budget is
+   * taken up by a document larger than the whole budget
+   */
+  @Test
+  public void testEndNeverBlocks() throws InterruptedException {
+    this.queue.put("abcdefgh");
+    Thread producer = new Thread(() -> {
+      try {
+        this.queue.put(StreamManager.END);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+    });
+    producer.start();
+    producer.join(10000);
+    assertFalse(producer.isAlive());
+    assertEquals(2, this.queue.size());
+    assertEquals(16, this.queue.bytes());
+  }
+}
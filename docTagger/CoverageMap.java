@@ -0,0 +1,81 @@
+/**
+ * Provide a flat occupancy map for matched words in a sentence
+ * @author agent
+ * @since 10/17/2026
+ */
+package docTagger;
+
+import java.util.Arrays;
+
+/**
+ * A drop-in replacement for the IntervalTree used by the document tagger,
+ * backed by one primitive array indexed by character position.
+ *
+ * Every position covered by a matched word stores the index right after the
+ * end of that word, and free positions store zero. Both queries are therefore
+ * a single array read. One instance is meant to be owned by a worker and reset
+ * for each sentence, so no objects are allocated in the tagging loop.
+ *
+ * The same restrictions as IntervalTree apply: intervals are disjoint, and
+ * nextAvailable() only checks the end point of the query, which is exact for
+ * the longest-first algorithm of the tagger because every interval already
+ * marked is at least as long as the one being queried.
+ */
+public class CoverageMap {
+  static final int INIT_CAP = 256;
+  static final int FREE = 0;
+
+  private int[] next; // Index after the covering interval, or FREE
+  private int length;
+
+  /**
+   * Constructor
+   */
+  public CoverageMap() {
+    this.next = new int[INIT_CAP];
+  }
+
+  /**
+   * Clear the map and make room for a sentence of the given length
+   * @param length - length of the sentence
+   */
+  public void reset(int length) {
+    if (this.next.length < length)
+      this.next = new int[Math.max(length, this.next.length * 2)];
+    else
+      Arrays.fill(this.next, 0, this.length, FREE);
+    this.length = length;
+  }
+
+  /**
+   * Mark an interval as matched
+   * @param start - start point, inclusive
+   * @param end - end point, inclusive
+   */
+  public void insert(int start, int end) {
+    Arrays.fill(this.next, start, end + 1, end + 1);
+  }
+
+  /**
+   * Check that an interval is free, looking at both of its end points only,
+   * which is exact when every interval already marked is at least as long
+   * @param start - start point, inclusive
+   * @param end - end point, inclusive
+   * @return true if neither end point is covered
+   */
+  public boolean isFree(int start, int end) {
+    return this.next[start] == FREE && this.next[end] == FREE;
+  }
+
+  /**
+   * Find the next available (possibly) start point for a given interval
+   * @param start - start point, inclusive
+   * @param end - end point, inclusive
+   * @return the given start point if there is no overlap; otherwise return the
+   *         next available (possibly) position.
+   */
+  public int nextAvailable(int start, int end) {
+    int after = end < this.length ? this.next[end] : FREE;
+    return after == FREE ? start : after;
+  }
+}
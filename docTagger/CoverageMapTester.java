@@ -0,0 +1,123 @@
+/**
+ * Simple unit tests for the CoverageMap
+ * @author agent
+ * @since 10/17/2026
+ */
+package docTagger;
+
+import static org.junit.Assert.*;
+
+import java.util.Random;
+
+import org.junit.Before;
+import org.junit.Test;
+
+public class CoverageMapTester {
+  static final int LENGTH = 2000; // Positions of a random sentence
+  static final int ROUNDS = 5;
+  static final long SEED = 20170126L;
+
+  private CoverageMap map;
+
+  /**
+   * Set up testing fixture
+   *
+   * @throws Exception
+   */
+  @Before
+  public void setUp() throws Exception {
+    this.map = new CoverageMap();
+    this.map.reset(21);
+    this.map.insert(0, 4);
+    this.map.insert(5, 7);
+    this.map.insert(10, 12);
+    this.map.insert(18, 20);
+    this.map.insert(15, 17);
+  }
+
+  /**
+   * Test query overlapping interval, same as for the IntervalTree
+   */
+  @Test
+  public void testQuery() {
+    assertEquals(8, this.map.nextAvailable(5, 6));
+    assertEquals(13, this.map.nextAvailable(8, 12));
+    assertEquals(8, this.map.nextAvailable(4, 6));
+    assertEquals(8, this.map.nextAvailable(8, 9));
+    assertEquals(21, this.map.nextAvailable(21, 22)); // Past the sentence
+    assertTrue(this.map.isFree(8, 9));
+    assertFalse(this.map.isFree(7, 8));
+    assertFalse(this.map.isFree(9, 10));
+  }
+
+  /**
+   * Test that a reset map is empty, including the positions of a longer
+   * sentence before it
+   */
+  @Test
+  public void testReset() {
+    this.map.reset(10);
+    assertEquals(5, this.map.nextAvailable(5, 6));
+    assertTrue(this.map.isFree(0, 9));
+    this.map.reset(21); // Within the capacity, the array is reused
+    assertEquals(18, this.map.nextAvailable(18, 20));
+    assertTrue(this.map.isFree(0, 20));
+    this.map.reset(CoverageMap.INIT_CAP * 2);
+    assertEquals(18, this.map.nextAvailable(18, 20));
+    assertTrue(this.map.isFree(18, CoverageMap.INIT_CAP * 2 - 1));
+  }
+
+  /**
+   * Test that an empty map and random disjoint intervals, marked longest
+   * first as the tagger does in a map reused across sentences, answer every
+   * query of a length not above the shortest marked one as the IntervalTree
+   * does, and that isFree() is exact for those queries
+   */
+  @Test
+  public void testRandom() {
+    Random random = new Random(SEED);
+    for (int round = 0; round < ROUNDS; round++) {
+      int length = LENGTH / 2 + random.nextInt(LENGTH / 2);
+      this.map.reset(length);
+      IntervalTree<IndexInterval> tree = new IntervalTree<>();
+      boolean[] covered = new boolean[length];
+      for (int start = 0; start < length; start++) // Both empty
+        assertEquals(tree.nextAvailable(new IndexInterval(start, start)),
+            this.map.nextAvailable(start, start));
+      for (int wl = docTagger.INIT_WL; wl > 0; wl--) {
+        for (int j = 0; j + wl <= length; j++) {
+          if (random.nextInt(3) == 0 && isFree(covered, j, j + wl - 1)) {
+            this.map.insert(j, j + wl - 1);
+            tree.insert(new IndexInterval(j, j + wl - 1));
+            for (int k = j; k < j + wl; k++)
+              covered[k] = true;
+            j += wl - 1;
+          }
+        }
+        for (int start = 0; start < length; start++) {
+          for (int end = start; end < Math.min(length, start + wl); end++) {
+            assertEquals(tree.nextAvailable(new IndexInterval(start, end)),
+                this.map.nextAvailable(start, end));
+            assertEquals(isFree(covered, start, end),
+                this.map.isFree(start, end));
+          }
+        }
+      }
+    }
+  }
+
+  /**
+   * Check that no position of an interval is covered
+   * @param covered - whether each position is covered
+   * @param start - start point, inclusive
+   * @param end - end point, inclusive
+   * @return true if the interval is free
+   */
+  private static boolean isFree(boolean[] covered, int start, int end) {
+    for (int i = start; i <= end; i++) {
+      if (covered[i])
+        return false;
+    }
+    return true;
+  }
+}
@@ -0,0 +1,153 @@
+/**
+ * Content-hash deduplication of documents in a stream.
+ * @author agent
+ * @since 10/17/2026
+ */
+package docTagger;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.LongAdder;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.hash.HashCode;
+import com.google.common.hash.HashFunction;
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+
+/**
+ * A class that recognizes documents whose targeted fields have been seen
+ * before in the run, such as re-crawled or mirrored copies of a case, so that
+ * the annotation of the first copy can be reused under the case id of each
+ * copy.
+ *
+ * A document is identified by a 128-bit hash of the raw JSON text of its
+ * targeted fields; the case id is not part of the hash. The first copy of a
+ * document claims its hash and publishes its annotation when it is done, and
+ * later copies wait for that annotation instead of tagging again, even if the
+ * first copy is still being tagged. If the first copy fails, the hash is
+ * released and later copies tag themselves.
+ *
+ * When the dictionary is reloaded during the run, the hash also covers the
+ * generation of the dictionary that is current when a document is claimed.
+ * A document claimed after a reload therefore only matches copies claimed
+ * after it too, which are tagged with the new dictionary or a later one, and
+ * never reuses an annotation made with an older dictionary.
+ *
+ * Annotations are kept up to a byte capacity, estimated from the size of the
+ * fields, and the least recently used ones are dropped first.
+ */
+public class Deduplicator {
+  static final int ENTRY_OVERHEAD = 128; // Bytes of an entry and its arrays
+
+  private final JsonProjection projection;
+  private final HashFunction hash;
+  private final Cache<HashCode, Entry> seen;
+  private final LongAdder documents; // Copies that reused an annotation
+  private final LongAdder bytes; // UTF-8 bytes of those copies
+  private volatile DictionaryReloader reloader; // May be null
+
+  /**
+   * Constructor
+   * @param projection - compiled targeted fields and case id
+   * @param capacity - maximum bytes of kept annotations
+   */
+  public Deduplicator(JsonProjection projection, long capacity) {
+    if (capacity < 1)
+      throw new IllegalArgumentException("Invalid deduplication capacity");
+    this.projection = projection;
+    this.hash = Hashing.murmur3_128();
+    this.seen = CacheBuilder.newBuilder()
+        .maximumWeight(capacity)
+        .weigher((HashCode key, Entry entry) -> entry.weight)
+        .build();
+    this.documents = new LongAdder();
+    this.bytes = new LongAdder();
+  }
+
+  /**
+   * Key the annotations by the generation of the current dictionary of a
+   * reloader
+   * @param reloader - source of the dictionary documents are tagged with
+   */
+  void follow(DictionaryReloader reloader) {
+    this.reloader = reloader;
+  }
+
+  /**
+   * Claim the annotation of a document
+   * @param document - the projected document
+   * @param annotation - completed by the caller with the annotated fields,
+   *        or with null if the document could not be tagged, when this is the
+   *        first copy
+   * @return null if this is the first copy, which the caller has to tag,
+   *         otherwise the annotation of the first copy, which completes with
+   *         null if it could not be tagged
+   */
+  public CompletableFuture<String[]> claim(JsonProjection.Document document,
+      CompletableFuture<String[]> annotation) {
+    Hasher hasher = this.hash.newHasher();
+    DictionaryReloader reloader = this.reloader;
+    if (reloader != null)
+      hasher.putInt(reloader.current().generation());
+    long size = 0;
+    for (int i = 0; i < this.projection.size(); i++) {
+      if (!document.found(i))
+        continue;
+      CharSequence raw = document.raw(i);
+      hasher.putInt(i).putInt(raw.length()).putUnencodedChars(raw);
+      size += raw.length();
+    }
+    HashCode key = hasher.hash();
+    Entry entry = new Entry(annotation, (int) Math.min(Integer.MAX_VALUE,
+        size * docTagger.MUL * Character.BYTES + ENTRY_OVERHEAD));
+    Entry prior = this.seen.asMap().putIfAbsent(key, entry);
+    if (prior != null)
+      return prior.annotation;
+    annotation.whenComplete((contents, ex) -> {
+      if (contents == null)
+        this.seen.asMap().remove(key, entry);
+    });
+    return null;
+  }
+
+  /**
+   * Count a copy that reused the annotation of the first copy
+   * @param content - the copy
+   */
+  public void skipped(String content) {
+    this.documents.increment();
+    this.bytes.add(Metrics.utf8(content));
+  }
+
+  /**
+   * Forget the kept annotations, so that later documents are tagged again
+   */
+  public void clear() {
+    this.seen.invalidateAll();
+  }
+
+  @Override
+  public String toString() {
+    return "Deduplication: " + this.documents.sum() + " documents, " +
+        this.bytes.sum() + " bytes skipped.";
+  }
+
+  /**
+   * The annotation of the first copy of a document and its estimated size
+   */
+  private static class Entry {
+    private final CompletableFuture<String[]> annotation;
+    private final int weight;
+
+    /**
+     * Constructor
+     * @param annotation - annotated fields, once tagged
+     * @param weight - estimated bytes of the annotated fields
+     */
+    private Entry(CompletableFuture<String[]> annotation, int weight) {
+      this.annotation = annotation;
+      this.weight = weight;
+    }
+  }
+}
@@ -0,0 +1,68 @@
+/**
+ * Simple unit tests for the Deduplicator
+ * @author agent
+ * @since 10/17/2026
+ */
+package docTagger;
+
+import static org.junit.Assert.*;
+
+import java.util.Arrays;
+import java.util.concurrent.CompletableFuture;
+
+import org.junit.Before;
+import org.junit.Test;
+
+public class DeduplicatorTester {
+  private JsonProjection projection;
+  private Deduplicator dedup;
+
+  /**
+   * Set up testing fixture
+   *
+   * @throws Exception
+   */
+  @Before
+  public void setUp() throws Exception {
+    this.projection = new JsonProjection(Arrays.asList("$.text"), "$.file");
+    this.dedup = new Deduplicator(this.projection, 1 << 20);
+  }
+
+  /**
+   * Test that a copy under another case id gets the annotation of the first
+   * copy, and that other documents do not
+   */
+  @Test
+  public void testCopy() {
+    CompletableFuture<String[]> first = new CompletableFuture<>();
+    assertNull(this.dedup.claim(this.document("a", "same"), first));
+    CompletableFuture<String[]> copy = this.dedup.claim(this.document("b",
+        "same"), new CompletableFuture<>());
+    assertSame(first, copy);
+    assertNull(this.dedup.claim(this.document("c", "other"),
+        new CompletableFuture<>()));
+  }
+
+  /**
+   * Test that the claim of a document that could not be tagged is released
+   */
+  @Test
+  public void testFailure() {
+    CompletableFuture<String[]> first = new CompletableFuture<>();
+    assertNull(this.dedup.claim(this.document("a", "same"), first));
+    first.complete(null);
+    assertNull(this.dedup.claim(this.document("b", "same"),
+        new CompletableFuture<>()));
+  }
+
+  /**
+   * Project a document
+   * @param id - case id
+   * @param text - targeted field
+   * @return the projected document
+   */
+  private JsonProjection.Document document(String id, String text) {
+    return this.projection.project("{\"file\": \"" + id + ".json\", " +
+        "\"text\": \"" + text + "\"}");
+  }
+}
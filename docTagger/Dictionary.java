@@ -0,0 +1,461 @@
+/**
+ * Provide allocation-free dictionary lookup for the document tagger
+ * @author agent
+ * @since 10/17/2026
+ */
+package docTagger;
+
+import java.io.IOException;
+import java.nio.CharBuffer;
+import java.nio.IntBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+
+/**
+ * An immutable dictionary that maps Chinese words to their English glosses.
+ *
+ * All keys are packed into a single character array and indexed by an open
+ * addressing hash table of key ids, so a word can be looked up directly from a
+ * window of the text being tagged: the hash is computed over the window in
+ * place and compared against the packed keys without creating a substring.
+ *
+ * Glosses are interned: every distinct gloss is stored once and referred to by
+ * id. The glosses of a key are ranked by the order in which they first appear
+ * in the dictionary file, and the first one is the primary gloss used for
+ * tagging, so the output does not depend on hash iteration order.
+ *
+ * The tables live in primitive buffers that either wrap heap arrays, for a
+ * dictionary built from CSV, or point into a memory-mapped DictionarySnapshot.
+ * Glosses of a mapped dictionary are decoded on first use.
+ *
+ * Instances are safe to share between threads.
+ */
+public final class Dictionary {
+  static final int NOT_FOUND = -1;
+  static final int EMPTY = 0; // Empty hash slot
+  static final int LOAD_FACTOR = 2; // Slots per key, at least
+  static final String IGNORE = ".-.-.";
+  static final int ENG_IDX = 0; // Index of English word
+  static final int PATTERN_IDX = 1; // Index of gloss pattern
+  static final int CHN_IDX = 2; // Index of Chinese word
+
+  private final CharBuffer keyChars; // All keys, back to back
+  private final IntBuffer keyStart; // Start of each key in keyChars, size + 1
+  private final IntBuffer slots; // Hash table of key id + 1, or EMPTY
+  private final int mask;
+  private final IntBuffer rankStart; // First gloss of each key in ranks
+  private final IntBuffer ranks; // Gloss ids of every key, in ranked order
+  private final CharBuffer glossChars; // Distinct glosses, back to back
+  private final IntBuffer glossStart; // Start of each distinct gloss
+  private final IntBuffer ignored; // Bit set of keys to be left untagged
+  private final String[] glosses; // Decoded distinct glosses
+  private final String[] tags; // Open and close tag of each distinct gloss
+  private final WordMatcher matcher;
+
+  /**
+   * Load a dictionary from either a compiled snapshot or a CSV file
+   * @param dictName - the dictionary file name
+   * @param maxLength - the length of the longest word to match in text
+   * @return the dictionary
+   * @throws IOException
+   */
+  public static Dictionary load(String dictName, int maxLength)
+      throws IOException {
+    if(!DictionarySnapshot.isSnapshot(dictName))
+      return DictionaryLoader.read(dictName).build(maxLength);
+    Dictionary dict = DictionarySnapshot.open(dictName);
+    if(dict.matcher.maxLength() != maxLength)
+      throw new IOException(dictName + " is compiled for words up to " +
+          dict.matcher.maxLength() + " characters");
+    return dict;
+  }
+
+  /**
+   * Constructor
+   * @param builder - builder holding all words and glosses
+   * @param maxLength - the length of the longest word to match in text
+   */
+  private Dictionary(Builder builder, int maxLength) {
+    String[] keys = builder.keys.toArray(new String[0]);
+    String[] glosses = builder.glosses.toArray(new String[0]);
+    this.keyStart = IntBuffer.wrap(new int[keys.length + 1]);
+    this.keyChars = CharBuffer.wrap(pack(keys, this.keyStart));
+    this.glossStart = IntBuffer.wrap(new int[glosses.length + 1]);
+    this.glossChars = CharBuffer.wrap(pack(glosses, this.glossStart));
+    this.glosses = glosses;
+    this.tags = new String[glosses.length * 2];
+
+    /* Hash table of keys */
+    int capacity = Integer.highestOneBit(Math.max(keys.length, 1) *
+        LOAD_FACTOR * 2 - 1);
+    int[] slots = new int[capacity];
+    this.mask = capacity - 1;
+    for (int i = 0; i < keys.length; i++) {
+      int slot = spread(keys[i].hashCode()) & this.mask;
+      while (slots[slot] != EMPTY)
+        slot = (slot + 1) & this.mask;
+      slots[slot] = i + 1;
+    }
+    this.slots = IntBuffer.wrap(slots);
+
+    /* Group gloss ids by key, keeping the order they were added in */
+    int[] rankStart = new int[keys.length + 1];
+    for (int i = 0; i < builder.size; i++)
+      rankStart[builder.rowKeys[i] + 1]++;
+    for (int i = 0; i < keys.length; i++)
+      rankStart[i + 1] += rankStart[i];
+    int[] ranks = new int[builder.size];
+    int[] fill = Arrays.copyOf(rankStart, keys.length);
+    for (int i = 0; i < builder.size; i++)
+      ranks[fill[builder.rowKeys[i]]++] = builder.rowGlosses[i];
+
+    /* Drop repeated glosses of a key, there are only a few glosses per key */
+    int size = 0;
+    for (int i = 0; i < keys.length; i++) {
+      int start = size;
+      for (int j = rankStart[i]; j < rankStart[i + 1]; j++) {
+        int k = start;
+        while (k < size && ranks[k] != ranks[j])
+          k++;
+        if (k == size)
+          ranks[size++] = ranks[j];
+      }
+      rankStart[i] = start;
+    }
+    rankStart[keys.length] = size;
+    this.rankStart = IntBuffer.wrap(rankStart);
+    this.ranks = IntBuffer.wrap(Arrays.copyOf(ranks, size));
+
+    int[] ignored = new int[(keys.length + Integer.SIZE - 1) / Integer.SIZE];
+    for (int i = 0; i < keys.length; i++) {
+      if (glosses[ranks[rankStart[i]]].contains(IGNORE))
+        ignored[i / Integer.SIZE] |= 1 << i;
+    }
+    this.ignored = IntBuffer.wrap(ignored);
+    this.matcher = new WordMatcher(Arrays.asList(keys), maxLength);
+  }
+
+  /**
+   * Read a dictionary from a snapshot
+   * @param in - snapshot reader
+   * @throws IOException
+   */
+  Dictionary(DictionarySnapshot.Reader in) throws IOException {
+    this.keyStart = in.getInts();
+    this.keyChars = in.getChars();
+    this.slots = in.getInts();
+    this.mask = this.slots.limit() - 1;
+    this.rankStart = in.getInts();
+    this.ranks = in.getInts();
+    this.glossStart = in.getInts();
+    this.glossChars = in.getChars();
+    this.ignored = in.getInts();
+    this.glosses = new String[Math.max(this.glossStart.limit() - 1, 0)];
+    this.tags = new String[this.glosses.length * 2];
+    this.matcher = new WordMatcher(in);
+    if(this.slots.limit() == 0 || (this.slots.limit() & this.mask) != 0 ||
+        this.rankStart.limit() != this.keyStart.limit())
+      throw new IOException("Corrupted dictionary snapshot");
+  }
+
+  /**
+   * Write the dictionary to a snapshot
+   * @param out - snapshot writer
+   * @throws IOException
+   */
+  void write(DictionarySnapshot.Writer out) throws IOException {
+    out.putInts(this.keyStart);
+    out.putChars(this.keyChars);
+    out.putInts(this.slots);
+    out.putInts(this.rankStart);
+    out.putInts(this.ranks);
+    out.putInts(this.glossStart);
+    out.putChars(this.glossChars);
+    out.putInts(this.ignored);
+    this.matcher.write(out);
+  }
+
+  /**
+   * Look up the word in a window of the text without copying it
+   * @param text - text containing the word
+   * @param offset - start index of the word
+   * @param length - length of the word
+   * @return id of the word, or NOT_FOUND if it is not in the dictionary
+   */
+  public int find(CharSequence text, int offset, int length) {
+    int h = 0;
+    for (int i = offset; i < offset + length; i++)
+      h = 31 * h + text.charAt(i); // Same as String.hashCode()
+    for (int slot = spread(h) & this.mask; this.slots.get(slot) != EMPTY;
+        slot = (slot + 1) & this.mask) {
+      int key = this.slots.get(slot) - 1;
+      if (this.keyEquals(key, text, offset, length))
+        return key;
+    }
+    return NOT_FOUND;
+  }
+
+  /**
+   * Check whether the word is in the dictionary
+   * @param word - Chinese word
+   * @return true if the word is in the dictionary
+   */
+  public boolean contains(String word) {
+    return this.find(word, 0, word.length()) != NOT_FOUND;
+  }
+
+  /**
+   * Getter for the primary English gloss of a word
+   * @param key - id of the word
+   * @return the gloss
+   */
+  public String gloss(int key) {
+    return this.glossOf(this.ranks.get(this.rankStart.get(key)));
+  }
+
+  /**
+   * Getter for the opening tag of the primary gloss of a word, same as
+   * "<" + gloss(key) + ">" but built once per gloss
+   * @param key - id of the word
+   * @return the opening tag
+   */
+  public String openTag(int key) {
+    return this.tagOf(this.ranks.get(this.rankStart.get(key)), false);
+  }
+
+  /**
+   * Getter for the closing tag of the primary gloss of a word, same as
+   * "</" + gloss(key) + ">" but built once per gloss
+   * @param key - id of the word
+   * @return the closing tag
+   */
+  public String closeTag(int key) {
+    return this.tagOf(this.ranks.get(this.rankStart.get(key)), true);
+  }
+
+  /**
+   * Getter for an English gloss of a word by rank
+   * @param key - id of the word
+   * @param rank - rank of the gloss, 0 for the primary gloss
+   * @return the gloss
+   */
+  public String gloss(int key, int rank) {
+    if (rank < 0 || rank >= this.glossCount(key))
+      throw new IndexOutOfBoundsException("Gloss rank " + rank);
+    return this.glossOf(this.ranks.get(this.rankStart.get(key) + rank));
+  }
+
+  /**
+   * Getter for the number of English glosses of a word
+   * @param key - id of the word
+   * @return the number of glosses
+   */
+  public int glossCount(int key) {
+    return this.rankStart.get(key + 1) - this.rankStart.get(key);
+  }
+
+  /**
+   * Whether the word is marked to be left untagged
+   * @param key - id of the word
+   * @return true if the word should not be tagged
+   */
+  public boolean isIgnored(int key) {
+    return (this.ignored.get(key / Integer.SIZE) & (1 << key)) != 0;
+  }
+
+  /**
+   * Getter for the number of words
+   * @return the number of words in the dictionary
+   */
+  public int size() {
+    return this.keyStart.limit() - 1;
+  }
+
+  /**
+   * Getter for a word
+   * @param key - id of the word
+   * @return the Chinese word
+   */
+  public String word(int key) {
+    return decode(this.keyChars, this.keyStart.get(key),
+        this.keyStart.get(key + 1));
+  }
+
+  /**
+   * Getter for the word matcher compiled from this dictionary
+   * @return the word matcher
+   */
+  public WordMatcher matcher() {
+    return this.matcher;
+  }
+
+  /**
+   * Getter for a distinct gloss, decoded on first use
+   * @param id - id of the gloss
+   * @return the gloss
+   */
+  private String glossOf(int id) {
+    String gloss = this.glosses[id];
+    if (gloss == null) { // Decode from the snapshot, racing is harmless
+      gloss = decode(this.glossChars, this.glossStart.get(id),
+          this.glossStart.get(id + 1));
+      this.glosses[id] = gloss;
+    }
+    return gloss;
+  }
+
+  /**
+   * Getter for a tag of a distinct gloss, built on first use
+   * @param id - id of the gloss
+   * @param close - true for the closing tag
+   * @return the tag
+   */
+  private String tagOf(int id, boolean close) {
+    int slot = id * 2 + (close ? 1 : 0);
+    String tag = this.tags[slot];
+    if (tag == null) { // Racing is harmless, the tags are equal
+      tag = (close ? "</" : "<") + this.glossOf(id) + ">";
+      this.tags[slot] = tag;
+    }
+    return tag;
+  }
+
+  /**
+   * Compare a key with a window of the text
+   * @param key - id of the key
+   * @param text - text to compare
+   * @param offset - start index of the window
+   * @param length - length of the window
+   * @return true if the key equals the window
+   */
+  private boolean keyEquals(int key, CharSequence text, int offset,
+      int length) {
+    int start = this.keyStart.get(key);
+    if (this.keyStart.get(key + 1) - start != length)
+      return false;
+    for (int i = 0; i < length; i++) {
+      if (this.keyChars.get(start + i) != text.charAt(offset + i))
+        return false;
+    }
+    return true;
+  }
+
+  /**
+   * Copy a range of a char buffer to a string
+   * @param chars - buffer to copy from
+   * @param start - start index, inclusive
+   * @param end - end index, exclusive
+   * @return the string
+   */
+  private static String decode(CharBuffer chars, int start, int end) {
+    char[] copy = new char[end - start];
+    for (int i = 0; i < copy.length; i++)
+      copy[i] = chars.get(start + i);
+    return new String(copy);
+  }
+
+  /**
+   * Pack strings back to back into one array
+   * @param strings - strings to pack
+   * @param start - output start index of each string, strings.length + 1
+   * @return packed characters
+   */
+  private static char[] pack(String[] strings, IntBuffer start) {
+    int length = 0;
+    for (String str : strings)
+      length += str.length();
+    char[] chars = new char[length];
+    for (int i = 0; i < strings.length; i++) {
+      strings[i].getChars(0, strings[i].length(), chars, start.get(i));
+      start.put(i + 1, start.get(i) + strings[i].length());
+    }
+    return chars;
+  }
+
+  /**
+   * Spread the higher bits of a hash code to the lower ones
+   * @param h - hash code
+   * @return spread hash code
+   */
+  private static int spread(int h) {
+    return h ^ (h >>> 16);
+  }
+
+  /**
+   * Collects words and glosses in dictionary order before the compact tables
+   * are built. Duplicate pairs of a word and a gloss are dropped when the
+   * tables are built.
+   */
+  static class Builder {
+    static final int INIT_CAP = 1024;
+
+    private final HashMap<String, Integer> keyIds = new HashMap<>();
+    private final HashMap<String, Integer> glossIds = new HashMap<>();
+    private final List<String> keys = new ArrayList<>();
+    private final List<String> glosses = new ArrayList<>();
+    private int[] rowKeys = new int[INIT_CAP];
+    private int[] rowGlosses = new int[INIT_CAP];
+    private int size;
+
+    /**
+     * Get the gloss of a line of the dictionary CSV file. The gloss pattern
+     * replaces the English word if it has a "~" placeholder, and spaces in
+     * the gloss are replaced with "-".
+     * @param dictLine - fields of the line
+     * @return the English gloss
+     */
+    static String normalize(String[] dictLine) {
+      String enWord = dictLine[ENG_IDX];
+      if (dictLine[PATTERN_IDX].contains("~"))
+        enWord = dictLine[PATTERN_IDX].replace("~", enWord);
+      if(enWord.contains(" "))
+        enWord = enWord.replace(" ", "-");
+      return enWord;
+    }
+
+    /**
+     * Add a gloss of a word, ranked after the glosses added before
+     * @param word - Chinese word
+     * @param gloss - English gloss
+     */
+    void add(String word, String gloss) {
+      int key = id(this.keyIds, this.keys, word);
+      int id = id(this.glossIds, this.glosses, gloss);
+      if (this.size == this.rowKeys.length) {
+        this.rowKeys = Arrays.copyOf(this.rowKeys, this.size * 2);
+        this.rowGlosses = Arrays.copyOf(this.rowGlosses, this.size * 2);
+      }
+      this.rowKeys[this.size] = key;
+      this.rowGlosses[this.size++] = id;
+    }
+
+    /**
+     * Build the immutable dictionary
+     * @param maxLength - the length of the longest word to match in text
+     * @return the dictionary
+     */
+    Dictionary build(int maxLength) {
+      return new Dictionary(this, maxLength);
+    }
+
+    /**
+     * Intern a string
+     * @param ids - ids of the strings seen so far
+     * @param strings - strings seen so far, by id
+     * @param str - string to intern
+     * @return id of the string
+     */
+    private static int id(HashMap<String, Integer> ids, List<String> strings,
+        String str) {
+      Integer id = ids.get(str);
+      if (id == null) {
+        id = strings.size();
+        ids.put(str, id);
+        strings.add(str);
+      }
+      return id;
+    }
+  }
+}
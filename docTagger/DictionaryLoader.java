@@ -0,0 +1,218 @@
+/**
+ * Parallel loader for the dictionary CSV file.
+ * @author agent
+ * @since 10/17/2026
+ */
+package docTagger;
+
+import java.io.CharArrayReader;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import com.opencsv.CSVReader;
+
+/**
+ * A class that loads the dictionary CSV file on several threads.
+ *
+ * The file is mapped into memory and cut into byte ranges that end on record
+ * boundaries. Finding the boundaries only needs one pass over the raw bytes
+ * that tracks whether it is inside a quoted field, because none of the
+ * characters that decide it can occur inside a multi-byte UTF-8 sequence. The
+ * pass follows the default CSVParser of opencsv, for which a backslash escapes
+ * a quote, so ranges end exactly where the records read by a single
+ * CSVReader end. Each range is then
+ * decoded, parsed and normalized on its own thread, and the results are merged
+ * in file order so that the ranking of glosses is the same as when the file is
+ * read sequentially.
+ */
+public class DictionaryLoader {
+  static final int MIN_CHUNK = 1 << 20; // Smallest range worth a thread
+  static final byte QUOTE = '"';
+  static final byte ESCAPE = '\\';
+  static final byte SEPARATOR = ',';
+  static final byte NEW_LINE = '\n';
+  static final byte RETURN = '\r';
+
+  /**
+   * Load the dictionary CSV file using all available processors
+   * @param dictName - the dictionary file name
+   * @return a builder holding all words and glosses
+   * @throws IOException
+   */
+  public static Dictionary.Builder read(String dictName) throws IOException {
+    return read(dictName, Runtime.getRuntime().availableProcessors());
+  }
+
+  /**
+   * Load the dictionary CSV file
+   * @param dictName - the dictionary file name
+   * @param nThreads - number of threads to parse with
+   * @return a builder holding all words and glosses
+   * @throws IOException
+   */
+  public static Dictionary.Builder read(String dictName, int nThreads)
+      throws IOException {
+    return read(dictName, nThreads, MIN_CHUNK);
+  }
+
+  /**
+   * Load the dictionary CSV file
+   * @param dictName - the dictionary file name
+   * @param nThreads - number of threads to parse with
+   * @param minChunk - smallest range worth a thread, in bytes
+   * @return a builder holding all words and glosses
+   * @throws IOException
+   */
+  static Dictionary.Builder read(String dictName, int nThreads, int minChunk)
+      throws IOException {
+    MappedByteBuffer buffer;
+    try (FileChannel channel = FileChannel.open(Paths.get(dictName),
+        StandardOpenOption.READ)) {
+      buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+    }
+    int[] bounds = split(buffer, Math.max(1, Math.min(nThreads,
+        buffer.limit() / minChunk)));
+
+    List<Chunk> chunks = new ArrayList<>();
+    for (int i = 0; i + 1 < bounds.length; i++)
+      chunks.add(new Chunk(buffer, bounds[i], bounds[i + 1]));
+
+    if (chunks.size() <= 1) {
+      for (Chunk chunk : chunks)
+        chunk.call();
+    }
+    else {
+      ExecutorService es = Executors.newFixedThreadPool(chunks.size());
+      try {
+        List<Future<Chunk>> results = es.invokeAll(chunks);
+        for (Future<Chunk> result : results)
+          result.get();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new IOException("Interrupted while loading " + dictName, e);
+      } catch (ExecutionException e) {
+        if (e.getCause() instanceof IOException)
+          throw (IOException) e.getCause();
+        throw new IOException(e.getCause());
+      } finally {
+        es.shutdown();
+      }
+    }
+
+    /* Merge in file order */
+    Dictionary.Builder builder = new Dictionary.Builder();
+    for (Chunk chunk : chunks) {
+      for (int i = 0; i < chunk.words.size(); i++)
+        builder.add(chunk.words.get(i), chunk.glosses.get(i));
+    }
+    return builder;
+  }
+
+  /**
+   * Cut the file into ranges that start and end on record boundaries. Like
+   * the CSVParser, a quote or a backslash followed by a quote, or a backslash
+   * followed by a backslash, escapes the next character inside a quoted field
+   * or after the first character of a field, and any other quote opens or
+   * closes a quoted field. A line that ends outside of one ends the record.
+   * @param buffer - the whole file
+   * @param parts - number of ranges wanted
+   * @return boundaries of the ranges, parts + 1 entries at most
+   */
+  static int[] split(ByteBuffer buffer, int parts) {
+    int size = buffer.limit();
+    int[] bounds = new int[parts + 1];
+    int count = 1;
+    boolean quoted = false;
+    boolean inField = false; // Same as the flag of the CSVParser
+    for (int i = 0; i < size && count < parts; i++) {
+      byte b = buffer.get(i);
+      if (b == NEW_LINE || b == RETURN) {
+        if (b == RETURN && i + 1 < size && buffer.get(i + 1) == NEW_LINE)
+          i++; // One line terminator
+        if (!quoted) {
+          inField = false;
+          if (buffer.get(i) == NEW_LINE &&
+              i + 1 >= (long) size * count / parts)
+            bounds[count++] = i + 1;
+        }
+      }
+      else if (b == QUOTE || b == ESCAPE) {
+        byte next = i + 1 < size ? buffer.get(i + 1) : NEW_LINE;
+        boolean escaped = (quoted || inField) &&
+            (next == QUOTE || (b == ESCAPE && next == ESCAPE));
+        if (escaped)
+          i++;
+        if (b == QUOTE) {
+          if (!escaped)
+            quoted = !quoted;
+          inField = !inField;
+        }
+      }
+      else if (b == SEPARATOR) {
+        if (!quoted)
+          inField = false;
+      }
+      else
+        inField = true;
+    }
+    if (bounds[count - 1] != size)
+      bounds[count++] = size;
+    return Arrays.copyOf(bounds, count);
+  }
+
+  /**
+   * A byte range of the file that parses itself into normalized words and
+   * glosses
+   */
+  static class Chunk implements Callable<Chunk> {
+    private final ByteBuffer range;
+    private final List<String> words = new ArrayList<>();
+    private final List<String> glosses = new ArrayList<>();
+
+    /**
+     * Constructor
+     * @param buffer - the whole file
+     * @param start - start of the range, inclusive
+     * @param end - end of the range, exclusive
+     */
+    Chunk(ByteBuffer buffer, int start, int end) {
+      ByteBuffer range = buffer.duplicate();
+      range.position(start);
+      range.limit(end);
+      this.range = range.slice();
+    }
+
+    /**
+     * Decode, parse and normalize the range
+     * @return this chunk
+     * @throws IOException
+     */
+    @Override
+    public Chunk call() throws IOException {
+      CharBuffer chars = StandardCharsets.UTF_8.decode(this.range);
+      try (CSVReader reader = new CSVReader(new CharArrayReader(chars.array(),
+          chars.arrayOffset() + chars.position(), chars.remaining()))) {
+        String[] dictLine;
+        while ((dictLine = reader.readNext()) != null) {
+          this.words.add(dictLine[Dictionary.CHN_IDX]);
+          this.glosses.add(Dictionary.Builder.normalize(dictLine));
+        }
+      }
+      return this;
+    }
+  }
+}
@@ -0,0 +1,182 @@
+/**
+ * Simple unit tests for the DictionaryLoader
+ * @author agent
+ * @since 10/17/2026
+ */
+package docTagger;
+
+import static org.junit.Assert.*;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.opencsv.CSVReader;
+
+public class DictionaryLoaderTester {
+  static final int RECORDS = 400;
+  static final int THREADS = 8;
+  static final long SEED = 20170209L;
+  static final String[] PIECES = {"a", "b", "\u6cd5", "\u9662", " ", ",",
+      "\\\"", "\"\"", "\\\\", "\n", "\r\n", "~"}; // Escaped as needed
+
+  private Path file;
+
+  /**
+   * Set up testing fixture
+   *
+   * @throws Exception
+   */
+  @Before
+  public void setUp() throws Exception {
+    this.file = Files.createTempFile("dict", ".csv");
+  }
+
+  /**
+   * Remove the dictionary file
+   *
+   * @throws IOException
+   */
+  @After
+  public void tearDown() throws IOException {
+    Files.delete(this.file);
+  }
+
+  /**
+   * Test that a file of quoted fields with escaped quotes, backslashes and
+   * line breaks loads the same in many ranges as in one, and the same as a
+   * single CSVReader reads it
+   *
+   * @throws IOException
+   */
+  @Test
+  public void testChunked() throws IOException {
+    Random random = new Random(SEED);
+    StringBuilder csv = new StringBuilder();
+    for (int i = 0; i < RECORDS; i++) {
+      csv.append(this.field(random, true)).append(',')
+          .append(this.field(random, false)).append(",\"")
+          .append(this.text(random)).append('"')
+          .append(random.nextBoolean() ? "\n" : "\r\n");
+    }
+    this.write(csv.toString());
+    Map<String, Set<String>> expected = this.reference(csv.toString());
+    assertEquals(expected, this.entries(DictionaryLoader.read(
+        this.file.toString(), 1)));
+    assertEquals(expected, this.entries(DictionaryLoader.read(
+        this.file.toString(), THREADS, 1)));
+  }
+
+  /**
+   * Test that a range never ends inside a field whose quotes are escaped with
+   * backslashes
+   *
+   * @throws IOException
+   */
+  @Test
+  public void testEscapedQuote() throws IOException {
+    String csv = "\"x\\\"\n,\",\"\",\"a\"\n\"y\",\"\",\"b\"\n" +
+        "z\\\"w,\"\",\"c\"\n";
+    this.write(csv);
+    Map<String, Set<String>> expected = this.reference(csv);
+    assertEquals(3, expected.size());
+    for (int parts = 1; parts <= THREADS; parts++)
+      assertEquals(expected, this.entries(DictionaryLoader.read(
+          this.file.toString(), parts, 1)));
+  }
+
+  /**
+   * Test that an empty file loads as an empty dictionary
+   *
+   * @throws IOException
+   */
+  @Test
+  public void testEmpty() throws IOException {
+    assertEquals(0, DictionaryLoader.read(this.file.toString(), THREADS, 1)
+        .build(docTagger.INIT_WL).size());
+  }
+
+  /**
+   * Generate an English word or pattern field, quoted or not
+   * @param random - source of the content
+   * @param pattern - whether the field may hold a "~" placeholder
+   * @return the field as written in the file
+   */
+  private String field(Random random, boolean pattern) {
+    if (random.nextBoolean())
+      return "\"" + this.text(random) + "\"";
+    String plain = "ab" + (pattern ? "~" : "");
+    return random.nextBoolean() ? plain : plain + "\\\"" + plain;
+  }
+
+  /**
+   * Generate the content of a quoted field
+   * @param random - source of the content
+   * @return the content, escaped for the file
+   */
+  private String text(Random random) {
+    StringBuilder text = new StringBuilder();
+    int length = 1 + random.nextInt(6);
+    for (int i = 0; i < length; i++)
+      text.append(PIECES[random.nextInt(PIECES.length)]);
+    return text.toString();
+  }
+
+  /**
+   * Write the dictionary file
+   * @param csv - content of the file
+   * @throws IOException
+   */
+  private void write(String csv) throws IOException {
+    Files.write(this.file, csv.getBytes(StandardCharsets.UTF_8));
+  }
+
+  /**
+   * Read the dictionary with a single CSVReader, as the baseline did
+   * @param csv - content of the file
+   * @return glosses of each word, in the order first read
+   * @throws IOException
+   */
+  private Map<String, Set<String>> reference(String csv) throws IOException {
+    Map<String, Set<String>> entries = new LinkedHashMap<>();
+    try (CSVReader reader = new CSVReader(new StringReader(csv))) {
+      String[] dictLine;
+      while ((dictLine = reader.readNext()) != null) {
+        entries.computeIfAbsent(dictLine[Dictionary.CHN_IDX],
+            k -> new LinkedHashSet<>()).add(
+                Dictionary.Builder.normalize(dictLine));
+      }
+    }
+    return entries;
+  }
+
+  /**
+   * List the words and ranked glosses of a loaded dictionary
+   * @param builder - the loaded words and glosses
+   * @return glosses of each word, in the order of the word ids
+   */
+  private Map<String, Set<String>> entries(Dictionary.Builder builder) {
+    Dictionary dict = builder.build(docTagger.INIT_WL);
+    Map<String, Set<String>> entries = new LinkedHashMap<>();
+    for (int key = 0; key < dict.size(); key++) {
+      List<String> glosses = new ArrayList<>();
+      for (int rank = 0; rank < dict.glossCount(key); rank++)
+        glosses.add(dict.gloss(key, rank));
+      entries.put(dict.word(key), new LinkedHashSet<>(glosses));
+    }
+    return entries;
+  }
+}
@@ -0,0 +1,252 @@
+/**
+ * Hot reloading of the dictionary of a running stream.
+ * @author agent
+ * @since 10/17/2026
+ */
+package docTagger;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * A class that holds the current dictionary of a stream and swaps in a newly
+ * loaded one while the workers keep running.
+ *
+ * The dictionary is published together with the sentence cache filled from it
+ * as an immutable snapshot. A tagger takes the current snapshot when it starts
+ * a document and keeps it until the document is done, so documents in flight
+ * finish against the old dictionary and later documents pick up the new one.
+ * Taking a snapshot is a single volatile read; nothing on the lookup path
+ * locks. Every reload starts an empty sentence cache, since cached sentences
+ * carry the tags and word ids of the dictionary they were tagged with. The
+ * annotations kept for deduplication are keyed by the generation of the
+ * dictionary, so none made with an older dictionary matches a document
+ * claimed after a reload, and the old ones are forgotten to free their memory.
+ *
+ * A reload is triggered by calling reload(), by the command "reload" on a
+ * command stream, or by a change of the dictionary file once it is being
+ * watched. A dictionary that fails to load leaves the current one in place.
+ */
+public class DictionaryReloader implements AutoCloseable {
+  static final String COMMAND = "reload";
+  static final long SETTLE = 500_000_000L; // Quiet nanoseconds before loading
+
+  private final String dictName;
+  private final long cacheCapacity; // Bytes of each sentence cache, 0 for none
+  private final Deduplicator dedup; // May be null
+  private final AtomicReference<Snapshot> current;
+  private volatile WatchService watcher;
+
+  /**
+   * Constructor, loading the first dictionary
+   * @param dictName - dictionary file name, CSV or compiled snapshot
+   * @param cacheCapacity - maximum bytes of tagged sentences per dictionary,
+   *        0 for no sentence cache
+   * @param dedup - annotations of repeated documents, may be null
+   * @throws IOException
+   */
+  public DictionaryReloader(String dictName, long cacheCapacity,
+      Deduplicator dedup) throws IOException {
+    this.dictName = dictName;
+    this.cacheCapacity = cacheCapacity;
+    this.dedup = dedup;
+    this.current = new AtomicReference<>(this.load(1));
+    if (dedup != null)
+      dedup.follow(this);
+  }
+
+  /**
+   * Getter for the current snapshot
+   * @return the dictionary and sentence cache for the next document
+   */
+  public Snapshot current() {
+    return this.current.get();
+  }
+
+  /**
+   * Load the dictionary file again and publish it to the workers
+   * @return true if the new dictionary is in use, false if it failed to load
+   */
+  public synchronized boolean reload() {
+    Snapshot old = this.current.get();
+    long start = System.nanoTime();
+    Snapshot snapshot;
+    try {
+      snapshot = this.load(old.generation + 1);
+    } catch (IOException | RuntimeException e) {
+      System.err.println("Dictionary reload failed, keeping generation " +
+          old.generation + ": " + e);
+      return false;
+    }
+    this.current.set(snapshot);
+    if (this.dedup != null)
+      this.dedup.clear();
+    long end = System.nanoTime();
+    if (old.cache != null)
+      System.out.println(old.cache);
+    System.out.println("Dictionary generation " + snapshot.generation +
+        " loaded in " + (end - start) + " ns.");
+    return true;
+  }
+
+  /**
+   * Load a snapshot from the dictionary file
+   * @param generation - number of the snapshot
+   * @return the snapshot
+   * @throws IOException
+   */
+  private Snapshot load(int generation) throws IOException {
+    Dictionary dict = Dictionary.load(this.dictName, docTagger.INIT_WL);
+    SentenceCache cache = this.cacheCapacity > 0 ?
+        new SentenceCache(this.cacheCapacity) : null;
+    return new Snapshot(dict, cache, generation);
+  }
+
+  /**
+   * Reload whenever the dictionary file is written, on a daemon thread. A
+   * burst of changes loads once the file has been quiet for a moment.
+   * @throws IOException
+   */
+  public void watch() throws IOException {
+    Path file = Paths.get(this.dictName).toAbsolutePath();
+    WatchService watcher = file.getFileSystem().newWatchService();
+    file.getParent().register(watcher, StandardWatchEventKinds.ENTRY_CREATE,
+        StandardWatchEventKinds.ENTRY_MODIFY);
+    this.watcher = watcher;
+    daemon("dictionary-watch", () -> {
+      try {
+        while (true) {
+          if (!this.changed(watcher.take(), file))
+            continue;
+          /* Wait until the writer of the file is done; other files in the
+           * directory may keep changing meanwhile */
+          long quiet = System.nanoTime() + SETTLE;
+          for (long wait; (wait = quiet - System.nanoTime()) > 0;) {
+            WatchKey key = watcher.poll(wait, TimeUnit.NANOSECONDS);
+            if (key != null && this.changed(key, file))
+              quiet = System.nanoTime() + SETTLE;
+          }
+          this.reload();
+        }
+      } catch (InterruptedException | ClosedWatchServiceException e) {
+        // Stopped by close()
+      }
+    });
+  }
+
+  /**
+   * Check whether a watch event is about the dictionary file
+   * @param key - signalled key of the watched directory
+   * @param file - dictionary file
+   * @return true if the dictionary file was created or changed
+   */
+  private boolean changed(WatchKey key, Path file) {
+    boolean changed = false;
+    for (WatchEvent<?> event : key.pollEvents()) {
+      Object context = event.context();
+      if (context instanceof Path &&
+          file.getFileName().equals(context))
+        changed = true;
+    }
+    key.reset();
+    return changed;
+  }
+
+  /**
+   * Reload whenever the command "reload" is read from a stream, on a daemon
+   * thread. Other lines are ignored.
+   * @param commands - stream of commands, one per line
+   */
+  public void listen(InputStream commands) {
+    daemon("dictionary-command", () -> {
+      try (BufferedReader reader = new BufferedReader(new InputStreamReader(
+          commands, StandardCharsets.UTF_8))) {
+        for (String line; (line = reader.readLine()) != null;) {
+          if (line.trim().equals(COMMAND))
+            this.reload();
+        }
+      } catch (IOException e) {
+        e.printStackTrace();
+      }
+    });
+  }
+
+  /**
+   * Start a daemon thread, which does not keep the run alive
+   * @param name - thread name
+   * @param task - body of the thread
+   */
+  private static void daemon(String name, Runnable task) {
+    Thread thread = new Thread(task, name);
+    thread.setDaemon(true);
+    thread.start();
+  }
+
+  /**
+   * Stop watching the dictionary file
+   * @throws IOException
+   */
+  @Override
+  public void close() throws IOException {
+    WatchService watcher = this.watcher;
+    if (watcher != null)
+      watcher.close();
+  }
+
+  /**
+   * A dictionary and the sentences tagged with it
+   */
+  public static class Snapshot {
+    private final Dictionary dict;
+    private final SentenceCache cache;
+    private final int generation;
+
+    /**
+     * Constructor
+     * @param dict - dictionary
+     * @param cache - sentences tagged with the dictionary, may be null
+     * @param generation - number of the snapshot, counting loads from 1
+     */
+    private Snapshot(Dictionary dict, SentenceCache cache, int generation) {
+      this.dict = dict;
+      this.cache = cache;
+      this.generation = generation;
+    }
+
+    /**
+     * Getter for the dictionary
+     * @return the dictionary
+     */
+    public Dictionary dict() {
+      return this.dict;
+    }
+
+    /**
+     * Getter for the sentence cache
+     * @return sentences tagged with the dictionary, may be null
+     */
+    public SentenceCache cache() {
+      return this.cache;
+    }
+
+    /**
+     * Getter for the generation
+     * @return number of the snapshot, counting loads from 1
+     */
+    public int generation() {
+      return this.generation;
+    }
+  }
+}
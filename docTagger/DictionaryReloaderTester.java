@@ -0,0 +1,108 @@
+/**
+ * Simple unit tests for the DictionaryReloader
+ * @author agent
+ * @since 10/17/2026
+ */
+package docTagger;
+
+import static org.junit.Assert.*;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.concurrent.CompletableFuture;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class DictionaryReloaderTester {
+  private Path file;
+  private DictionaryReloader reloader;
+
+  /**
+   * Set up testing fixture
+   *
+   * @throws Exception
+   */
+  @Before
+  public void setUp() throws Exception {
+    this.file = Files.createTempFile("dict", ".csv");
+    this.write("\"fayuan\",\"\",\"court\"\n");
+    this.reloader = new DictionaryReloader(this.file.toString(), 1 << 20,
+        null);
+  }
+
+  /**
+   * Remove the dictionary file
+   *
+   * @throws Exception
+   */
+  @After
+  public void tearDown() throws Exception {
+    this.reloader.close();
+    Files.deleteIfExists(this.file);
+  }
+
+  /**
+   * Test that a reload publishes a new dictionary and sentence cache, and
+   * that a snapshot already taken keeps the old ones
+   */
+  @Test
+  public void testReload() throws IOException {
+    DictionaryReloader.Snapshot old = this.reloader.current();
+    this.write("\"fayuan\",\"\",\"court\"\n\"panjue\",\"\",\"ruling\"\n");
+    assertTrue(this.reloader.reload());
+    DictionaryReloader.Snapshot snapshot = this.reloader.current();
+    assertEquals(2, snapshot.generation());
+    assertTrue(snapshot.dict().contains("ruling"));
+    assertNotSame(old.cache(), snapshot.cache());
+    assertEquals(1, old.generation());
+    assertFalse(old.dict().contains("ruling"));
+  }
+
+  /**
+   * Test that a dictionary that fails to load leaves the current one in use
+   */
+  @Test
+  public void testFailure() throws IOException {
+    DictionaryReloader.Snapshot old = this.reloader.current();
+    Files.delete(this.file);
+    assertFalse(this.reloader.reload());
+    assertSame(old, this.reloader.current());
+  }
+
+  /**
+   * Test that a document claimed after a reload never reuses an annotation
+   * made with the old dictionary, even one the reload did not forget
+   */
+  @Test
+  public void testDeduplicated() throws IOException {
+    JsonProjection projection = new JsonProjection(Arrays.asList("$.t"),
+        "$.file");
+    Deduplicator dedup = new Deduplicator(projection, 1 << 20);
+    dedup.follow(this.reloader); // Kept across the reload
+    CompletableFuture<String[]> first = new CompletableFuture<>();
+    assertNull(dedup.claim(projection.project(
+        "{\"file\": \"a.json\", \"t\": \"court\"}"), first));
+    first.complete(new String[] {"<fayuan>court</fayuan>"});
+    assertSame(first, dedup.claim(projection.project(
+        "{\"file\": \"b.json\", \"t\": \"court\"}"),
+        new CompletableFuture<>()));
+    assertTrue(this.reloader.reload());
+    assertNull(dedup.claim(projection.project(
+        "{\"file\": \"c.json\", \"t\": \"court\"}"),
+        new CompletableFuture<>()));
+  }
+
+  /**
+   * Replace the dictionary file
+   * @param csv - dictionary entries
+   * @throws IOException
+   */
+  private void write(String csv) throws IOException {
+    Files.write(this.file, csv.getBytes(StandardCharsets.UTF_8));
+  }
+}
@@ -0,0 +1,289 @@
+/**
+ * Compile the dictionary to a binary snapshot and map it back into memory.
+ * @author agent
+ * @since 10/17/2026
+ */
+package docTagger;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.CharBuffer;
+import java.nio.IntBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * A versioned binary snapshot of a compiled dictionary.
+ *
+ * The snapshot holds the packed keys, the glosses, the hash table and the word
+ * matcher tables exactly as they are laid out in memory, so opening it is a
+ * single memory mapping: no CSV parsing, normalization or hashing happens at
+ * startup, and every tagger JVM on the same machine shares the pages through
+ * the OS page cache instead of holding a private copy on the heap.
+ *
+ * Layout, all little-endian: the magic number, the format version, then a
+ * sequence of sections. A section is either a single int, or an element count
+ * followed by that many ints or chars padded to a multiple of four bytes.
+ */
+public class DictionarySnapshot {
+  static final int MAGIC = 0x43445444; // "DTDC" in little-endian
+  static final int VERSION = 2;
+  static final int NUM_ARGS = 2;
+  static final int INT_BYTES = Integer.BYTES;
+  static final int CHAR_BYTES = Character.BYTES;
+  static final ByteOrder ORDER = ByteOrder.LITTLE_ENDIAN;
+  static final String TEMP_POST = ".tmp"; // Suffix of a snapshot being written
+
+  /**
+   * Write a dictionary to a snapshot file. The snapshot is written to a
+   * temporary file next to it and moved into place, so taggers that have the
+   * old snapshot mapped keep reading the old file rather than one truncated
+   * under them.
+   * @param dict - dictionary to write
+   * @param fileName - snapshot file name
+   * @throws IOException
+   */
+  public static void write(Dictionary dict, String fileName)
+      throws IOException {
+    Path target = Paths.get(fileName);
+    Path temp = Paths.get(fileName + TEMP_POST);
+    try {
+      try (FileChannel channel = FileChannel.open(temp,
+          StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+          StandardOpenOption.WRITE)) {
+        Writer out = new Writer(channel);
+        out.putInt(MAGIC);
+        out.putInt(VERSION);
+        dict.write(out);
+      }
+      Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE,
+          StandardCopyOption.REPLACE_EXISTING);
+    } finally {
+      Files.deleteIfExists(temp);
+    }
+  }
+
+  /**
+   * Map a snapshot file into memory
+   * @param fileName - snapshot file name
+   * @return the dictionary backed by the mapped file
+   * @throws IOException
+   */
+  public static Dictionary open(String fileName) throws IOException {
+    MappedByteBuffer buffer;
+    try (FileChannel channel = FileChannel.open(Paths.get(fileName),
+        StandardOpenOption.READ)) {
+      buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+    }
+    Reader in = new Reader(buffer);
+    if(in.getInt() != MAGIC)
+      throw new IOException(fileName + " is not a dictionary snapshot");
+    int version = in.getInt();
+    if(version != VERSION)
+      throw new IOException("Unsupported dictionary snapshot version " +
+          version + " in " + fileName);
+    return new Dictionary(in);
+  }
+
+  /**
+   * Check whether a file starts with the snapshot magic number
+   * @param fileName - file name
+   * @return true if the file is a dictionary snapshot
+   * @throws IOException
+   */
+  public static boolean isSnapshot(String fileName) throws IOException {
+    Path path = Paths.get(fileName);
+    try (FileChannel channel = FileChannel.open(path,
+        StandardOpenOption.READ)) {
+      ByteBuffer head = ByteBuffer.allocate(INT_BYTES).order(ORDER);
+      while (head.hasRemaining() && channel.read(head) >= 0);
+      return !head.hasRemaining() && head.getInt(0) == MAGIC;
+    }
+  }
+
+  /**
+   * Sequential writer of snapshot sections
+   */
+  static class Writer {
+    private final FileChannel channel;
+
+    /**
+     * Constructor
+     * @param channel - output channel
+     */
+    Writer(FileChannel channel) {
+      this.channel = channel;
+    }
+
+    /**
+     * Write a single int
+     * @param value - value to write
+     * @throws IOException
+     */
+    void putInt(int value) throws IOException {
+      ByteBuffer buffer = ByteBuffer.allocate(INT_BYTES).order(ORDER);
+      buffer.putInt(value).flip();
+      this.flush(buffer);
+    }
+
+    /**
+     * Write an int section
+     * @param data - ints to write, from index 0 to the limit
+     * @throws IOException
+     */
+    void putInts(IntBuffer data) throws IOException {
+      int count = data.limit();
+      ByteBuffer buffer = ByteBuffer.allocate(INT_BYTES + count * INT_BYTES)
+          .order(ORDER);
+      buffer.putInt(count);
+      IntBuffer source = data.duplicate();
+      source.rewind();
+      buffer.asIntBuffer().put(source);
+      this.flush(buffer);
+    }
+
+    /**
+     * Write a char section
+     * @param data - chars to write, from index 0 to the limit
+     * @throws IOException
+     */
+    void putChars(CharBuffer data) throws IOException {
+      int count = data.limit();
+      ByteBuffer buffer = ByteBuffer.allocate(INT_BYTES + pad(count *
+          CHAR_BYTES)).order(ORDER);
+      buffer.putInt(count);
+      CharBuffer source = data.duplicate();
+      source.rewind();
+      buffer.asCharBuffer().put(source);
+      this.flush(buffer);
+    }
+
+    /**
+     * Write the whole buffer to the channel
+     * @param buffer - buffer to write
+     * @throws IOException
+     */
+    private void flush(ByteBuffer buffer) throws IOException {
+      buffer.rewind();
+      while (buffer.hasRemaining())
+        this.channel.write(buffer);
+    }
+  }
+
+  /**
+   * Sequential reader of snapshot sections; the returned buffers are views
+   * into the mapped file
+   */
+  static class Reader {
+    private final ByteBuffer buffer;
+
+    /**
+     * Constructor
+     * @param buffer - mapped snapshot
+     */
+    Reader(ByteBuffer buffer) {
+      this.buffer = buffer.order(ORDER);
+    }
+
+    /**
+     * Read a single int
+     * @return the value
+     * @throws IOException
+     */
+    int getInt() throws IOException {
+      this.require(INT_BYTES);
+      return this.buffer.getInt();
+    }
+
+    /**
+     * Read an int section
+     * @return a view of the ints
+     * @throws IOException
+     */
+    IntBuffer getInts() throws IOException {
+      int bytes = this.count() * INT_BYTES;
+      return this.section(bytes, bytes).asIntBuffer();
+    }
+
+    /**
+     * Read a char section
+     * @return a view of the chars
+     * @throws IOException
+     */
+    CharBuffer getChars() throws IOException {
+      int bytes = this.count() * CHAR_BYTES;
+      return this.section(bytes, pad(bytes)).asCharBuffer();
+    }
+
+    /**
+     * Read the element count of a section
+     * @return the count
+     * @throws IOException
+     */
+    private int count() throws IOException {
+      int count = this.getInt();
+      if(count < 0)
+        throw new IOException("Corrupted dictionary snapshot");
+      return count;
+    }
+
+    /**
+     * Slice the next section out of the mapped file
+     * @param bytes - size of the section data
+     * @param padded - size of the section data with padding
+     * @return a little-endian view of the section
+     * @throws IOException
+     */
+    private ByteBuffer section(int bytes, int padded) throws IOException {
+      this.require(padded);
+      ByteBuffer section = this.buffer.slice();
+      section.limit(bytes);
+      this.buffer.position(this.buffer.position() + padded);
+      return section.order(ORDER);
+    }
+
+    /**
+     * Check that enough bytes are left in the snapshot
+     * @param bytes - number of bytes needed
+     * @throws IOException
+     */
+    private void require(int bytes) throws IOException {
+      if(this.buffer.remaining() < bytes)
+        throw new IOException("Truncated dictionary snapshot");
+    }
+  }
+
+  /**
+   * Round a section size up to a multiple of four bytes
+   * @param bytes - section size
+   * @return padded size
+   */
+  private static int pad(int bytes) {
+    return (bytes + INT_BYTES - 1) & -INT_BYTES;
+  }
+
+  /**
+   * Compile a dictionary CSV file to a snapshot.
+   *
+   * @param args - command line arguments
+   *        arg1 - dictionary CSV file
+   *        arg2 - snapshot file to write
+   * @throws IOException
+   */
+  public static void main(String[] args) throws IOException {
+    if(args.length != NUM_ARGS) throw new IllegalArgumentException();
+
+    long start = System.nanoTime();
+    Dictionary dict = Dictionary.load(args[0], docTagger.INIT_WL);
+    write(dict, args[1]);
+    long end = System.nanoTime();
+    System.out.println("Dictionary of " + dict.size() + " words compiled in " +
+        (end - start) + " ns.");
+  }
+}
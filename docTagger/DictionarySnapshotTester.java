@@ -0,0 +1,183 @@
+/**
+ * Simple unit tests for the DictionarySnapshot
+ * @author agent
+ * @since 10/17/2026
+ */
+package docTagger;
+
+import static org.junit.Assert.*;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class DictionarySnapshotTester {
+  private Path dir;
+  private String fileName;
+
+  /**
+   * Set up testing fixture
+   *
+   * @throws Exception
+   */
+  @Before
+  public void setUp() throws Exception {
+    this.dir = Files.createTempDirectory("snapshot");
+    this.fileName = this.dir.resolve("dict.bin").toString();
+  }
+
+  /**
+   * Remove the snapshot files
+   *
+   * @throws IOException
+   */
+  @After
+  public void tearDown() throws IOException {
+    for (Path file : this.files())
+      Files.delete(file);
+    Files.delete(this.dir);
+  }
+
+  /**
+   * Test that a mapped snapshot answers every lookup as the dictionary it
+   * was written from, with char sections of odd length padded
+   *
+   * @throws IOException
+   */
+  @Test
+  public void testRoundTrip() throws IOException {
+    Dictionary.Builder builder = new Dictionary.Builder();
+    builder.add("abc", "first");
+    builder.add("abc", "second");
+    builder.add("d", "skip" + Dictionary.IGNORE);
+    builder.add("ef", "first");
+    Dictionary dict = builder.build(docTagger.INIT_WL);
+    DictionarySnapshot.write(dict, this.fileName);
+    assertEquals(0, Files.size(this.dir.resolve("dict.bin")) %
+        DictionarySnapshot.INT_BYTES);
+    assertTrue(DictionarySnapshot.isSnapshot(this.fileName));
+
+    Dictionary mapped = Dictionary.load(this.fileName, docTagger.INIT_WL);
+    assertEquals(dict.size(), mapped.size());
+    for (int key = 0; key < dict.size(); key++) {
+      assertEquals(dict.word(key), mapped.word(key));
+      assertEquals(key, mapped.find(dict.word(key), 0,
+          dict.word(key).length()));
+      assertEquals(dict.glossCount(key), mapped.glossCount(key));
+      for (int rank = 0; rank < dict.glossCount(key); rank++)
+        assertEquals(dict.gloss(key, rank), mapped.gloss(key, rank));
+      assertEquals(dict.isIgnored(key), mapped.isIgnored(key));
+      assertEquals(dict.openTag(key), mapped.openTag(key));
+    }
+    assertFalse(mapped.contains("ab"));
+    assertEquals(dict.matcher().maxLength(), mapped.matcher().maxLength());
+  }
+
+  /**
+   * Test that an empty dictionary survives the round trip
+   *
+   * @throws IOException
+   */
+  @Test
+  public void testEmpty() throws IOException {
+    DictionarySnapshot.write(new Dictionary.Builder().build(
+        docTagger.INIT_WL), this.fileName);
+    Dictionary mapped = DictionarySnapshot.open(this.fileName);
+    assertEquals(0, mapped.size());
+    assertFalse(mapped.contains("a"));
+  }
+
+  /**
+   * Test that files with another magic number, another version or missing
+   * sections are rejected
+   *
+   * @throws IOException
+   */
+  @Test
+  public void testRejected() throws IOException {
+    Path file = this.dir.resolve("dict.bin");
+    this.writeInts(file, 0x12345678, DictionarySnapshot.VERSION);
+    assertFalse(DictionarySnapshot.isSnapshot(this.fileName));
+    this.assertRejected();
+    this.writeInts(file, DictionarySnapshot.MAGIC,
+        DictionarySnapshot.VERSION + 1);
+    this.assertRejected();
+    this.writeInts(file, DictionarySnapshot.MAGIC, DictionarySnapshot.VERSION,
+        1);
+    this.assertRejected();
+    DictionarySnapshot.write(new Dictionary.Builder().build(
+        docTagger.INIT_WL), this.fileName);
+    try {
+      Dictionary.load(this.fileName, docTagger.INIT_WL + 1);
+      fail("Snapshot compiled for another word length was loaded");
+    } catch (IOException e) {
+      // Expected
+    }
+  }
+
+  /**
+   * Test that writing a snapshot over one that is mapped leaves the mapped
+   * one readable, and leaves no temporary file behind
+   *
+   * @throws IOException
+   */
+  @Test
+  public void testReplaceMapped() throws IOException {
+    Dictionary.Builder before = new Dictionary.Builder();
+    before.add("court", "fayuan");
+    DictionarySnapshot.write(before.build(docTagger.INIT_WL), this.fileName);
+    Dictionary mapped = DictionarySnapshot.open(this.fileName);
+
+    Dictionary.Builder after = new Dictionary.Builder();
+    after.add("ruling", "panjue");
+    DictionarySnapshot.write(after.build(docTagger.INIT_WL), this.fileName);
+    assertEquals("fayuan", mapped.gloss(mapped.find("court", 0, 5)));
+    assertTrue(DictionarySnapshot.open(this.fileName).contains("ruling"));
+    assertEquals(1, this.files().size());
+  }
+
+  /**
+   * List the files of the test directory
+   * @return the files
+   * @throws IOException
+   */
+  private List<Path> files() throws IOException {
+    try (Stream<Path> files = Files.list(this.dir)) {
+      return files.collect(Collectors.toList());
+    }
+  }
+
+  /**
+   * Write a file of little-endian ints
+   * @param file - the file
+   * @param values - ints to write
+   * @throws IOException
+   */
+  private void writeInts(Path file, int... values) throws IOException {
+    ByteBuffer buffer = ByteBuffer.allocate(values.length *
+        DictionarySnapshot.INT_BYTES).order(DictionarySnapshot.ORDER);
+    for (int value : values)
+      buffer.putInt(value);
+    Files.write(file, buffer.array());
+  }
+
+  /**
+   * Check that opening the snapshot fails
+   */
+  private void assertRejected() {
+    try {
+      DictionarySnapshot.open(this.fileName);
+      fail("Invalid snapshot was opened");
+    } catch (IOException e) {
+      // Expected
+    }
+  }
+}
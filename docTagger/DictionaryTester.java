@@ -0,0 +1,245 @@
+/**
+ * Simple unit tests for the Dictionary
+ * @author agent
+ * @since 10/17/2026
+ */
+package docTagger;
+
+import static org.junit.Assert.*;
+
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.google.common.collect.HashMultimap;
+import com.opencsv.CSVReader;
+
+public class DictionaryTester {
+  static final int WORDS = 2000;
+  static final String ALPHABET = "ab\u6cd5\u9662";
+  static final long SEED = 20170209L;
+
+  private Path file;
+
+  /**
+   * Set up testing fixture
+   *
+   * @throws Exception
+   */
+  @Before
+  public void setUp() throws Exception {
+    this.file = Files.createTempFile("dict", ".csv");
+  }
+
+  /**
+   * Remove the dictionary file
+   *
+   * @throws IOException
+   */
+  @After
+  public void tearDown() throws IOException {
+    Files.delete(this.file);
+  }
+
+  /**
+   * Test that ignored words, repeated words and quoted glosses load the same
+   * as into the multimap the tagger used to keep
+   *
+   * @throws IOException
+   */
+  @Test
+  public void testEdgeCases() throws IOException {
+    this.write("\"court\",\"\",\"\u6cd5\u9662\"\n" +
+        "\"law, statute\",\"~-of\",\"\u6cd5\"\n" +
+        "\"" + Dictionary.IGNORE + "\",\"\",\"\u7684\"\n" +
+        "\"tribunal\",\"\",\"\u6cd5\u9662\"\n" +
+        "\"court\",\"\",\"\u6cd5\u9662\"\n" +
+        "\"say \"\"x\"\"\",\"\",\"\u8bf4\"\n");
+    Dictionary dict = Dictionary.load(this.file.toString(), docTagger.INIT_WL);
+    HashMultimap<String, String> expected = this.reference();
+    this.assertSameEntries(expected, dict);
+    assertEquals(4, dict.size());
+    assertTrue(dict.isIgnored(dict.find("\u7684", 0, 1)));
+    assertFalse(dict.isIgnored(dict.find("\u6cd5", 0, 1)));
+    assertEquals("law,-statute-of", dict.gloss(dict.find("\u6cd5", 0, 1)));
+  }
+
+  /**
+   * Test that an empty file loads as an empty dictionary
+   *
+   * @throws IOException
+   */
+  @Test
+  public void testEmpty() throws IOException {
+    this.write("");
+    Dictionary dict = Dictionary.load(this.file.toString(), docTagger.INIT_WL);
+    assertEquals(0, dict.size());
+    assertFalse(dict.contains("a"));
+    assertEquals(Dictionary.NOT_FOUND, dict.find("", 0, 0));
+  }
+
+  /**
+   * Test that many random words, including ones with equal hash codes, are
+   * found in place in a window of a longer text, and that every bit of the
+   * ignored set belongs to its own word
+   *
+   * @throws IOException
+   */
+  @Test
+  public void testRandom() throws IOException {
+    Random random = new Random(SEED);
+    HashMultimap<String, String> expected = HashMultimap.create();
+    Dictionary.Builder builder = new Dictionary.Builder();
+    for (String word : new String[] {"Aa", "BB", "AaAa", "BBBB", "AaBB"}) {
+      expected.put(word, "collides");
+      builder.add(word, "collides");
+    }
+    for (int i = 0; i < WORDS; i++) {
+      String word = this.word(random);
+      String gloss = random.nextInt(10) == 0 ? Dictionary.IGNORE :
+          "g" + random.nextInt(WORDS);
+      expected.put(word, gloss);
+      builder.add(word, gloss);
+    }
+    Dictionary dict = builder.build(docTagger.INIT_WL);
+    this.assertSameEntries(expected, dict);
+
+    for (int i = 0; i < WORDS; i++) {
+      String word = this.word(random);
+      String text = "xy" + word + "z";
+      int key = dict.find(text, 2, word.length());
+      assertEquals(expected.containsKey(word), key != Dictionary.NOT_FOUND);
+      if (key != Dictionary.NOT_FOUND) {
+        assertEquals(word, dict.word(key));
+        assertEquals(dict.gloss(key).contains(Dictionary.IGNORE),
+            dict.isIgnored(key));
+      }
+    }
+  }
+
+  /**
+   * Test that the glosses of a word are ranked in the order they first
+   * appear, with repeated rows dropped, whatever rows of other words come in
+   * between
+   */
+  @Test
+  public void testRanking() {
+    Random random = new Random(SEED);
+    Map<String, Set<String>> expected = new LinkedHashMap<>();
+    Dictionary.Builder builder = new Dictionary.Builder();
+    for (int i = 0; i < WORDS; i++) {
+      String word = this.word(random);
+      String gloss = "g" + random.nextInt(8);
+      expected.computeIfAbsent(word, k -> new LinkedHashSet<>()).add(gloss);
+      builder.add(word, gloss);
+    }
+    Dictionary dict = builder.build(docTagger.INIT_WL);
+    for (Map.Entry<String, Set<String>> entry : expected.entrySet()) {
+      int key = dict.find(entry.getKey(), 0, entry.getKey().length());
+      List<String> glosses = new ArrayList<>();
+      for (int rank = 0; rank < dict.glossCount(key); rank++)
+        glosses.add(dict.gloss(key, rank));
+      assertEquals(new ArrayList<>(entry.getValue()), glosses);
+      assertEquals(glosses.get(0), dict.gloss(key));
+    }
+    try {
+      dict.gloss(0, dict.glossCount(0));
+      fail("Gloss past the last rank was returned");
+    } catch (IndexOutOfBoundsException e) {
+      // Expected
+    }
+  }
+
+  /**
+   * Test that a gloss shared by several words, and its tags, are stored once
+   */
+  @Test
+  public void testInterned() {
+    Dictionary.Builder builder = new Dictionary.Builder();
+    builder.add("\u6cd5\u9662", new String("court"));
+    builder.add("\u5ead", new String("court"));
+    builder.add("\u5ead", "hall");
+    Dictionary dict = builder.build(docTagger.INIT_WL);
+    int first = dict.find("\u6cd5\u9662", 0, 2);
+    int second = dict.find("\u5ead", 0, 1);
+    assertSame(dict.gloss(first), dict.gloss(second));
+    assertEquals("<court>", dict.openTag(first));
+    assertEquals("</court>", dict.closeTag(first));
+    assertSame(dict.openTag(first), dict.openTag(second));
+    assertSame(dict.closeTag(first), dict.closeTag(second));
+    assertEquals("hall", dict.gloss(second, 1));
+  }
+
+  /**
+   * Check that a dictionary holds the same words and glosses as a multimap
+   * @param expected - glosses of each word
+   * @param dict - the dictionary
+   */
+  private void assertSameEntries(HashMultimap<String, String> expected,
+      Dictionary dict) {
+    assertEquals(expected.keySet().size(), dict.size());
+    for (String word : expected.keySet()) {
+      int key = dict.find(word, 0, word.length());
+      assertEquals(word, dict.word(key));
+      assertTrue(dict.contains(word));
+      HashSet<String> glosses = new HashSet<>();
+      for (int rank = 0; rank < dict.glossCount(key); rank++)
+        glosses.add(dict.gloss(key, rank));
+      assertEquals(expected.get(word), glosses);
+    }
+  }
+
+  /**
+   * Load the dictionary file the way the tagger used to, into a multimap
+   * @return glosses of each word
+   * @throws IOException
+   */
+  private HashMultimap<String, String> reference() throws IOException {
+    HashMultimap<String, String> dict = HashMultimap.create();
+    try (CSVReader reader = new CSVReader(new InputStreamReader(
+        new FileInputStream(this.file.toFile()), StandardCharsets.UTF_8))) {
+      String[] dictLine;
+      while ((dictLine = reader.readNext()) != null)
+        dict.put(dictLine[Dictionary.CHN_IDX],
+            Dictionary.Builder.normalize(dictLine));
+    }
+    return dict;
+  }
+
+  /**
+   * Write the dictionary file
+   * @param csv - content of the file
+   * @throws IOException
+   */
+  private void write(String csv) throws IOException {
+    Files.write(this.file, csv.getBytes(StandardCharsets.UTF_8));
+  }
+
+  /**
+   * Generate a random word
+   * @param random - source of the letters
+   * @return a word of one to four letters
+   */
+  private String word(Random random) {
+    StringBuilder word = new StringBuilder();
+    int length = 1 + random.nextInt(4);
+    for (int i = 0; i < length; i++)
+      word.append(ALPHABET.charAt(random.nextInt(ALPHABET.length())));
+    return word.toString();
+  }
+}
@@ -0,0 +1,173 @@
+/**
+ * NIO ingestion stage that reads input documents ahead of the workers.
+ * @author agent
+ * @since 10/17/2026
+ */
+package docTagger;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * A class that reads input files on several threads and hands them out in
+ * order.
+ *
+ * Files at least MAP_THRESHOLD bytes long are memory-mapped and decoded in
+ * place. Smaller files are read into one of a fixed pool of reusable buffers,
+ * or a buffer of their own when the pool is empty, and decoded straight from
+ * the buffer, so the producer no longer goes through a Scanner and its
+ * regular expressions. Up to a window of files ahead of the consumer are read
+ * concurrently so that disk I/O overlaps with tagging.
+ *
+ * As with a Scanner delimited by "\\Z", a single line terminator at the end of
+ * a file is not part of the document.
+ *
+ * Stages that schedule their own reads use the static read() with a pool from
+ * buffers(), without the reading threads of an instance.
+ */
+public class DocumentReader implements AutoCloseable {
+  static final int MAP_THRESHOLD = 1 << 20; // Smallest file to map
+  static final int WINDOW_MUL = 2; // Files in flight per reading thread
+
+  private final List<String> files;
+  private final ExecutorService es;
+  private final BlockingQueue<ByteBuffer> pool; // Buffers for small files
+  private final ArrayDeque<Future<String>> pending;
+  private final int window;
+  private int submitted;
+
+  /**
+   * Constructor
+   * @param files - input file names
+   * @param nThreads - number of files read concurrently
+   */
+  public DocumentReader(List<String> files, int nThreads) {
+    this.files = files;
+    this.es = Executors.newFixedThreadPool(nThreads);
+    this.pool = buffers(nThreads);
+    this.pending = new ArrayDeque<>();
+    this.window = nThreads * WINDOW_MUL;
+    this.submitted = 0;
+  }
+
+  /**
+   * Whether there are documents left
+   * @return true if next() has more documents to return
+   */
+  public boolean hasNext() {
+    return !this.pending.isEmpty() || this.submitted < this.files.size();
+  }
+
+  /**
+   * Get the next document in file order, skipping files that cannot be read
+   * @return content of the next document, or null if there are no more
+   * @throws InterruptedException
+   */
+  public String next() throws InterruptedException {
+    while (this.hasNext()) {
+      while (this.submitted < this.files.size() &&
+          this.pending.size() < this.window) {
+        String fileName = this.files.get(this.submitted++);
+        this.pending.add(this.es.submit(() -> read(fileName, this.pool)));
+      }
+      try {
+        return this.pending.remove().get();
+      } catch (ExecutionException e) {
+        e.getCause().printStackTrace();
+      }
+    }
+    return null;
+  }
+
+  /**
+   * Stop the reading threads
+   */
+  @Override
+  public void close() {
+    this.es.shutdownNow();
+  }
+
+  /**
+   * Create a pool of buffers for small files
+   * @param nBuffers - number of buffers, one per concurrent read
+   * @return the pool
+   */
+  static BlockingQueue<ByteBuffer> buffers(int nBuffers) {
+    BlockingQueue<ByteBuffer> pool = new ArrayBlockingQueue<>(nBuffers);
+    for (int i = 0; i < nBuffers; i++)
+      pool.add(ByteBuffer.allocate(MAP_THRESHOLD));
+    return pool;
+  }
+
+  /**
+   * Read and decode a whole file on the calling thread
+   * @param fileName - file name
+   * @param pool - buffers for small files from buffers(), may be null
+   * @return content of the file
+   * @throws IOException
+   */
+  static String read(String fileName, BlockingQueue<ByteBuffer> pool)
+      throws IOException {
+    try (FileChannel channel = FileChannel.open(Paths.get(fileName),
+        StandardOpenOption.READ)) {
+      long size = channel.size();
+      if (size == 0)
+        throw new IOException(fileName + " is empty");
+      if (size >= MAP_THRESHOLD) {
+        MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0,
+            size);
+        String content = StandardCharsets.UTF_8.newDecoder()
+            .onMalformedInput(CodingErrorAction.REPLACE)
+            .onUnmappableCharacter(CodingErrorAction.REPLACE)
+            .decode(mapped).toString();
+        return trimLineTerminator(content);
+      }
+
+      /* Use a pooled buffer if one is free */
+      ByteBuffer pooled = pool != null ? pool.poll() : null;
+      ByteBuffer buffer = pooled != null ? pooled :
+          ByteBuffer.allocate((int) size);
+      try {
+        buffer.clear();
+        while (buffer.position() < size && channel.read(buffer) >= 0);
+        int length = buffer.position();
+        if (length > 0 && buffer.get(length - 1) == '\n')
+          length--;
+        if (length > 0 && buffer.get(length - 1) == '\r')
+          length--;
+        return new String(buffer.array(), 0, length, StandardCharsets.UTF_8);
+      } finally {
+        if (pooled != null)
+          pool.add(pooled);
+      }
+    }
+  }
+
+  /**
+   * Remove one line terminator at the end of a document
+   * @param content - the document
+   * @return the document without the line terminator
+   */
+  private static String trimLineTerminator(String content) {
+    int length = content.length();
+    if (length > 0 && content.charAt(length - 1) == '\n')
+      length--;
+    if (length > 0 && content.charAt(length - 1) == '\r')
+      length--;
+    return content.substring(0, length);
+  }
+}
@@ -0,0 +1,182 @@
+/**
+ * Simple unit tests for the DocumentReader
+ * @author agent
+ * @since 10/17/2026
+ */
+package docTagger;
+
+import static org.junit.Assert.*;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class DocumentReaderTester {
+  static final String TEXT = "{\"t\": \"\u6cd5\u9662 court\"}";
+  static final int THREADS = 3;
+
+  private Path dir;
+  private int count;
+
+  /**
+   * Set up testing fixture
+   *
+   * @throws Exception
+   */
+  @Before
+  public void setUp() throws Exception {
+    this.dir = Files.createTempDirectory("reader");
+    this.count = 0;
+  }
+
+  /**
+   * Remove the input files
+   *
+   * @throws IOException
+   */
+  @After
+  public void tearDown() throws IOException {
+    try (Stream<Path> files = Files.list(this.dir)) {
+      for (Path file : files.collect(Collectors.toList()))
+        Files.delete(file);
+    }
+    Files.delete(this.dir);
+  }
+
+  /**
+   * Test that files just below and at the mapping threshold, with and
+   * without a line terminator, read the same as the whole file decoded
+   *
+   * @throws IOException
+   */
+  @Test
+  public void testThreshold() throws IOException {
+    BlockingQueue<ByteBuffer> pool = DocumentReader.buffers(1);
+    for (int size : new int[] {DocumentReader.MAP_THRESHOLD - 1,
+        DocumentReader.MAP_THRESHOLD, DocumentReader.MAP_THRESHOLD * 2 + 1}) {
+      for (String end : new String[] {"", "\n", "\r\n", "\n\n"}) {
+        byte[] bytes = this.content(size, end);
+        String expected = new String(bytes, StandardCharsets.UTF_8);
+        expected = expected.substring(0, expected.length() -
+            (end.isEmpty() ? 0 : end.equals("\n\n") ? 1 : end.length()));
+        String fileName = this.write(bytes);
+        assertEquals(expected, DocumentReader.read(fileName, pool));
+        assertEquals(expected, DocumentReader.read(fileName, null));
+      }
+    }
+    assertEquals(1, pool.size());
+  }
+
+  /**
+   * Test that a small file read into a pooled buffer after a larger one gets
+   * none of the bytes of the larger one
+   *
+   * @throws IOException
+   */
+  @Test
+  public void testReuse() throws IOException {
+    BlockingQueue<ByteBuffer> pool = DocumentReader.buffers(1);
+    String large = this.write(this.content(DocumentReader.MAP_THRESHOLD / 2,
+        ""));
+    String small = this.write(TEXT.getBytes(StandardCharsets.UTF_8));
+    DocumentReader.read(large, pool);
+    assertEquals(TEXT, DocumentReader.read(small, pool));
+  }
+
+  /**
+   * Test that bytes that are not UTF-8 are replaced the same way whether the
+   * file is read into a buffer or mapped
+   *
+   * @throws IOException
+   */
+  @Test
+  public void testMalformed() throws IOException {
+    byte[] bad = {'a', (byte) 0xff, 'b', (byte) 0xe6, (byte) 0xb3, 'c',
+        (byte) 0xc0, (byte) 0x80};
+    String expected = "a\ufffdb\ufffdc\ufffd\ufffd";
+    assertEquals(expected, DocumentReader.read(this.write(bad), null));
+
+    byte[] mapped = Arrays.copyOf(bad, DocumentReader.MAP_THRESHOLD);
+    Arrays.fill(mapped, bad.length, mapped.length, (byte) ' ');
+    assertTrue(DocumentReader.read(this.write(mapped), null)
+        .startsWith(expected + " "));
+  }
+
+  /**
+   * Test that an empty file cannot be read, and is skipped in between the
+   * other documents, which come out in file order
+   *
+   * @throws Exception
+   */
+  @Test
+  public void testOrder() throws Exception {
+    List<String> files = new ArrayList<>();
+    List<String> expected = new ArrayList<>();
+    for (int i = 0; i < THREADS * DocumentReader.WINDOW_MUL * 3; i++) {
+      if (i % 5 == 2) {
+        files.add(this.write(new byte[0]));
+        continue;
+      }
+      String text = TEXT + i;
+      files.add(this.write(text.getBytes(StandardCharsets.UTF_8)));
+      expected.add(text);
+    }
+    try {
+      DocumentReader.read(files.get(2), null);
+      fail("Empty file was read");
+    } catch (IOException e) {
+      // Expected
+    }
+
+    List<String> read = new ArrayList<>();
+    try (DocumentReader reader = new DocumentReader(files, THREADS)) {
+      String document;
+      while ((document = reader.next()) != null)
+        read.add(document);
+      assertFalse(reader.hasNext());
+    }
+    assertEquals(expected, read);
+  }
+
+  /**
+   * Create the content of a file of valid UTF-8
+   * @param size - number of bytes before the line terminator
+   * @param end - line terminator to end the file with
+   * @return the content
+   */
+  private byte[] content(int size, String end) {
+    byte[] text = TEXT.getBytes(StandardCharsets.UTF_8);
+    byte[] bytes = new byte[size + end.length()];
+    int i = 0;
+    for (; i + text.length <= size; i += text.length)
+      System.arraycopy(text, 0, bytes, i, text.length);
+    Arrays.fill(bytes, i, size, (byte) 'x');
+    for (int j = 0; j < end.length(); j++)
+      bytes[size + j] = (byte) end.charAt(j);
+    return bytes;
+  }
+
+  /**
+   * Write an input file
+   * @param bytes - content of the file
+   * @return the file name
+   * @throws IOException
+   */
+  private String write(byte[] bytes) throws IOException {
+    Path file = this.dir.resolve("doc" + this.count++ + ".json");
+    Files.write(file, bytes);
+    return file.toString();
+  }
+}
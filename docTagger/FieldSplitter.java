@@ -0,0 +1,241 @@
+/**
+ * Fork/join annotation of large documents.
+ * @author agent
+ * @since 10/17/2026
+ */
+package docTagger;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * A class that annotates the fields of one large document on several threads,
+ * so that a huge judgment does not hold up a single worker while the others
+ * run out of work.
+ *
+ * The field values and array elements of the document are cut into pieces of
+ * about CHUNK characters at sentence delimiters. Since every sentence is
+ * tagged on its own, the pieces tag exactly as the whole text would. The
+ * pieces are annotated by fork/join tasks that split the range of pieces in
+ * halves, so idle threads of the pool steal the halves that are still
+ * waiting, and the results are put back in field order by the tagger that
+ * asked. Each thread of the pool annotates with a tagger of its own, which
+ * borrows the dictionary and sentence cache of the document.
+ */
+public class FieldSplitter {
+  static final int CHUNK = 1 << 13; // Characters of a piece, about
+
+  private final ForkJoinPool pool;
+  private final int threshold;
+  private final ThreadLocal<docTagger> helpers;
+
+  /**
+   * Constructor
+   * @param parallelism - number of threads annotating pieces
+   * @param threshold - fewest characters in the targeted fields of a
+   *        document worth splitting
+   */
+  public FieldSplitter(int parallelism, int threshold) {
+    if (parallelism < 1 || threshold < 1)
+      throw new IllegalArgumentException("Invalid split configuration");
+    this.pool = new ForkJoinPool(parallelism);
+    this.threshold = threshold;
+    this.helpers = ThreadLocal.withInitial(() -> new docTagger(null, null,
+        null, null));
+  }
+
+  /**
+   * Whether a document is large enough to split
+   * @param projection - compiled targeted fields and case id
+   * @param document - the projected document
+   * @return true if its targeted fields hold at least the threshold
+   */
+  public boolean worthSplitting(JsonProjection projection,
+      JsonProjection.Document document) {
+    long size = 0;
+    for (int i = 0; i < projection.size(); i++) {
+      if (document.found(i))
+        size += document.raw(i).length();
+    }
+    return size >= this.threshold;
+  }
+
+  /**
+   * Annotate texts on the threads of the pool, waiting until all are done
+   * @param texts - field values and array elements to annotate
+   * @param parent - the tagger of the document, whose dictionary, sentence
+   *        cache and key index the pieces use
+   * @return the annotated pieces, in the order of the texts
+   */
+  public List<Piece> annotate(List<String> texts, docTagger parent) {
+    List<Piece> pieces = new ArrayList<>();
+    for (int unit = 0; unit < texts.size(); unit++) {
+      String text = texts.get(unit);
+      int start = 0;
+      do {
+        int end = Math.min(text.length(), start + CHUNK);
+        if (end < text.length())
+          end = docTagger.sentenceEnd(text, end, text.length());
+        pieces.add(new Piece(unit, text, start, end));
+        start = end;
+      } while (start < text.length());
+    }
+    if (pieces.isEmpty()) // Only empty arrays, padded past the threshold
+      return pieces;
+    this.pool.invoke(new Task(pieces, 0, pieces.size(), parent));
+    return pieces;
+  }
+
+  /**
+   * Stop the threads of the pool
+   */
+  public void close() {
+    this.pool.shutdown();
+  }
+
+  /**
+   * Annotate a range of pieces, halving it until a single piece is left
+   */
+  private class Task extends RecursiveAction {
+    private static final long serialVersionUID = 1L;
+    private final List<Piece> pieces;
+    private final int from;
+    private final int to;
+    private final docTagger parent;
+
+    /**
+     * Constructor
+     * @param pieces - all pieces of the document
+     * @param from - first piece of the range, inclusive
+     * @param to - last piece of the range, exclusive
+     * @param parent - the tagger of the document
+     */
+    private Task(List<Piece> pieces, int from, int to, docTagger parent) {
+      this.pieces = pieces;
+      this.from = from;
+      this.to = to;
+      this.parent = parent;
+    }
+
+    @Override
+    protected void compute() {
+      if (this.to - this.from <= 1) {
+        if (this.to > this.from)
+          helpers.get().annotate(this.pieces.get(this.from), this.parent);
+        return;
+      }
+      int mid = (this.from + this.to) >>> 1;
+      invokeAll(new Task(this.pieces, this.from, mid, this.parent),
+          new Task(this.pieces, mid, this.to, this.parent));
+    }
+  }
+
+  /**
+   * A run of whole sentences of one text, and its annotation once done
+   */
+  public static class Piece {
+    private final int unit;
+    private final String text;
+    private final int from;
+    private final int to;
+    private String tagged;
+    private int[] keys; // Words matched, in the order first matched
+    private long lookups;
+    private long found;
+
+    /**
+     * Constructor
+     * @param unit - index of the text
+     * @param text - the whole text
+     * @param from - start index of the piece, inclusive
+     * @param to - end index of the piece, exclusive
+     */
+    private Piece(int unit, String text, int from, int to) {
+      this.unit = unit;
+      this.text = text;
+      this.from = from;
+      this.to = to;
+    }
+
+    /**
+     * Getter for the index of the text
+     * @return index of the text in the annotated list
+     */
+    public int unit() {
+      return this.unit;
+    }
+
+    /**
+     * Getter for the whole text
+     * @return the text the piece is cut from
+     */
+    public String text() {
+      return this.text;
+    }
+
+    /**
+     * Getter for the start of the piece
+     * @return start index in the text, inclusive
+     */
+    public int from() {
+      return this.from;
+    }
+
+    /**
+     * Getter for the end of the piece
+     * @return end index in the text, exclusive
+     */
+    public int to() {
+      return this.to;
+    }
+
+    /**
+     * Getter for the annotation
+     * @return the annotated piece
+     */
+    public String tagged() {
+      return this.tagged;
+    }
+
+    /**
+     * Getter for the matched words
+     * @return ids of the words matched in the piece, in the order first
+     *         matched, empty unless matched words are indexed
+     */
+    public int[] keys() {
+      return this.keys;
+    }
+
+    /**
+     * Getter for the number of dictionary lookups
+     * @return candidate words looked up while annotating the piece
+     */
+    public long lookups() {
+      return this.lookups;
+    }
+
+    /**
+     * Getter for the number of dictionary hits
+     * @return candidate words found while annotating the piece
+     */
+    public long found() {
+      return this.found;
+    }
+
+    /**
+     * Store the annotation
+     * @param tagged - the annotated piece
+     * @param keys - ids of the words matched
+     * @param lookups - candidate words looked up
+     * @param found - candidate words found
+     */
+    void done(String tagged, int[] keys, long lookups, long found) {
+      this.tagged = tagged;
+      this.keys = keys;
+      this.lookups = lookups;
+      this.found = found;
+    }
+  }
+}
@@ -0,0 +1,108 @@
+/**
+ * Simple unit tests for the FieldSplitter
+ * @author agent
+ * @since 10/17/2026
+ */
+package docTagger;
+
+import static org.junit.Assert.*;
+
+import java.util.Arrays;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class FieldSplitterTester {
+  private JsonProjection projection;
+  private Dictionary dict;
+  private FieldSplitter splitter;
+  private String json;
+
+  /**
+   * Set up testing fixture
+   *
+   * @throws Exception
+   */
+  @Before
+  public void setUp() throws Exception {
+    this.projection = new JsonProjection(Arrays.asList("$.t", "$.u.*"),
+        "$.file");
+    Dictionary.Builder builder = new Dictionary.Builder();
+    builder.add("court", "fayuan");
+    builder.add("ruling", "panjue");
+    builder.add("a", "yi");
+    this.dict = builder.build(docTagger.INIT_WL);
+    this.splitter = new FieldSplitter(2, 1);
+    StringBuilder text = new StringBuilder();
+    while (text.length() < FieldSplitter.CHUNK * 3)
+      text.append("the court made a ruling").append(docTagger.STOP);
+    this.json = "{\"file\": \"case.json\", \"t\": \"" + text +
+        "\", \"u\": [\"" + text + "\", \"no stop court\", \"\"]}";
+  }
+
+  /**
+   * Stop the threads of the splitter
+   */
+  @After
+  public void tearDown() {
+    this.splitter.close();
+  }
+
+  /**
+   * Test that a document tagged in pieces is the same as tagged whole, with
+   * the matched words in the same order
+   */
+  @Test
+  public void testSame() {
+    docTagger whole = this.tagger(null);
+    docTagger split = this.tagger(this.splitter);
+    assertEquals(whole.tag(this.json), split.tag(this.json));
+    JsonProjection.Document document = this.projection.project(this.json);
+    assertArrayEquals(whole.annotate(document, "case"),
+        split.annotate(document, "case"));
+    assertTrue(this.splitter.annotate(Arrays.asList(this.json),
+        whole).size() > 1);
+  }
+
+  /**
+   * Test that only documents as large as the threshold are split
+   */
+  @Test
+  public void testThreshold() {
+    JsonProjection.Document document = this.projection.project(this.json);
+    assertTrue(this.splitter.worthSplitting(this.projection, document));
+    FieldSplitter large = new FieldSplitter(1, this.json.length());
+    assertFalse(large.worthSplitting(this.projection, document));
+    large.close();
+  }
+
+  /**
+   * Test that a document whose targeted fields are empty arrays, padded with
+   * white space past the threshold, is tagged as it is whole
+   */
+  @Test
+  public void testEmptyArray() {
+    StringBuilder padding = new StringBuilder();
+    while (padding.length() < FieldSplitter.CHUNK)
+      padding.append(' ');
+    String json = "{\"file\": \"case.json\", \"u\": [" + padding + "]}";
+    assertTrue(this.splitter.worthSplitting(this.projection,
+        this.projection.project(json)));
+    assertEquals(this.tagger(null).tag(json),
+        this.tagger(this.splitter).tag(json));
+    assertTrue(this.splitter.annotate(Arrays.asList(), this.tagger(null))
+        .isEmpty());
+  }
+
+  /**
+   * Create a tagger of the test dictionary
+   * @param splitter - the field splitter, may be null
+   * @return the tagger
+   */
+  private docTagger tagger(FieldSplitter splitter) {
+    docTagger tagger = new docTagger(this.dict, null, this.projection, null);
+    tagger.setSplitter(splitter);
+    return tagger;
+  }
+}
@@ -0,0 +1,323 @@
+/**
+ * Primitive interval tree for matched words in a sentence
+ * @author agent
+ * @since 10/17/2026
+ */
+package docTagger;
+
+import java.util.Arrays;
+
+/**
+ * An int-keyed specialization of the IntervalTree, with the same red-black
+ * balancing, insert() and nextAvailable(), but no objects per interval.
+ *
+ * Every node is an index into parallel arrays of start, end, maxEnd, colour,
+ * parent and children, and index 0 is the sentinel. The arrays only grow, so
+ * clear() makes the tree empty in constant time and the next sentence reuses
+ * the nodes of the last one. One instance is meant to be owned by a worker,
+ * after which inserting and querying allocate nothing.
+ *
+ * The same restrictions as IntervalTree apply: intervals are disjoint, both
+ * end points are inclusive, and nextAvailable() only checks the end point of
+ * the query, which is exact for the longest-first algorithm of the tagger.
+ */
+public class IntIntervalTree {
+  static final int INIT_CAP = 64;
+  static final int NIL = 0; // Sentinel node
+
+  private int[] start;
+  private int[] end;
+  private int[] maxEnd; // Largest end in the subtree of each node
+  private boolean[] black;
+  private int[] parent;
+  private int[] left;
+  private int[] right;
+  private int root;
+  private int size;
+
+  /**
+   * Constructor
+   */
+  public IntIntervalTree() {
+    this.start = new int[INIT_CAP];
+    this.end = new int[INIT_CAP];
+    this.maxEnd = new int[INIT_CAP];
+    this.black = new boolean[INIT_CAP];
+    this.parent = new int[INIT_CAP];
+    this.left = new int[INIT_CAP];
+    this.right = new int[INIT_CAP];
+    this.maxEnd[NIL] = Integer.MIN_VALUE;
+    this.black[NIL] = true;
+    this.root = NIL;
+  }
+
+  /**
+   * Remove all intervals, keeping the arrays for the next sentence
+   */
+  public void clear() {
+    this.root = NIL;
+    this.size = 0;
+  }
+
+  /**
+   * Getter for the number of intervals
+   * @return number of intervals in the tree
+   */
+  public int size() {
+    return this.size;
+  }
+
+  /**
+   * Whether the tree is empty
+   * @return true if there are no intervals
+   */
+  public boolean isEmpty() {
+    return this.size == 0;
+  }
+
+  /**
+   * Insert an interval
+   * @param start - start point, inclusive
+   * @param end - end point, inclusive
+   * @return true if the tree was changed, false if the interval was already
+   *         in it
+   */
+  public boolean insert(int start, int end) {
+    int y = NIL;
+    int x = this.root;
+    int cmp = 0;
+    while (x != NIL) { // Find the parent, updating maxEnd on the way down
+      cmp = compare(start, end, this.start[x], this.end[x]);
+      if (cmp == 0)
+        return false; // The maxEnds above already cover this end
+      this.maxEnd[x] = Math.max(this.maxEnd[x], end);
+      y = x;
+      x = cmp < 0 ? this.left[x] : this.right[x];
+    }
+
+    int z = this.newNode(start, end);
+    this.parent[z] = y;
+    if (y == NIL)
+      this.root = z;
+    else if (cmp < 0)
+      this.left[y] = z;
+    else
+      this.right[y] = z;
+    this.insertFixup(z);
+    return true;
+  }
+
+  /**
+   * Find the next available (possibly) start point for a given interval
+   * @param start - start point, inclusive
+   * @param end - end point, inclusive
+   * @return the given start point if there is no overlap; otherwise return the
+   *         next available (possibly) position.
+   */
+  public int nextAvailable(int start, int end) {
+    int x = this.root;
+    while (x != NIL) {
+      if (this.start[x] <= end && end <= this.end[x])
+        return this.end[x] + 1;
+      x = end < this.start[x] ? this.left[x] : this.right[x];
+    }
+    return start;
+  }
+
+  /**
+   * Take the next node of the arena, growing it if it is full
+   * @param start - start point of the interval
+   * @param end - end point of the interval
+   * @return index of the red node, without children
+   */
+  private int newNode(int start, int end) {
+    int z = ++this.size;
+    if (z == this.start.length) {
+      int capacity = z * 2;
+      this.start = Arrays.copyOf(this.start, capacity);
+      this.end = Arrays.copyOf(this.end, capacity);
+      this.maxEnd = Arrays.copyOf(this.maxEnd, capacity);
+      this.black = Arrays.copyOf(this.black, capacity);
+      this.parent = Arrays.copyOf(this.parent, capacity);
+      this.left = Arrays.copyOf(this.left, capacity);
+      this.right = Arrays.copyOf(this.right, capacity);
+    }
+    this.start[z] = start;
+    this.end[z] = end;
+    this.maxEnd[z] = end;
+    this.black[z] = false;
+    this.left[z] = NIL;
+    this.right[z] = NIL;
+    return z;
+  }
+
+  /**
+   * Restore the red-black properties after an insertion
+   * @param z - the inserted node
+   * @see - Cormen et al. "Introduction to Algorithms", 2nd ed, pp. 281-287.
+   */
+  private void insertFixup(int z) {
+    while (!this.black[this.parent[z]]) {
+      int p = this.parent[z];
+      int g = this.parent[p];
+      if (p == this.left[g]) {
+        int y = this.right[g];
+        if (!this.black[y]) {
+          this.black[p] = true;
+          this.black[y] = true;
+          this.black[g] = false;
+          z = g;
+        } else {
+          if (z == this.right[p]) {
+            z = p;
+            this.leftRotate(z);
+            p = this.parent[z];
+          }
+          this.black[p] = true;
+          this.black[g] = false;
+          this.rightRotate(g);
+        }
+      } else {
+        int y = this.left[g];
+        if (!this.black[y]) {
+          this.black[p] = true;
+          this.black[y] = true;
+          this.black[g] = false;
+          z = g;
+        } else {
+          if (z == this.left[p]) {
+            z = p;
+            this.rightRotate(z);
+            p = this.parent[z];
+          }
+          this.black[p] = true;
+          this.black[g] = false;
+          this.leftRotate(g);
+        }
+      }
+    }
+    this.black[this.root] = true;
+  }
+
+  /**
+   * Perform a left rotation around a node
+   * @param x - the node, whose right child takes its place
+   */
+  private void leftRotate(int x) {
+    int y = this.right[x];
+    this.right[x] = this.left[y];
+    if (this.left[y] != NIL)
+      this.parent[this.left[y]] = x;
+    this.replace(x, y);
+    this.left[y] = x;
+    this.parent[x] = y;
+    this.resetMaxEnd(x);
+    this.resetMaxEnd(y);
+  }
+
+  /**
+   * Perform a right rotation around a node
+   * @param x - the node, whose left child takes its place
+   */
+  private void rightRotate(int x) {
+    int y = this.left[x];
+    this.left[x] = this.right[y];
+    if (this.right[y] != NIL)
+      this.parent[this.right[y]] = x;
+    this.replace(x, y);
+    this.right[y] = x;
+    this.parent[x] = y;
+    this.resetMaxEnd(x);
+    this.resetMaxEnd(y);
+  }
+
+  /**
+   * Put a node in the place of another under the parent of the latter
+   * @param x - the node to replace
+   * @param y - the node taking its place
+   */
+  private void replace(int x, int y) {
+    int p = this.parent[x];
+    this.parent[y] = p;
+    if (p == NIL)
+      this.root = y;
+    else if (x == this.left[p])
+      this.left[p] = y;
+    else
+      this.right[p] = y;
+  }
+
+  /**
+   * Recompute the maxEnd of a node from its children
+   * @param x - the node
+   */
+  private void resetMaxEnd(int x) {
+    this.maxEnd[x] = Math.max(this.end[x], Math.max(
+        this.maxEnd[this.left[x]], this.maxEnd[this.right[x]]));
+  }
+
+  /**
+   * Order intervals by start point, then by end point
+   * @param start1 - start point of the first interval
+   * @param end1 - end point of the first interval
+   * @param start2 - start point of the second interval
+   * @param end2 - end point of the second interval
+   * @return negative, zero or positive as the first interval is before, the
+   *         same as or after the second
+   */
+  static int compare(int start1, int end1, int start2, int end2) {
+    return start1 != start2 ? Integer.compare(start1, start2) :
+        Integer.compare(end1, end2);
+  }
+
+  /**
+   * Check the red-black and interval-tree properties, for testing
+   * @return true if the tree is a search tree, every path has the same
+   *         number of black nodes, no red node has a red child, and every
+   *         maxEnd is the largest end of its subtree
+   */
+  boolean isValid() {
+    return this.black[this.root] && this.blackHeight(this.root) >= 0 &&
+        this.isSearchTree(this.root, Integer.MIN_VALUE, Integer.MAX_VALUE);
+  }
+
+  /**
+   * Count the black nodes on the paths of a subtree
+   * @param x - root of the subtree
+   * @return black nodes on every path to a leaf, or -1 if the paths differ
+   *         or a red node has a red child
+   */
+  private int blackHeight(int x) {
+    if (x == NIL)
+      return 0;
+    if (!this.black[x] && (!this.black[this.left[x]] ||
+        !this.black[this.right[x]]))
+      return -1;
+    int l = this.blackHeight(this.left[x]);
+    int r = this.blackHeight(this.right[x]);
+    if (l < 0 || l != r)
+      return -1;
+    return l + (this.black[x] ? 1 : 0);
+  }
+
+  /**
+   * Check the order and the maxEnd of a subtree
+   * @param x - root of the subtree
+   * @param min - smallest start point allowed
+   * @param max - largest start point allowed
+   * @return true if the subtree is ordered and its maxEnds are right
+   */
+  private boolean isSearchTree(int x, int min, int max) {
+    if (x == NIL)
+      return true;
+    int l = this.left[x];
+    int r = this.right[x];
+    return this.start[x] >= min && this.start[x] <= max &&
+        (l == NIL || this.parent[l] == x) &&
+        (r == NIL || this.parent[r] == x) &&
+        this.maxEnd[x] == Math.max(this.end[x], Math.max(this.maxEnd[l],
+            this.maxEnd[r])) &&
+        this.isSearchTree(l, min, this.start[x]) &&
+        this.isSearchTree(r, this.start[x], max);
+  }
+}
@@ -0,0 +1,104 @@
+/**
+ * Simple unit tests for the IntIntervalTree
+ * @author agent
+ * @since 10/17/2026
+ */
+package docTagger;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Before;
+import org.junit.Test;
+
+public class IntIntervalTreeTester {
+  static final int LENGTH = 2000; // Positions of a random sentence
+  static final int ROUNDS = 5;
+  static final long SEED = 20170126L;
+
+  private IntIntervalTree it;
+
+  /**
+   * Set up testing fixture
+   *
+   * @throws Exception
+   */
+  @Before
+  public void setUp() throws Exception {
+    this.it = new IntIntervalTree();
+    this.it.insert(0, 4);
+    this.it.insert(5, 7);
+    this.it.insert(10, 12);
+    this.it.insert(18, 20);
+    this.it.insert(15, 17);
+  }
+
+  /**
+   * Test query overlapping interval, same as for the IntervalTree
+   */
+  @Test
+  public void testQuery() {
+    assertEquals(5, this.it.size());
+    assertFalse(this.it.insert(10, 12));
+    assertEquals(5, this.it.size());
+    assertTrue(this.it.isValid());
+
+    assertEquals(8, this.it.nextAvailable(5, 6));
+    assertEquals(13, this.it.nextAvailable(8, 12));
+    assertEquals(8, this.it.nextAvailable(4, 6));
+    assertEquals(8, this.it.nextAvailable(8, 9));
+  }
+
+  /**
+   * Test that a cleared tree is empty and is filled again
+   */
+  @Test
+  public void testClear() {
+    this.it.clear();
+    assertTrue(this.it.isEmpty());
+    assertEquals(10, this.it.nextAvailable(10, 12));
+    assertTrue(this.it.insert(10, 12));
+    assertEquals(1, this.it.size());
+    assertEquals(13, this.it.nextAvailable(8, 12));
+    assertEquals(0, this.it.nextAvailable(0, 4));
+  }
+
+  /**
+   * Test that random disjoint intervals, inserted in random order into a
+   * tree reused across rounds, keep the tree balanced and answer every query
+   * as the IntervalTree does
+   */
+  @Test
+  public void testRandom() {
+    Random random = new Random(SEED);
+    for (int round = 0; round < ROUNDS; round++) {
+      List<int[]> intervals = new ArrayList<>();
+      for (int j = 0; j < LENGTH;) {
+        int length = 1 + random.nextInt(docTagger.INIT_WL);
+        if (random.nextBoolean())
+          intervals.add(new int[] {j, Math.min(LENGTH, j + length) - 1});
+        j += length;
+      }
+      Collections.shuffle(intervals, random);
+
+      this.it.clear();
+      IntervalTree<IndexInterval> tree = new IntervalTree<>();
+      for (int[] interval : intervals) {
+        assertTrue(this.it.insert(interval[0], interval[1]));
+        tree.insert(new IndexInterval(interval[0], interval[1]));
+      }
+      assertEquals(intervals.size(), this.it.size());
+      assertTrue(this.it.isValid());
+      for (int start = 0; start < LENGTH; start++) {
+        for (int end = start; end < Math.min(LENGTH, start +
+            docTagger.INIT_WL); end++)
+          assertEquals(tree.nextAvailable(new IndexInterval(start, end)),
+              this.it.nextAvailable(start, end));
+      }
+    }
+  }
+}
@@ -0,0 +1,546 @@
+/**
+ * Field projection over raw JSON documents.
+ * @author agent
+ * @since 10/17/2026
+ */
+package docTagger;
+
+import java.nio.CharBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * A class that extracts a fixed set of fields from JSON documents without
+ * building a document tree.
+ *
+ * The field paths are compiled once into a tree of member names. Projecting a
+ * document is then a single scan of its text that only descends into the
+ * members on a requested path; every other value is skipped by matching
+ * brackets and quotes. The scan records where each requested value is, and
+ * array values are read lazily one element at a time.
+ *
+ * Supported paths are "$" followed by member names, such as "$.file" or
+ * "$.a.b", optionally ending with a wildcard, such as "$.facts.*" or
+ * "$.facts[*]", which selects every element of an array or every member value
+ * of an object. Elements are written in the same form as JSONArray does:
+ * strings are quoted and escaped for the web, other values are copied without
+ * insignificant whitespace.
+ */
+public class JsonProjection {
+  static final String ROOT = "$.";
+  static final String WILDCARD = ".*";
+  static final String WILDCARD_INDEX = "[*]";
+  static final String WHITESPACE = " \t\n\r";
+  static final String HEX = "0123456789ABCDEF";
+  static final int NOT_FOUND = -1;
+  static final int HEX_DIGITS = 4;
+  static final char LAST_CONTROL = 0x1F; // Last of the C0 control characters
+
+  private final List<String> fields;
+  private final boolean[] definite;
+  private final Node root;
+  private final int idTarget; // Target index of the id path
+
+  /**
+   * Constructor
+   * @param fields - targeted fields
+   * @param id - path of the case id
+   */
+  public JsonProjection(List<String> fields, String id) {
+    this.fields = new ArrayList<>(fields);
+    this.definite = new boolean[fields.size()];
+    this.root = new Node();
+    for (int i = 0; i < fields.size(); i++)
+      this.definite[i] = this.compile(fields.get(i), i);
+    this.idTarget = fields.size();
+    if (!this.compile(id, this.idTarget))
+      throw new IllegalArgumentException("Case id path must be definite: " +
+          id);
+  }
+
+  /**
+   * Getter for the number of targeted fields
+   * @return the number of fields
+   */
+  public int size() {
+    return this.fields.size();
+  }
+
+  /**
+   * Getter for a targeted field
+   * @param i - index of the field
+   * @return the path of the field
+   */
+  public String field(int i) {
+    return this.fields.get(i);
+  }
+
+  /**
+   * Whether a field selects a single value rather than all elements
+   * @param i - index of the field
+   * @return true if the path has no wildcard
+   */
+  public boolean isDefinite(int i) {
+    return this.definite[i];
+  }
+
+  /**
+   * Scan a document and locate all targeted fields
+   * @param json - the document
+   * @return the projected document
+   * @throws IllegalArgumentException if the document is not a JSON object
+   */
+  public Document project(String json) {
+    Document document = new Document(json, this.idTarget + 1);
+    int i = skipWhitespace(json, 0);
+    if (i >= json.length() || json.charAt(i) != '{')
+      throw new IllegalArgumentException("Document is not a JSON object");
+    document.scanObject(this.root, i);
+    return document;
+  }
+
+  /**
+   * Add a path to the tree of requested members
+   * @param path - the path
+   * @param target - target index of the path
+   * @return true if the path is definite
+   */
+  private boolean compile(String path, int target) {
+    if (!path.startsWith(ROOT))
+      throw new IllegalArgumentException("Unsupported path: " + path);
+    String members = path.substring(ROOT.length());
+    if (members.endsWith(WILDCARD))
+      members = members.substring(0, members.length() - WILDCARD.length());
+    else if (members.endsWith(WILDCARD_INDEX))
+      members = members.substring(0, members.length() -
+          WILDCARD_INDEX.length());
+    boolean definite = members.length() == path.length() - ROOT.length();
+
+    Node node = this.root;
+    for (String name : members.split("\\.", -1)) {
+      if (name.isEmpty() || name.indexOf('[') >= 0 || name.indexOf('*') >= 0)
+        throw new IllegalArgumentException("Unsupported path: " + path);
+      node = node.child(name);
+    }
+    node.targets.add(target);
+    return definite;
+  }
+
+  /**
+   * A requested member and the requested members below it
+   */
+  private static class Node {
+    private final List<String> names = new ArrayList<>();
+    private final List<Node> children = new ArrayList<>();
+    private final List<Integer> targets = new ArrayList<>();
+
+    /**
+     * Get or add a child
+     * @param name - member name
+     * @return the child
+     */
+    private Node child(String name) {
+      int i = this.names.indexOf(name);
+      if (i >= 0)
+        return this.children.get(i);
+      Node child = new Node();
+      this.names.add(name);
+      this.children.add(child);
+      return child;
+    }
+
+    /**
+     * Find the child named by a raw key of the document, without copying the
+     * key unless it is escaped
+     * @param json - the document
+     * @param from - index of the opening quote of the key
+     * @param to - index after the closing quote of the key
+     * @return the child, or null if the member is not requested
+     */
+    private Node find(String json, int from, int to) {
+      int length = to - from - 2;
+      String key = null;
+      for (int i = from + 1; i < to - 1; i++) {
+        if (json.charAt(i) == '\\') {
+          StringBuilder decoded = new StringBuilder(length);
+          decodeString(json, from, decoded);
+          key = decoded.toString();
+          break;
+        }
+      }
+      for (int i = 0; i < this.names.size(); i++) {
+        String name = this.names.get(i);
+        if (key != null ? key.equals(name) : name.length() == length &&
+            json.regionMatches(from + 1, name, 0, length))
+          return this.children.get(i);
+      }
+      return null;
+    }
+  }
+
+  /**
+   * The locations of the targeted fields in one document
+   */
+  public class Document {
+    private final String json;
+    private final int[] start; // Start of each value, or NOT_FOUND
+    private final int[] end; // End of each value, exclusive
+
+    /**
+     * Constructor
+     * @param json - the document
+     * @param targets - number of paths
+     */
+    private Document(String json, int targets) {
+      this.json = json;
+      this.start = new int[targets];
+      this.end = new int[targets];
+      Arrays.fill(this.start, NOT_FOUND);
+    }
+
+    /**
+     * Getter for the case id
+     * @return the case id, or null if it is not in the document
+     */
+    public String id() {
+      return this.found(idTarget) ? this.value(idTarget) : null;
+    }
+
+    /**
+     * Whether a field is in the document
+     * @param i - index of the field
+     * @return true if the field is found
+     */
+    public boolean found(int i) {
+      return this.start[i] != NOT_FOUND;
+    }
+
+    /**
+     * Getter for the value of a field: strings are unescaped, other values are
+     * written as compact JSON
+     * @param i - index of the field
+     * @return the value
+     */
+    public String value(int i) {
+      StringBuilder builder = new StringBuilder(this.end[i] - this.start[i]);
+      if (this.json.charAt(this.start[i]) == '"')
+        decodeString(this.json, this.start[i], builder);
+      else
+        appendCompact(this.json, this.start[i], this.end[i], builder);
+      return builder.toString();
+    }
+
+    /**
+     * Getter for the raw JSON text of a field, without copying it
+     * @param i - index of the field
+     * @return the text of the value as it appears in the document
+     */
+    public CharSequence raw(int i) {
+      return CharBuffer.wrap(this.json, this.start[i], this.end[i]);
+    }
+
+    /**
+     * Iterate over the elements of a field
+     * @param i - index of the field
+     * @return a cursor over the elements
+     */
+    public Elements elements(int i) {
+      return new Elements(this.json, this.start[i]);
+    }
+
+    /**
+     * Scan an object and record the requested members
+     * @param node - requested members of the object
+     * @param i - index of the opening brace
+     * @return index after the closing brace
+     */
+    private int scanObject(Node node, int i) {
+      i = skipWhitespace(this.json, i + 1);
+      if (i < this.json.length() && this.json.charAt(i) == '}')
+        return i + 1;
+      while (true) {
+        int keyEnd = skipString(this.json, i);
+        Node child = node.find(this.json, i, keyEnd);
+        i = expect(this.json, skipWhitespace(this.json, keyEnd), ':');
+        int valueStart = skipWhitespace(this.json, i);
+        int valueEnd;
+        if (child != null && !child.names.isEmpty() &&
+            valueStart < this.json.length() &&
+            this.json.charAt(valueStart) == '{')
+          valueEnd = this.scanObject(child, valueStart);
+        else
+          valueEnd = skipValue(this.json, valueStart);
+        if (child != null) {
+          for (int target : child.targets) {
+            this.start[target] = valueStart;
+            this.end[target] = valueEnd;
+          }
+        }
+        i = skipWhitespace(this.json, valueEnd);
+        if (i < this.json.length() && this.json.charAt(i) == '}')
+          return i + 1;
+        i = skipWhitespace(this.json, expect(this.json, i, ','));
+      }
+    }
+  }
+
+  /**
+   * A cursor over the elements of an array, or the member values of an object;
+   * any other value has no elements
+   */
+  public static class Elements {
+    private final String json;
+    private final boolean object;
+    private final StringBuilder decoded;
+    private int pos; // Start of the next element, or NOT_FOUND when done
+
+    /**
+     * Constructor
+     * @param json - the document
+     * @param start - start of the value
+     */
+    private Elements(String json, int start) {
+      this.json = json;
+      char open = json.charAt(start);
+      this.object = open == '{';
+      this.decoded = new StringBuilder();
+      this.pos = open == '[' || this.object ?
+          this.advance(skipWhitespace(json, start + 1)) : NOT_FOUND;
+    }
+
+    /**
+     * Write the next element as JSON
+     * @param out - output buffer, cleared first
+     * @return false if there are no more elements
+     */
+    public boolean next(StringBuilder out) {
+      out.setLength(0);
+      if (this.pos == NOT_FOUND)
+        return false;
+      if (this.object) { // Skip the member name
+        int i = skipWhitespace(this.json, skipString(this.json, this.pos));
+        this.pos = skipWhitespace(this.json, expect(this.json, i, ':'));
+      }
+      int valueEnd = skipValue(this.json, this.pos);
+      if (this.json.charAt(this.pos) == '"') {
+        this.decoded.setLength(0);
+        decodeString(this.json, this.pos, this.decoded);
+        out.append('"');
+        appendEscaped(this.decoded, out);
+        out.append('"');
+      }
+      else
+        appendCompact(this.json, this.pos, valueEnd, out);
+
+      int i = skipWhitespace(this.json, valueEnd);
+      if (i < this.json.length() && this.json.charAt(i) == ',')
+        i = skipWhitespace(this.json, i + 1);
+      this.pos = this.advance(i);
+      return true;
+    }
+
+    /**
+     * Check for the end of the array or object
+     * @param i - index of the next significant character
+     * @return the index, or NOT_FOUND at the closing bracket
+     */
+    private int advance(int i) {
+      if (i >= this.json.length())
+        throw new IllegalArgumentException("Unterminated value");
+      char c = this.json.charAt(i);
+      return c == ']' || c == '}' ? NOT_FOUND : i;
+    }
+  }
+
+  /**
+   * Skip insignificant whitespace
+   * @param json - the document
+   * @param i - current index
+   * @return index of the next significant character
+   */
+  static int skipWhitespace(String json, int i) {
+    while (i < json.length() && WHITESPACE.indexOf(json.charAt(i)) >= 0)
+      i++;
+    return i;
+  }
+
+  /**
+   * Check for a separator
+   * @param json - the document
+   * @param i - index of the separator
+   * @param c - expected separator
+   * @return index after the separator
+   */
+  static int expect(String json, int i, char c) {
+    if (i >= json.length() || json.charAt(i) != c)
+      throw new IllegalArgumentException("Expected '" + c + "' at " + i);
+    return i + 1;
+  }
+
+  /**
+   * Skip a string
+   * @param json - the document
+   * @param i - index of the opening quote
+   * @return index after the closing quote
+   */
+  static int skipString(String json, int i) {
+    expect(json, i, '"');
+    for (i++; i < json.length(); i++) {
+      char c = json.charAt(i);
+      if (c == '\\')
+        i++;
+      else if (c == '"')
+        return i + 1;
+    }
+    throw new IllegalArgumentException("Unterminated string");
+  }
+
+  /**
+   * Skip any value without looking into it
+   * @param json - the document
+   * @param i - index of the value
+   * @return index after the value
+   */
+  static int skipValue(String json, int i) {
+    if (i >= json.length())
+      throw new IllegalArgumentException("Missing value");
+    char c = json.charAt(i);
+    if (c == '"')
+      return skipString(json, i);
+    if (c != '{' && c != '[') { // Number or literal
+      while (i < json.length() && ",}]".indexOf(json.charAt(i)) < 0 &&
+          WHITESPACE.indexOf(json.charAt(i)) < 0)
+        i++;
+      return i;
+    }
+    int depth = 0;
+    for (; i < json.length(); i++) {
+      c = json.charAt(i);
+      if (c == '"')
+        i = skipString(json, i) - 1;
+      else if (c == '{' || c == '[')
+        depth++;
+      else if ((c == '}' || c == ']') && --depth == 0)
+        return i + 1;
+    }
+    throw new IllegalArgumentException("Unterminated value");
+  }
+
+  /**
+   * Unescape a string
+   * @param json - the document
+   * @param i - index of the opening quote
+   * @param out - output buffer
+   * @return index after the closing quote
+   */
+  static int decodeString(String json, int i, StringBuilder out) {
+    int end = skipString(json, i) - 1;
+    for (i++; i < end; i++) {
+      char c = json.charAt(i);
+      if (c != '\\') {
+        out.append(c);
+        continue;
+      }
+      c = json.charAt(++i);
+      switch (c) {
+      case 'b': out.append('\b'); break;
+      case 'f': out.append('\f'); break;
+      case 'n': out.append('\n'); break;
+      case 'r': out.append('\r'); break;
+      case 't': out.append('\t'); break;
+      case 'u':
+        if (i + HEX_DIGITS >= end)
+          throw new IllegalArgumentException("Invalid escape at " + i);
+        out.append((char) Integer.parseInt(json.substring(i + 1,
+            i + 1 + HEX_DIGITS), 16));
+        i += HEX_DIGITS;
+        break;
+      default: out.append(c); // Quote, backslash and slash
+      }
+    }
+    return end + 1;
+  }
+
+  /**
+   * Escape a string the same way as JSONArray.toJSONString()
+   * @param str - string to escape
+   * @param out - output buffer
+   */
+  static void appendEscaped(CharSequence str, StringBuilder out) {
+    for (int i = 0; i < str.length(); i++)
+      appendEscaped(str.charAt(i), out);
+  }
+
+  /**
+   * Escape one character the same way as JSONArray.toJSONString()
+   * @param c - character to escape
+   * @param out - output buffer
+   */
+  private static void appendEscaped(char c, StringBuilder out) {
+    switch (c) {
+    case '"': out.append("\\\""); break;
+    case '\\': out.append("\\\\"); break;
+    case '\b': out.append("\\b"); break;
+    case '\f': out.append("\\f"); break;
+    case '\n': out.append("\\n"); break;
+    case '\r': out.append("\\r"); break;
+    case '\t': out.append("\\t"); break;
+    case '/': out.append("\\/"); break;
+    default:
+      /* Control characters and the general punctuation block */
+      if (c <= LAST_CONTROL || (c >= 0x7F && c <= 0x9F) ||
+          (c >= 0x2000 && c <= 0x20FF)) {
+        out.append("\\u");
+        for (int shift = 12; shift >= 0; shift -= 4)
+          out.append(HEX.charAt((c >> shift) & 0xF));
+      }
+      else
+        out.append(c);
+    }
+  }
+
+  /**
+   * Escape the control characters from a position of a buffer to its end, the
+   * same way as appendEscaped(), leaving every other character as it is. An
+   * unescaped value written this way cannot break its record into lines.
+   * @param out - the buffer
+   * @param from - index of the first character to escape
+   */
+  static void escapeControls(StringBuilder out, int from) {
+    int i = from;
+    while (i < out.length() && out.charAt(i) > LAST_CONTROL)
+      i++;
+    if (i == out.length()) // Nothing to escape, as in most values
+      return;
+    String tail = out.substring(i);
+    out.setLength(i);
+    for (int j = 0; j < tail.length(); j++) {
+      char c = tail.charAt(j);
+      if (c > LAST_CONTROL)
+        out.append(c);
+      else
+        appendEscaped(c, out);
+    }
+  }
+
+  /**
+   * Copy a value without insignificant whitespace
+   * @param json - the document
+   * @param from - start of the value
+   * @param to - end of the value, exclusive
+   * @param out - output buffer
+   */
+  static void appendCompact(String json, int from, int to, StringBuilder out) {
+    for (int i = from; i < to; i++) {
+      char c = json.charAt(i);
+      if (c == '"') {
+        int end = skipString(json, i);
+        out.append(json, i, end);
+        i = end - 1;
+      }
+      else if (WHITESPACE.indexOf(c) < 0)
+        out.append(c);
+    }
+  }
+}
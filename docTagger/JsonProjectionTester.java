@@ -0,0 +1,98 @@
+/**
+ * Simple unit tests for the JsonProjection
+ * @author agent
+ * @since 10/17/2026
+ */
+package docTagger;
+
+import static org.junit.Assert.*;
+
+import java.util.Arrays;
+
+import org.junit.Before;
+import org.junit.Test;
+
+public class JsonProjectionTester {
+  private JsonProjection projection;
+
+  /**
+   * Set up testing fixture
+   *
+   * @throws Exception
+   */
+  @Before
+  public void setUp() throws Exception {
+    this.projection = new JsonProjection(Arrays.asList("$.statute",
+        "$.facts.*", "$.parties.plaintiff", "$.holding[*]"), "$.file");
+  }
+
+  /**
+   * Test that definite fields are found and unescaped, and that skipped
+   * members may contain brackets and quotes
+   */
+  @Test
+  public void testValue() {
+    JsonProjection.Document document = this.projection.project(
+        "{\"skip\": {\"a\": [\"}\\\"]\", 1]}, \"file\": \"case.json\", " +
+        "\"statute\": \"a\\/b\\n\\u4e2d\", \"parties\": {\"x\": null, " +
+        "\"plaintiff\": { \"name\" : [1, 2] }}}");
+    assertEquals("case.json", document.id());
+    assertTrue(document.found(0));
+    assertEquals("a/b\n\u4e2d", document.value(0));
+    assertFalse(document.found(1));
+    assertEquals("{\"name\":[1,2]}", document.value(2));
+    assertFalse(document.found(3));
+  }
+
+  /**
+   * Test that elements are written in the same form as JSONArray
+   */
+  @Test
+  public void testElements() {
+    JsonProjection.Document document = this.projection.project(
+        "{\"facts\": [\"a/b\", \"\\u2014\\\"\", 1.5, {\"k\": \"v w\"}], " +
+        "\"holding\": {\"x\": \"y\"}, \"statute\": 3}");
+    assertNull(document.id());
+    assertEquals("3", document.value(0));
+
+    StringBuilder element = new StringBuilder();
+    JsonProjection.Elements elements = document.elements(1);
+    assertTrue(elements.next(element));
+    assertEquals("\"a\\/b\"", element.toString());
+    assertTrue(elements.next(element));
+    assertEquals("\"\\u2014\\\"\"", element.toString());
+    assertTrue(elements.next(element));
+    assertEquals("1.5", element.toString());
+    assertTrue(elements.next(element));
+    assertEquals("{\"k\":\"v w\"}", element.toString());
+    assertFalse(elements.next(element));
+
+    elements = document.elements(3);
+    assertTrue(elements.next(element));
+    assertEquals("\"y\"", element.toString());
+    assertFalse(elements.next(element));
+    assertFalse(document.elements(0).next(element));
+  }
+
+  /**
+   * Test that only control characters are escaped, and only after the given
+   * position
+   */
+  @Test
+  public void testEscapeControls() {
+    StringBuilder out = new StringBuilder("\n\"a/b\"");
+    JsonProjection.escapeControls(out, 1);
+    assertEquals("\n\"a/b\"", out.toString());
+    out.append("x\ny\r\n\u0001\t\u4e2d");
+    JsonProjection.escapeControls(out, 1);
+    assertEquals("\n\"a/b\"x\\ny\\r\\n\\u0001\\t\u4e2d", out.toString());
+  }
+
+  /**
+   * Test that unsupported paths are rejected when compiled
+   */
+  @Test(expected = IllegalArgumentException.class)
+  public void testUnsupportedPath() {
+    new JsonProjection(Arrays.asList("$.facts[0]"), "$.file");
+  }
+}
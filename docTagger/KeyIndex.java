@@ -0,0 +1,96 @@
+/**
+ * Index of the dictionary words matched in each output record.
+ * @author agent
+ * @since 10/17/2026
+ */
+package docTagger;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * A class that records, for every tagged document, the dictionary words its
+ * segmentation matched, so that a later dictionary change only needs the
+ * documents that matched a changed word to be tagged again.
+ *
+ * A matched word is any word the segmentation settled on, whether it was
+ * tagged or left untagged because the dictionary ignores it. Words that were
+ * in the text but lost to a longer word are not matched: removing such a word
+ * or changing its gloss does not change the output.
+ *
+ * The index is a UTF-8 text file with one line per document: the case id
+ * followed by the matched words, separated by tabs. Lines are appended by all
+ * workers as documents are tagged, in no particular order.
+ */
+public class KeyIndex implements AutoCloseable {
+  static final String FILE_NAME = "keys.tsv";
+  static final char SEPARATOR = '\t';
+
+  private final Writer writer;
+
+  /**
+   * Constructor, replacing any index at the path
+   * @param path - index file name
+   * @throws IOException
+   */
+  public KeyIndex(String path) throws IOException {
+    this.writer = Files.newBufferedWriter(Paths.get(path),
+        StandardCharsets.UTF_8);
+  }
+
+  /**
+   * Record the matched words of a document
+   * @param id - case id of the document
+   * @param words - matched words
+   * @throws IOException
+   */
+  public void add(String id, Collection<String> words) throws IOException {
+    StringBuilder line = new StringBuilder(id);
+    for (String word : words)
+      line.append(SEPARATOR).append(word);
+    line.append('\n');
+    synchronized (this.writer) {
+      this.writer.append(line);
+    }
+  }
+
+  /**
+   * Flush and close the index file
+   * @throws IOException
+   */
+  @Override
+  public void close() throws IOException {
+    synchronized (this.writer) {
+      this.writer.close();
+    }
+  }
+
+  /**
+   * Read a whole index; a document indexed more than once keeps its last
+   * line
+   * @param path - index file name
+   * @return matched words by case id
+   * @throws IOException
+   */
+  public static Map<String, String[]> load(String path) throws IOException {
+    Map<String, String[]> index = new HashMap<>();
+    try (BufferedReader reader = Files.newBufferedReader(Paths.get(path),
+        StandardCharsets.UTF_8)) {
+      for (String line; (line = reader.readLine()) != null;) {
+        if (line.isEmpty())
+          continue;
+        String[] fields = line.split(String.valueOf(SEPARATOR));
+        index.put(fields[0], Arrays.copyOfRange(fields, 1, fields.length));
+      }
+    }
+    return index;
+  }
+}
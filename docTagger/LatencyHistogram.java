@@ -0,0 +1,121 @@
+/**
+ * Concurrent histogram of latencies.
+ * @author agent
+ * @since 10/17/2026
+ */
+package docTagger;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A class that counts latencies in buckets whose width grows with the value,
+ * so that any percentile can be read back within 1/64 of its value from a
+ * fixed amount of memory, however many values are recorded.
+ *
+ * Values below 128 have a bucket each. Above that, every power of two is cut
+ * into 64 buckets of equal width. Recording is a few atomic increments and
+ * takes no lock, so completion callbacks on any thread can record directly.
+ */
+public class LatencyHistogram {
+  static final int SUB_BITS = 7; // Values below 1 << SUB_BITS are exact
+  static final int HALF = 1 << (SUB_BITS - 1); // Buckets per power of two
+  static final int BUCKETS = (Long.SIZE - SUB_BITS + 2) * HALF;
+
+  private final AtomicLongArray counts;
+  private final LongAdder count;
+  private final LongAccumulator max;
+
+  /**
+   * Constructor
+   */
+  public LatencyHistogram() {
+    this.counts = new AtomicLongArray(BUCKETS);
+    this.count = new LongAdder();
+    this.max = new LongAccumulator(Math::max, 0);
+  }
+
+  /**
+   * Record a value
+   * @param value - latency, negative values count as 0
+   */
+  public void record(long value) {
+    value = Math.max(0, value);
+    this.counts.incrementAndGet(index(value));
+    this.count.increment();
+    this.max.accumulate(value);
+  }
+
+  /**
+   * Add all values of another histogram to this one
+   * @param other - the other histogram
+   */
+  public void add(LatencyHistogram other) {
+    for (int i = 0; i < BUCKETS; i++) {
+      long n = other.counts.get(i);
+      if (n != 0)
+        this.counts.addAndGet(i, n);
+    }
+    this.count.add(other.count());
+    this.max.accumulate(other.max());
+  }
+
+  /**
+   * Getter for the number of values
+   * @return number of recorded values
+   */
+  public long count() {
+    return this.count.sum();
+  }
+
+  /**
+   * Getter for the largest value
+   * @return largest recorded value, 0 if there is none
+   */
+  public long max() {
+    return this.max.get();
+  }
+
+  /**
+   * Find a percentile
+   * @param percent - percentile between 0 and 100
+   * @return the smallest value that at least this share of the values is not
+   *         above, rounded up to the end of its bucket, 0 if there is none
+   */
+  public long percentile(double percent) {
+    long count = this.count();
+    if (count == 0)
+      return 0;
+    long rank = Math.max(1, (long) Math.ceil(percent / 100 * count));
+    long seen = 0;
+    for (int i = 0; i < BUCKETS; i++) {
+      seen += this.counts.get(i);
+      if (seen >= rank)
+        return Math.min(upper(i), this.max());
+    }
+    return this.max();
+  }
+
+  /**
+   * Find the bucket of a value
+   * @param value - a value, not negative
+   * @return the index of its bucket
+   */
+  static int index(long value) {
+    int shift = Math.max(0, Long.SIZE - Long.numberOfLeadingZeros(value) -
+        SUB_BITS);
+    return (int) (shift * HALF + (value >>> shift));
+  }
+
+  /**
+   * Find the largest value of a bucket
+   * @param index - index of the bucket
+   * @return the largest value counted in the bucket
+   */
+  static long upper(int index) {
+    int shift = Math.max(0, index / HALF - 1);
+    long sub = index - (long) shift * HALF;
+    return ((sub + 1) << shift) - 1;
+  }
+}
@@ -0,0 +1,61 @@
+/**
+ * Simple unit tests for the LatencyHistogram
+ * @author agent
+ * @since 10/17/2026
+ */
+package docTagger;
+
+import static org.junit.Assert.*;
+
+import org.junit.Before;
+import org.junit.Test;
+
+public class LatencyHistogramTester {
+  private LatencyHistogram histogram;
+
+  /**
+   * Set up testing fixture
+   *
+   * @throws Exception
+   */
+  @Before
+  public void setUp() throws Exception {
+    this.histogram = new LatencyHistogram();
+  }
+
+  /**
+   * Test that small values are exact and an empty histogram reads 0
+   */
+  @Test
+  public void testSmall() {
+    assertEquals(0, this.histogram.percentile(50));
+    for (int i = 1; i <= 100; i++)
+      this.histogram.record(i);
+    assertEquals(100, this.histogram.count());
+    assertEquals(50, this.histogram.percentile(50));
+    assertEquals(99, this.histogram.percentile(99));
+    assertEquals(100, this.histogram.percentile(100));
+    assertEquals(100, this.histogram.max());
+  }
+
+  /**
+   * Test that large percentiles are within a bucket of the exact value, and
+   * that merged histograms count the values of both
+   */
+  @Test
+  public void testLarge() {
+    LatencyHistogram other = new LatencyHistogram();
+    for (long i = 1; i <= 1000000; i++)
+      (i % 2 == 0 ? this.histogram : other).record(i * 1000);
+    this.histogram.add(other);
+    assertEquals(1000000, this.histogram.count());
+    assertEquals(1000000000L, this.histogram.max());
+    double[] percents = {50, 99, 99.9};
+    long[] expected = {500000000L, 990000000L, 999000000L};
+    for (int i = 0; i < percents.length; i++) {
+      long value = this.histogram.percentile(percents[i]);
+      assertTrue(value >= expected[i]);
+      assertTrue(value <= expected[i] + expected[i] / LatencyHistogram.HALF);
+    }
+  }
+}
@@ -0,0 +1,412 @@
+/**
+ * Configuration of the load generator.
+ * @author agent
+ * @since 10/17/2026
+ */
+package docTagger;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * A class that holds the shape of a synthetic load: how documents arrive, how
+ * large they are, which fields they fill, and how long the run lasts.
+ *
+ * By default documents are sent as fast as the pipeline takes them, one
+ * warmup iteration and three measured iterations of ten seconds each. Fixed
+ * arrivals are evenly spaced at the rate; Poisson arrivals come at the same
+ * mean rate with random gaps, as independent clients would send them. Field
+ * text has a log-normal size around a median of 20000 characters and is
+ * shared evenly by all targeted fields, unless a field mix such as
+ * "facts=3,holding=1" weights the fields to fill; fields left out of the mix
+ * are missing from the documents. Every value can be overridden with a system
+ * property, for example -DdocTagger.load.rate=200, or set with a Builder.
+ */
+public class LoadConfig {
+  static final String PREFIX = StreamConfig.PREFIX + "load.";
+  static final String RATE = PREFIX + "rate";
+  static final String ARRIVAL = PREFIX + "arrival";
+  static final String DURATION = PREFIX + "duration";
+  static final String WARMUP = PREFIX + "warmup";
+  static final String ITERATIONS = PREFIX + "iterations";
+  static final String SIZE = PREFIX + "size";
+  static final String SPREAD = PREFIX + "spread";
+  static final String MAX_SIZE = PREFIX + "maxSize";
+  static final String FIELDS = PREFIX + "fields";
+  static final String ELEMENTS = PREFIX + "elements";
+  static final String POOL = PREFIX + "pool";
+  static final String SEED = PREFIX + "seed";
+  static final String FIXED = "fixed";
+  static final String POISSON = "poisson";
+  static final String MIX_SEPARATOR = ",";
+  static final String WEIGHT_SEPARATOR = "=";
+  static final int DURATION_DEFAULT = 10; // Seconds per iteration
+  static final int WARMUP_DEFAULT = 1;
+  static final int ITERATIONS_DEFAULT = 3;
+  static final int SIZE_DEFAULT = 20000; // Median characters per document
+  static final double SPREAD_DEFAULT = 0.5;
+  static final int MAX_SIZE_DEFAULT = 1 << 20;
+  static final int ELEMENTS_DEFAULT = 4;
+  static final int POOL_DEFAULT = 1000;
+  static final long SEED_DEFAULT = 20170210L;
+
+  private final double rate;
+  private final String arrival;
+  private final int duration;
+  private final int warmup;
+  private final int iterations;
+  private final int size;
+  private final double spread;
+  private final int maxSize;
+  private final Map<String, Double> fields;
+  private final int elements;
+  private final int pool;
+  private final long seed;
+
+  /**
+   * Constructor
+   * @param builder - the values to hold
+   */
+  private LoadConfig(Builder builder) {
+    if (builder.rate < 0 || !(builder.arrival.equals(FIXED) ||
+        builder.arrival.equals(POISSON)) || builder.duration < 1 ||
+        builder.warmup < 0 || builder.iterations < 1 || builder.size < 1 ||
+        builder.spread < 0 || builder.maxSize < builder.size ||
+        builder.elements < 1 || builder.pool < 1)
+      throw new IllegalArgumentException("Invalid load configuration");
+    for (double weight : builder.fields.values()) {
+      if (!(weight >= 0))
+        throw new IllegalArgumentException("Invalid field weight");
+    }
+    this.rate = builder.rate;
+    this.arrival = builder.arrival;
+    this.duration = builder.duration;
+    this.warmup = builder.warmup;
+    this.iterations = builder.iterations;
+    this.size = builder.size;
+    this.spread = builder.spread;
+    this.maxSize = builder.maxSize;
+    this.fields = Collections.unmodifiableMap(
+        new LinkedHashMap<>(builder.fields));
+    this.elements = builder.elements;
+    this.pool = builder.pool;
+    this.seed = builder.seed;
+  }
+
+  /**
+   * Build the configuration from the system properties, falling back to the
+   * defaults
+   * @return the configuration
+   */
+  public static LoadConfig fromSystemProperties() {
+    Builder defaults = new Builder();
+    String rate = System.getProperty(RATE);
+    String spread = System.getProperty(SPREAD);
+    return new Builder()
+        .rate(rate == null ? defaults.rate : Double.parseDouble(rate))
+        .arrival(System.getProperty(ARRIVAL, defaults.arrival))
+        .duration(Integer.getInteger(DURATION, defaults.duration))
+        .warmup(Integer.getInteger(WARMUP, defaults.warmup))
+        .iterations(Integer.getInteger(ITERATIONS, defaults.iterations))
+        .size(Integer.getInteger(SIZE, defaults.size))
+        .spread(spread == null ? defaults.spread : Double.parseDouble(spread))
+        .maxSize(Integer.getInteger(MAX_SIZE, defaults.maxSize))
+        .fields(parseMix(System.getProperty(FIELDS, "")))
+        .elements(Integer.getInteger(ELEMENTS, defaults.elements))
+        .pool(Integer.getInteger(POOL, defaults.pool))
+        .seed(Long.getLong(SEED, defaults.seed))
+        .build();
+  }
+
+  /**
+   * Parse a field mix
+   * @param mix - comma-separated field=weight pairs, a field without a
+   *        weight weighs 1, empty for all fields
+   * @return weights by field name
+   */
+  static Map<String, Double> parseMix(String mix) {
+    Map<String, Double> fields = new LinkedHashMap<>();
+    for (String pair : mix.split(MIX_SEPARATOR)) {
+      if (pair.trim().isEmpty())
+        continue;
+      String[] parts = pair.split(WEIGHT_SEPARATOR, 2);
+      fields.put(parts[0].trim(), parts.length == 1 ? 1 :
+          Double.parseDouble(parts[1].trim()));
+    }
+    return fields;
+  }
+
+  /**
+   * Getter for the arrival rate
+   * @return documents per second, 0 to send as fast as they are taken
+   */
+  public double rate() {
+    return this.rate;
+  }
+
+  /**
+   * Whether arrivals are spaced at random
+   * @return true for Poisson arrivals, false for evenly spaced ones
+   */
+  public boolean poisson() {
+    return this.arrival.equals(POISSON);
+  }
+
+  /**
+   * Getter for the length of an iteration
+   * @return seconds during which documents are sent in each iteration
+   */
+  public int duration() {
+    return this.duration;
+  }
+
+  /**
+   * Getter for the number of warmup iterations
+   * @return iterations run before measuring
+   */
+  public int warmup() {
+    return this.warmup;
+  }
+
+  /**
+   * Getter for the number of measured iterations
+   * @return iterations reported and summarized
+   */
+  public int iterations() {
+    return this.iterations;
+  }
+
+  /**
+   * Getter for the median document size
+   * @return median characters of field text per document
+   */
+  public int size() {
+    return this.size;
+  }
+
+  /**
+   * Getter for the spread of document sizes
+   * @return standard deviation of the logarithm of the size
+   */
+  public double spread() {
+    return this.spread;
+  }
+
+  /**
+   * Getter for the largest document size
+   * @return most characters of field text per document
+   */
+  public int maxSize() {
+    return this.maxSize;
+  }
+
+  /**
+   * Getter for the field mix
+   * @return weights of the fields to fill by name, empty for all fields
+   */
+  public Map<String, Double> fields() {
+    return this.fields;
+  }
+
+  /**
+   * Getter for the number of array elements
+   * @return mean elements of an array field
+   */
+  public int elements() {
+    return this.elements;
+  }
+
+  /**
+   * Getter for the pool size
+   * @return distinct documents generated before the run and sent in turn
+   */
+  public int pool() {
+    return this.pool;
+  }
+
+  /**
+   * Getter for the random seed
+   * @return seed of the generated documents and arrivals
+   */
+  public long seed() {
+    return this.seed;
+  }
+
+  @Override
+  public String toString() {
+    return "rate=" + this.rate + ", arrival=" + this.arrival +
+        ", duration=" + this.duration + ", warmup=" + this.warmup +
+        ", iterations=" + this.iterations + ", size=" + this.size +
+        ", spread=" + this.spread + ", maxSize=" + this.maxSize +
+        ", fields=" + this.fields + ", elements=" + this.elements +
+        ", pool=" + this.pool + ", seed=" + this.seed;
+  }
+
+  /**
+   * Builder of a configuration, starting from the defaults
+   */
+  public static class Builder {
+    private double rate;
+    private String arrival;
+    private int duration;
+    private int warmup;
+    private int iterations;
+    private int size;
+    private double spread;
+    private int maxSize;
+    private Map<String, Double> fields;
+    private int elements;
+    private int pool;
+    private long seed;
+
+    /**
+     * Constructor
+     */
+    public Builder() {
+      this.arrival = FIXED;
+      this.duration = DURATION_DEFAULT;
+      this.warmup = WARMUP_DEFAULT;
+      this.iterations = ITERATIONS_DEFAULT;
+      this.size = SIZE_DEFAULT;
+      this.spread = SPREAD_DEFAULT;
+      this.maxSize = MAX_SIZE_DEFAULT;
+      this.fields = new LinkedHashMap<>();
+      this.elements = ELEMENTS_DEFAULT;
+      this.pool = POOL_DEFAULT;
+      this.seed = SEED_DEFAULT;
+    }
+
+    /**
+     * Setter for the arrival rate
+     * @param rate - documents per second, 0 to send as fast as they are taken
+     * @return this builder
+     */
+    public Builder rate(double rate) {
+      this.rate = rate;
+      return this;
+    }
+
+    /**
+     * Setter for the arrival process
+     * @param arrival - "fixed" for evenly spaced arrivals, "poisson" for
+     *        random gaps
+     * @return this builder
+     */
+    public Builder arrival(String arrival) {
+      this.arrival = arrival;
+      return this;
+    }
+
+    /**
+     * Setter for the length of an iteration
+     * @param duration - seconds during which documents are sent
+     * @return this builder
+     */
+    public Builder duration(int duration) {
+      this.duration = duration;
+      return this;
+    }
+
+    /**
+     * Setter for the number of warmup iterations
+     * @param warmup - iterations run before measuring
+     * @return this builder
+     */
+    public Builder warmup(int warmup) {
+      this.warmup = warmup;
+      return this;
+    }
+
+    /**
+     * Setter for the number of measured iterations
+     * @param iterations - iterations reported and summarized
+     * @return this builder
+     */
+    public Builder iterations(int iterations) {
+      this.iterations = iterations;
+      return this;
+    }
+
+    /**
+     * Setter for the median document size
+     * @param size - median characters of field text per document
+     * @return this builder
+     */
+    public Builder size(int size) {
+      this.size = size;
+      return this;
+    }
+
+    /**
+     * Setter for the spread of document sizes
+     * @param spread - standard deviation of the logarithm of the size, 0 for
+     *        documents of the same size
+     * @return this builder
+     */
+    public Builder spread(double spread) {
+      this.spread = spread;
+      return this;
+    }
+
+    /**
+     * Setter for the largest document size
+     * @param maxSize - most characters of field text per document
+     * @return this builder
+     */
+    public Builder maxSize(int maxSize) {
+      this.maxSize = maxSize;
+      return this;
+    }
+
+    /**
+     * Setter for the field mix
+     * @param fields - weights of the fields to fill by name, empty for all
+     *        fields
+     * @return this builder
+     */
+    public Builder fields(Map<String, Double> fields) {
+      this.fields = fields;
+      return this;
+    }
+
+    /**
+     * Setter for the number of array elements
+     * @param elements - mean elements of an array field
+     * @return this builder
+     */
+    public Builder elements(int elements) {
+      this.elements = elements;
+      return this;
+    }
+
+    /**
+     * Setter for the pool size
+     * @param pool - distinct documents generated before the run
+     * @return this builder
+     */
+    public Builder pool(int pool) {
+      this.pool = pool;
+      return this;
+    }
+
+    /**
+     * Setter for the random seed
+     * @param seed - seed of the generated documents and arrivals
+     * @return this builder
+     */
+    public Builder seed(long seed) {
+      this.seed = seed;
+      return this;
+    }
+
+    /**
+     * Build the configuration
+     * @return the configuration
+     * @throws IllegalArgumentException if a value is out of range
+     */
+    public LoadConfig build() {
+      return new LoadConfig(this);
+    }
+  }
+}
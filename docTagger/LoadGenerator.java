@@ -0,0 +1,392 @@
+/**
+ * Synthetic load for capacity planning.
+ * @author agent
+ * @since 10/17/2026
+ */
+package docTagger;
+
+import java.io.IOException;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+import com.google.common.base.Utf8;
+
+/**
+ * A class that feeds synthetic case documents into the staged pipeline of a
+ * StreamManager and reports how it copes, before a real corpus arrives.
+ *
+ * Documents are generated before the run from the dictionary of the run, so
+ * their text matches words as real text does: sentences mix dictionary words,
+ * favoring a small share of them, with single characters taken from the words.
+ * Every targeted field that is a plain member or a member holding an array
+ * can be filled; the size of a document and the share of each field follow
+ * the load configuration. A pool of documents is sent in turn, each time under
+ * a new case id, so that generating text does not slow down sending. Since
+ * the pool repeats the text of its documents, deduplication is turned off for
+ * the run: every repeat would otherwise reuse an earlier annotation instead
+ * of being tagged.
+ *
+ * Each iteration sends documents for a fixed time, either as fast as the
+ * pipeline takes them or at a fixed or Poisson arrival rate, then waits until
+ * all of them are tagged. The latency of a document runs from the time it was
+ * due to arrive, so a pipeline that holds back the sender is charged for the
+ * wait, to the time its record is handed to the output writer; writing is
+ * left out since records are written in batches. After the warmup iterations,
+ * every iteration reports its throughput, latency percentiles and time spent
+ * in garbage collection, followed by a summary of all measured iterations.
+ */
+public class LoadGenerator {
+  static final int SKEW = 3; // Higher favors the first words more
+  static final double WORD_SHARE = 0.7; // Share of text made of words
+  static final int SENTENCE = 40; // Mean characters per sentence
+  static final String ID_FMT = "load%09d.json";
+  static final String ARRAY_SUFFIX = ".*";
+  static final String MEMBER_PREFIX = "$.";
+  static final double[] PERCENTILES = {50, 95, 99, 99.9};
+  static final String[] LABELS = {"p50", "p95", "p99", "p999"};
+  static final double NANOS_PER_SECOND = 1e9;
+  static final double NANOS_PER_MILLI = 1e6;
+  static final double BYTES_PER_MEGABYTE = 1 << 20;
+
+  private final StreamManager manager;
+  private final LoadConfig config;
+  private final List<String> fields; // Targeted fields
+  private final String id; // Case id
+  private final Random random;
+  private String[] pool; // Documents without their case id
+  private long[] poolBytes; // UTF-8 bytes of the same documents
+  private long sequence; // Number of documents sent
+
+  /**
+   * Constructor
+   * @param manager - the stream manager to feed
+   * @param config - shape of the load
+   * @param fields - targeted fields
+   * @param id - case id, a plain member
+   */
+  public LoadGenerator(StreamManager manager, LoadConfig config,
+      List<String> fields, String id) {
+    this.manager = manager;
+    this.config = config;
+    this.fields = fields;
+    this.id = id;
+    this.random = new Random(config.seed());
+  }
+
+  /**
+   * Run the warmup and measured iterations and report them
+   * @param dictName - dictionary name
+   * @throws IOException if the dictionary cannot be loaded
+   */
+  public void run(String dictName) throws IOException {
+    Pipeline pipeline = this.manager.open(dictName, this.fields, this.id,
+        false);
+    try {
+      long start = System.nanoTime();
+      this.generate(this.manager.dictionary());
+      long end = System.nanoTime();
+      System.out.println("Load: " + this.config + ".");
+      System.out.println(this.pool.length + " documents generated in " +
+          (end - start) + " ns.");
+
+      Result total = new Result();
+      int runs = this.config.warmup() + this.config.iterations();
+      for (int i = 0; i < runs; i++) {
+        Result result = this.iterate(pipeline);
+        boolean warmup = i < this.config.warmup();
+        System.out.println((warmup ? "Warmup " + (i + 1) : "Iteration " +
+            (i - this.config.warmup() + 1)) + ": " + result + ".");
+        if (!warmup)
+          total.add(result);
+      }
+      System.out.println("Summary: " + total + ".");
+    } finally {
+      this.manager.close(pipeline).join();
+    }
+  }
+
+  /**
+   * Send documents for the length of an iteration and wait until they are
+   * tagged
+   * @param pipeline - the pipeline to feed
+   * @return the measurements of the iteration
+   */
+  private Result iterate(Pipeline pipeline) {
+    Result result = new Result();
+    List<CompletableFuture<?>> pending = new ArrayList<>();
+    LongAdder failed = new LongAdder();
+    long gcTime = gcTime();
+    long gcCount = gcCount();
+    long start = System.nanoTime();
+    long end = start + (long) (this.config.duration() * NANOS_PER_SECOND);
+    double gap = this.config.rate() > 0 ?
+        NANOS_PER_SECOND / this.config.rate() : 0;
+    double due = start;
+    long offered = 0;
+
+    for (long now; (now = System.nanoTime()) < end;) {
+      if (gap > 0) {
+        if (due >= end)
+          break;
+        while (now < due) {
+          LockSupport.parkNanos((long) due - now);
+          now = System.nanoTime();
+        }
+      }
+      long arrival = gap > 0 ? (long) due : now;
+      int n = (int) (this.sequence % this.pool.length);
+      String caseId = String.format(ID_FMT, this.sequence++);
+      String content = this.document(caseId, n);
+      pending.add(pipeline.tag(caseId, content).whenComplete((id, ex) -> {
+        if (ex == null)
+          result.latency.record(System.nanoTime() - arrival);
+        else
+          failed.increment();
+      }));
+      /* The case id is ASCII */
+      result.bytes += this.poolBytes[n] + content.length() -
+          this.pool[n].length();
+      offered++;
+      if (gap > 0)
+        due += this.config.poisson() ?
+            -Math.log(1 - this.random.nextDouble()) * gap : gap;
+    }
+    if (gap > 0 && due < end) // The pipeline held back the sender
+      result.behind = (long) ((end - due) / gap);
+    CompletableFuture.allOf(pending.toArray(new CompletableFuture<?>[0]))
+        .handle((v, ex) -> null).join();
+
+    result.nanos = System.nanoTime() - start;
+    result.sent = offered;
+    result.failed = failed.sum();
+    result.gcTime = gcTime() - gcTime;
+    result.gcCount = gcCount() - gcCount;
+    return result;
+  }
+
+  /**
+   * Put together a document of the pool under a new case id
+   * @param caseId - file name of the document
+   * @param n - index of the document in the pool
+   * @return the JSON document
+   */
+  private String document(String caseId, int n) {
+    return "{\"" + member(this.id) + "\": \"" + caseId + "\"" + this.pool[n];
+  }
+
+  /**
+   * Generate the pool of documents
+   * @param dict - dictionary to draw words from
+   */
+  private void generate(Dictionary dict) {
+    if (dict == null || dict.size() == 0)
+      throw new IllegalStateException("No dictionary to draw words from");
+    Map<String, Double> weights = this.weights();
+    double sum = 0;
+    for (double weight : weights.values())
+      sum += weight;
+
+    this.pool = new String[this.config.pool()];
+    this.poolBytes = new long[this.config.pool()];
+    StringBuilder builder = new StringBuilder();
+    for (int i = 0; i < this.pool.length; i++) {
+      builder.setLength(0);
+      int size = (int) Math.max(1, Math.min(this.config.maxSize(),
+          Math.round(this.config.size() * Math.exp(this.config.spread() *
+              this.random.nextGaussian()))));
+      for (Map.Entry<String, Double> entry : weights.entrySet()) {
+        int share = (int) Math.round(size * entry.getValue() / sum);
+        if (share == 0)
+          continue;
+        String field = entry.getKey();
+        builder.append(", \"").append(member(field)).append("\": ");
+        if (!field.endsWith(ARRAY_SUFFIX)) {
+          this.text(dict, share, builder.append('"')).append('"');
+          continue;
+        }
+        int elements = 1 + this.random.nextInt(2 * this.config.elements() - 1);
+        builder.append('[');
+        for (int j = 0; j < elements; j++) {
+          builder.append(j == 0 ? "\"" : ", \"");
+          this.text(dict, Math.max(1, share / elements), builder).append('"');
+        }
+        builder.append(']');
+      }
+      builder.append("}\n");
+      this.pool[i] = builder.toString();
+      this.poolBytes[i] = Utf8.encodedLength(this.pool[i]);
+    }
+  }
+
+  /**
+   * Find the weight of each field to fill
+   * @return weights by targeted field, in the order of the targeted fields
+   */
+  private Map<String, Double> weights() {
+    Map<String, Double> weights = new LinkedHashMap<>();
+    Map<String, Double> mix = this.config.fields();
+    for (String field : this.fields) {
+      String name = member(field);
+      if (name == null)
+        continue; // Not a path this generator can fill
+      if (mix.isEmpty())
+        weights.put(field, 1.0);
+      else if (mix.containsKey(name) && mix.get(name) > 0)
+        weights.put(field, mix.get(name));
+    }
+    for (String name : mix.keySet()) {
+      if (!weights.containsKey(MEMBER_PREFIX + name) &&
+          !weights.containsKey(MEMBER_PREFIX + name + ARRAY_SUFFIX) &&
+          mix.get(name) > 0)
+        throw new IllegalArgumentException("Field " + name +
+            " is not a targeted field");
+    }
+    if (weights.isEmpty())
+      throw new IllegalArgumentException("No field to fill");
+    return weights;
+  }
+
+  /**
+   * Get the member name of a field path
+   * @param field - a plain member, such as $.facts, or an array of one, such
+   *        as $.facts.*
+   * @return the member name, or null for other paths
+   */
+  static String member(String field) {
+    if (!field.startsWith(MEMBER_PREFIX))
+      return null;
+    String name = field.substring(MEMBER_PREFIX.length());
+    if (name.endsWith(ARRAY_SUFFIX))
+      name = name.substring(0, name.length() - ARRAY_SUFFIX.length());
+    for (int i = 0; i < name.length(); i++) {
+      char c = name.charAt(i);
+      if (!(Character.isLetterOrDigit(c) || c == '_'))
+        return null;
+    }
+    return name.isEmpty() ? null : name;
+  }
+
+  /**
+   * Generate text of sentences made of dictionary words
+   * @param dict - dictionary to draw words from
+   * @param length - number of characters
+   * @param builder - output buffer
+   * @return the output buffer
+   */
+  private StringBuilder text(Dictionary dict, int length,
+      StringBuilder builder) {
+    int end = builder.length() + length;
+    while (builder.length() < end) {
+      int sentenceEnd = Math.min(end - 1, builder.length() +
+          this.random.nextInt(2 * SENTENCE));
+      while (builder.length() < sentenceEnd) {
+        String word = dict.word((int) (Math.pow(this.random.nextDouble(),
+            SKEW) * dict.size()));
+        if (this.random.nextDouble() < WORD_SHARE)
+          escape(word, builder);
+        else
+          escape(word.substring(0, 1), builder);
+      }
+      builder.setLength(Math.min(builder.length(), end - 1));
+      builder.append(docTagger.STOP);
+    }
+    return builder;
+  }
+
+  /**
+   * Append text as the content of a JSON string
+   * @param text - the text
+   * @param builder - output buffer
+   */
+  private static void escape(String text, StringBuilder builder) {
+    for (int i = 0; i < text.length(); i++) {
+      char c = text.charAt(i);
+      if (c == '"' || c == '\\')
+        builder.append('\\');
+      if (c >= ' ')
+        builder.append(c);
+    }
+  }
+
+  /**
+   * Get the time spent in garbage collection so far
+   * @return milliseconds of all collectors
+   */
+  private static long gcTime() {
+    long time = 0;
+    for (GarbageCollectorMXBean gc :
+        ManagementFactory.getGarbageCollectorMXBeans())
+      time += Math.max(0, gc.getCollectionTime());
+    return time;
+  }
+
+  /**
+   * Get the number of garbage collections so far
+   * @return collections of all collectors
+   */
+  private static long gcCount() {
+    long count = 0;
+    for (GarbageCollectorMXBean gc :
+        ManagementFactory.getGarbageCollectorMXBeans())
+      count += Math.max(0, gc.getCollectionCount());
+    return count;
+  }
+
+  /**
+   * Measurements of one or more iterations
+   */
+  private static class Result {
+    private final LatencyHistogram latency = new LatencyHistogram();
+    private long nanos; // Time until the last document was tagged
+    private long sent;
+    private long failed;
+    private long behind; // Documents due that could not be sent in time
+    private long bytes;
+    private long gcTime;
+    private long gcCount;
+
+    /**
+     * Add the measurements of another iteration
+     * @param other - the other iteration
+     */
+    private void add(Result other) {
+      this.latency.add(other.latency);
+      this.nanos += other.nanos;
+      this.sent += other.sent;
+      this.failed += other.failed;
+      this.behind += other.behind;
+      this.bytes += other.bytes;
+      this.gcTime += other.gcTime;
+      this.gcCount += other.gcCount;
+    }
+
+    @Override
+    public String toString() {
+      double seconds = this.nanos / NANOS_PER_SECOND;
+      StringBuilder report = new StringBuilder(String.format(
+          "%d documents in %.2f s, %.1f documents/s, %.2f MB/s; latency ms",
+          this.sent, seconds, (this.sent - this.failed) / seconds,
+          this.bytes / BYTES_PER_MEGABYTE / seconds));
+      for (int i = 0; i < PERCENTILES.length; i++) {
+        report.append(String.format(" %s=%.2f", LABELS[i],
+            this.latency.percentile(PERCENTILES[i]) / NANOS_PER_MILLI));
+      }
+      report.append(String.format(" max=%.2f; GC %d collections, %d ms",
+          this.latency.max() / NANOS_PER_MILLI, this.gcCount, this.gcTime));
+      if (this.failed > 0)
+        report.append("; ").append(this.failed).append(" failed");
+      if (this.behind > 0)
+        report.append("; ").append(this.behind).append(
+            " documents not sent, the pipeline fell behind the rate");
+      return report.toString();
+    }
+  }
+}
@@ -0,0 +1,516 @@
+/**
+ * Counters of a tagging run, exposed through JMX.
+ * @author agent
+ * @since 10/17/2026
+ */
+package docTagger;
+
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import com.google.common.base.Utf8;
+
+/**
+ * A class that counts what a run tags, how long each stage takes and how busy
+ * each worker is, and publishes it on the platform MBeanServer under the
+ * docTagger domain: the run as type=Metrics, every stage as type=Stage and
+ * every worker as type=Worker.
+ *
+ * Shared totals are LongAdders, so threads that count at the same time do not
+ * contend on one cache line. Workers count dictionary lookups in plain fields
+ * and add them here once per document, and each worker has its own busy time,
+ * which only its thread updates.
+ */
+public class Metrics implements MetricsMXBean {
+  static final String DOMAIN = "docTagger";
+  static final String RUN = DOMAIN + ":type=Metrics";
+  static final String STAGE = DOMAIN + ":type=Stage,name=";
+  static final String WORKER = DOMAIN + ":type=Worker,name=";
+  static final String WORKER_PREFIX = "worker-";
+  static final String READ = "read";
+  static final String PARSE = "parse";
+  static final String ANNOTATE = "annotate";
+  static final String SERIALIZE = "serialize";
+  static final String WRITE = "write";
+  static final long SAMPLE = TimeUnit.SECONDS.toNanos(1); // Rate interval
+  static final double NANOS_PER_MILLI = 1e6;
+
+  private final LongAdder documents;
+  private final LongAdder bytes;
+  private final LongAdder failed;
+  private final LongAdder lookups;
+  private final LongAdder hits;
+  private final Rate documentRate;
+  private final Rate byteRate;
+  private final Rate lookupRate;
+  private final Rate hitRate;
+  private final Map<String, Stage> stages;
+  private final List<Worker> workers;
+  private final AtomicInteger workerCount;
+  private final List<ObjectName> names; // Registered beans
+  private volatile LongSupplier queueDocuments;
+  private volatile LongSupplier queueBytes;
+  private volatile LongSupplier outputBytes;
+  private volatile MBeanServer server; // Null until registered
+
+  /**
+   * Constructor
+   */
+  public Metrics() {
+    this.documents = new LongAdder();
+    this.bytes = new LongAdder();
+    this.failed = new LongAdder();
+    this.lookups = new LongAdder();
+    this.hits = new LongAdder();
+    this.documentRate = new Rate();
+    this.byteRate = new Rate();
+    this.lookupRate = new Rate();
+    this.hitRate = new Rate();
+    this.stages = new ConcurrentHashMap<>();
+    this.workers = new ArrayList<>();
+    this.workerCount = new AtomicInteger();
+    this.names = new ArrayList<>();
+    this.queueDocuments = () -> 0;
+    this.queueBytes = () -> 0;
+    this.outputBytes = () -> 0;
+  }
+
+  /**
+   * Count a tagged document
+   * @param bytes - UTF-8 bytes of its text, see utf8()
+   */
+  public void tagged(long bytes) {
+    this.documents.increment();
+    this.bytes.add(bytes);
+  }
+
+  /**
+   * Count a document that could not be tagged
+   */
+  public void failed() {
+    this.failed.increment();
+  }
+
+  /**
+   * Add the dictionary lookups of a document
+   * @param lookups - candidate words looked up
+   * @param hits - candidate words found
+   */
+  public void lookups(long lookups, long hits) {
+    this.lookups.add(lookups);
+    this.hits.add(hits);
+  }
+
+  /**
+   * Setter for the gauges of the work queue
+   * @param documents - reads the documents waiting or being tagged
+   * @param bytes - reads the bytes of those documents
+   */
+  public void setQueue(LongSupplier documents, LongSupplier bytes) {
+    this.queueDocuments = documents;
+    this.queueBytes = bytes;
+  }
+
+  /**
+   * Setter for the gauge of the output
+   * @param bytes - reads the bytes written to the output files
+   */
+  public void setOutput(LongSupplier bytes) {
+    this.outputBytes = bytes;
+  }
+
+  /**
+   * Get the latencies of a stage, creating them on first use
+   * @param name - stage name
+   * @return the latencies of the stage
+   */
+  public Stage stage(String name) {
+    Stage stage = this.stages.get(name);
+    if (stage != null)
+      return stage;
+    return this.stages.computeIfAbsent(name, key -> {
+      Stage created = new Stage();
+      this.register(STAGE + key, created);
+      return created;
+    });
+  }
+
+  /**
+   * Create the counters of a new worker
+   * @return the counters of the worker
+   */
+  public Worker worker() {
+    Worker worker = new Worker();
+    synchronized (this.workers) {
+      this.workers.add(worker);
+    }
+    this.register(WORKER + WORKER_PREFIX + this.workerCount.incrementAndGet(),
+        worker);
+    return worker;
+  }
+
+  /**
+   * Publish the run, its stages and its workers on the platform MBeanServer,
+   * replacing the beans of an earlier run in the same process
+   */
+  public void register() {
+    this.server = ManagementFactory.getPlatformMBeanServer();
+    this.register(RUN, this);
+    for (Map.Entry<String, Stage> stage : this.stages.entrySet())
+      this.register(STAGE + stage.getKey(), stage.getValue());
+    synchronized (this.workers) {
+      for (int i = 0; i < this.workers.size(); i++)
+        this.register(WORKER + WORKER_PREFIX + (i + 1), this.workers.get(i));
+    }
+  }
+
+  /**
+   * Remove every bean this run published
+   */
+  public void unregister() {
+    MBeanServer server = this.server;
+    this.server = null;
+    if (server == null)
+      return;
+    synchronized (this.names) {
+      for (ObjectName name : this.names) {
+        try {
+          if (server.isRegistered(name))
+            server.unregisterMBean(name);
+        } catch (JMException e) {
+          e.printStackTrace();
+        }
+      }
+      this.names.clear();
+    }
+  }
+
+  /**
+   * Publish a bean if the run is published
+   * @param name - object name of the bean
+   * @param bean - the bean
+   */
+  private void register(String name, Object bean) {
+    MBeanServer server = this.server;
+    if (server == null)
+      return;
+    try {
+      ObjectName objectName = new ObjectName(name);
+      synchronized (this.names) {
+        if (server.isRegistered(objectName))
+          server.unregisterMBean(objectName);
+        server.registerMBean(bean, objectName);
+        this.names.add(objectName);
+      }
+    } catch (JMException e) {
+      e.printStackTrace();
+    }
+  }
+
+  @Override
+  public long getDocuments() {
+    return this.documents.sum();
+  }
+
+  @Override
+  public long getBytes() {
+    return this.bytes.sum();
+  }
+
+  @Override
+  public long getFailed() {
+    return this.failed.sum();
+  }
+
+  @Override
+  public double getDocumentsPerSecond() {
+    return this.documentRate.get(this.getDocuments());
+  }
+
+  @Override
+  public double getBytesPerSecond() {
+    return this.byteRate.get(this.getBytes());
+  }
+
+  @Override
+  public long getLookups() {
+    return this.lookups.sum();
+  }
+
+  @Override
+  public long getHits() {
+    return this.hits.sum();
+  }
+
+  @Override
+  public double getLookupsPerSecond() {
+    return this.lookupRate.get(this.getLookups());
+  }
+
+  @Override
+  public double getHitsPerSecond() {
+    return this.hitRate.get(this.getHits());
+  }
+
+  @Override
+  public long getQueueDocuments() {
+    return this.queueDocuments.getAsLong();
+  }
+
+  @Override
+  public long getQueueBytes() {
+    return this.queueBytes.getAsLong();
+  }
+
+  @Override
+  public long getOutputBytes() {
+    return this.outputBytes.getAsLong();
+  }
+
+  @Override
+  public String toString() {
+    return "Metrics: " + this.getDocuments() + " documents, " +
+        this.getBytes() + " bytes, " + this.getFailed() + " failed, " +
+        this.getLookups() + " lookups, " + this.getHits() + " hits, " +
+        this.getOutputBytes() + " output bytes.";
+  }
+
+  /**
+   * Size of a text in UTF-8, the same as the input files and the byte counts
+   * of the load generator. An unpaired surrogate counts as the single byte
+   * the encoder replaces it with.
+   * @param text - the text
+   * @return bytes of the text encoded in UTF-8
+   */
+  static long utf8(String text) {
+    try {
+      return Utf8.encodedLength(text);
+    } catch (IllegalArgumentException ex) { // Unpaired surrogate
+      return text.getBytes(StandardCharsets.UTF_8).length;
+    }
+  }
+
+  /**
+   * Convert nanoseconds to milliseconds
+   * @param nanos - nanoseconds
+   * @return milliseconds
+   */
+  static double millis(long nanos) {
+    return nanos / NANOS_PER_MILLI;
+  }
+
+  /**
+   * Rate of a growing total, taken over the last interval of at least SAMPLE
+   * that a reader asked for it
+   */
+  static class Rate {
+    private long time; // Start of the current interval
+    private long total; // Total at the start of the interval
+    private double rate;
+
+    /**
+     * Constructor
+     */
+    Rate() {
+      this.time = System.nanoTime();
+    }
+
+    /**
+     * Read the rate, starting a new interval if the current one is over
+     * @param total - current total
+     * @return growth of the total per second over the last interval
+     */
+    synchronized double get(long total) {
+      long now = System.nanoTime();
+      if (now - this.time >= SAMPLE) {
+        this.rate = (total - this.total) * (double) TimeUnit.SECONDS.toNanos(1)
+            / (now - this.time);
+        this.time = now;
+        this.total = total;
+      }
+      return this.rate;
+    }
+  }
+
+  /**
+   * Management interface of a stage
+   */
+  public interface StageMXBean {
+    /**
+     * Getter for the number of documents through the stage
+     * @return recorded latencies
+     */
+    long getCount();
+
+    /**
+     * Getter for the median latency
+     * @return milliseconds
+     */
+    double getP50Millis();
+
+    /**
+     * Getter for the 95th percentile latency
+     * @return milliseconds
+     */
+    double getP95Millis();
+
+    /**
+     * Getter for the 99th percentile latency
+     * @return milliseconds
+     */
+    double getP99Millis();
+
+    /**
+     * Getter for the 99.9th percentile latency
+     * @return milliseconds
+     */
+    double getP999Millis();
+
+    /**
+     * Getter for the largest latency
+     * @return milliseconds
+     */
+    double getMaxMillis();
+  }
+
+  /**
+   * Latencies of the documents through one stage, each from the moment the
+   * document left the stage before, so that queueing in front of the stage
+   * counts towards it
+   */
+  public static class Stage implements StageMXBean {
+    private final LatencyHistogram latencies;
+
+    /**
+     * Constructor
+     */
+    Stage() {
+      this.latencies = new LatencyHistogram();
+    }
+
+    /**
+     * Record the latency of a document
+     * @param nanos - latency in nanoseconds
+     */
+    public void record(long nanos) {
+      this.latencies.record(nanos);
+    }
+
+    @Override
+    public long getCount() {
+      return this.latencies.count();
+    }
+
+    @Override
+    public double getP50Millis() {
+      return millis(this.latencies.percentile(50));
+    }
+
+    @Override
+    public double getP95Millis() {
+      return millis(this.latencies.percentile(95));
+    }
+
+    @Override
+    public double getP99Millis() {
+      return millis(this.latencies.percentile(99));
+    }
+
+    @Override
+    public double getP999Millis() {
+      return millis(this.latencies.percentile(99.9));
+    }
+
+    @Override
+    public double getMaxMillis() {
+      return millis(this.latencies.max());
+    }
+  }
+
+  /**
+   * Management interface of a worker
+   */
+  public interface WorkerMXBean {
+    /**
+     * Getter for the number of documents annotated by the worker
+     * @return documents
+     */
+    long getDocuments();
+
+    /**
+     * Getter for the time spent annotating
+     * @return milliseconds
+     */
+    double getBusyMillis();
+
+    /**
+     * Getter for the time spent waiting since the worker was created
+     * @return milliseconds
+     */
+    double getIdleMillis();
+
+    /**
+     * Getter for the share of its life the worker spent annotating
+     * @return busy time over lifetime, between 0 and 1
+     */
+    double getUtilization();
+  }
+
+  /**
+   * Busy time of a worker, updated by the thread of the worker only
+   */
+  public static class Worker implements WorkerMXBean {
+    private final long created;
+    private volatile long documents;
+    private volatile long busy; // Nanoseconds
+
+    /**
+     * Constructor
+     */
+    Worker() {
+      this.created = System.nanoTime();
+    }
+
+    /**
+     * Count an annotated document, from the thread of the worker
+     * @param nanos - time spent annotating it
+     */
+    public void annotated(long nanos) {
+      this.documents++;
+      this.busy += nanos;
+    }
+
+    @Override
+    public long getDocuments() {
+      return this.documents;
+    }
+
+    @Override
+    public double getBusyMillis() {
+      return millis(this.busy);
+    }
+
+    @Override
+    public double getIdleMillis() {
+      return millis(Math.max(0, System.nanoTime() - this.created - this.busy));
+    }
+
+    @Override
+    public double getUtilization() {
+      long life = System.nanoTime() - this.created;
+      return life <= 0 ? 0 : Math.min(1, (double) this.busy / life);
+    }
+  }
+}
@@ -0,0 +1,84 @@
+/**
+ * Management interface of the tagging metrics.
+ * @author agent
+ * @since 10/17/2026
+ */
+package docTagger;
+
+/**
+ * Attributes of a run as seen through JMX. Totals count from the start of the
+ * run; rates are taken over the last sampling interval.
+ */
+public interface MetricsMXBean {
+  /**
+   * Getter for the number of tagged documents
+   * @return documents handed to the output writer
+   */
+  long getDocuments();
+
+  /**
+   * Getter for the size of the tagged documents
+   * @return UTF-8 bytes of the tagged documents
+   */
+  long getBytes();
+
+  /**
+   * Getter for the number of documents that could not be tagged
+   * @return failed documents
+   */
+  long getFailed();
+
+  /**
+   * Getter for the document rate
+   * @return documents tagged per second
+   */
+  double getDocumentsPerSecond();
+
+  /**
+   * Getter for the byte rate
+   * @return bytes tagged per second
+   */
+  double getBytesPerSecond();
+
+  /**
+   * Getter for the number of dictionary lookups
+   * @return candidate words looked up in the dictionary
+   */
+  long getLookups();
+
+  /**
+   * Getter for the number of dictionary hits
+   * @return candidate words found in the dictionary
+   */
+  long getHits();
+
+  /**
+   * Getter for the lookup rate
+   * @return dictionary lookups per second
+   */
+  double getLookupsPerSecond();
+
+  /**
+   * Getter for the hit rate
+   * @return dictionary hits per second
+   */
+  double getHitsPerSecond();
+
+  /**
+   * Getter for the depth of the work queue
+   * @return documents waiting to be tagged or being tagged
+   */
+  long getQueueDocuments();
+
+  /**
+   * Getter for the size of the work queue
+   * @return bytes of the documents waiting or being tagged
+   */
+  long getQueueBytes();
+
+  /**
+   * Getter for the output size
+   * @return bytes written to the output files
+   */
+  long getOutputBytes();
+}
@@ -0,0 +1,116 @@
+/**
+ * Simple unit tests for the Metrics
+ * @author agent
+ * @since 10/17/2026
+ */
+package docTagger;
+
+import static org.junit.Assert.*;
+
+import java.lang.management.ManagementFactory;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class MetricsTester {
+  private Metrics metrics;
+  private MBeanServer server;
+
+  /**
+   * Set up testing fixture
+   *
+   * @throws Exception
+   */
+  @Before
+  public void setUp() throws Exception {
+    this.metrics = new Metrics();
+    this.server = ManagementFactory.getPlatformMBeanServer();
+  }
+
+  /**
+   * Remove the published beans
+   */
+  @After
+  public void tearDown() {
+    this.metrics.unregister();
+  }
+
+  /**
+   * Test that counters, gauges, stages and workers can be read through the
+   * platform MBeanServer, including those created after registering
+   *
+   * @throws Exception
+   */
+  @Test
+  public void testRegister() throws Exception {
+    this.metrics.stage(Metrics.READ).record(2000000);
+    this.metrics.register();
+    this.metrics.tagged(100);
+    this.metrics.tagged(50);
+    this.metrics.failed();
+    this.metrics.lookups(10, 4);
+    this.metrics.setQueue(() -> 3, () -> 300);
+    this.metrics.setOutput(() -> 42);
+    Metrics.Worker worker = this.metrics.worker();
+    worker.annotated(5000000);
+
+    ObjectName run = new ObjectName(Metrics.RUN);
+    assertEquals(2L, this.server.getAttribute(run, "Documents"));
+    assertEquals(150L, this.server.getAttribute(run, "Bytes"));
+    assertEquals(1L, this.server.getAttribute(run, "Failed"));
+    assertEquals(10L, this.server.getAttribute(run, "Lookups"));
+    assertEquals(4L, this.server.getAttribute(run, "Hits"));
+    assertEquals(3L, this.server.getAttribute(run, "QueueDocuments"));
+    assertEquals(300L, this.server.getAttribute(run, "QueueBytes"));
+    assertEquals(42L, this.server.getAttribute(run, "OutputBytes"));
+
+    ObjectName read = new ObjectName(Metrics.STAGE + Metrics.READ);
+    assertEquals(1L, this.server.getAttribute(read, "Count"));
+    double max = (Double) this.server.getAttribute(read, "MaxMillis");
+    assertEquals(2, max, 0.001);
+
+    ObjectName first = new ObjectName(Metrics.WORKER + Metrics.WORKER_PREFIX +
+        1);
+    assertEquals(1L, this.server.getAttribute(first, "Documents"));
+    assertEquals(5.0, (Double) this.server.getAttribute(first, "BusyMillis"),
+        0.001);
+
+    this.metrics.unregister();
+    assertFalse(this.server.isRegistered(run));
+    assertFalse(this.server.isRegistered(read));
+    assertFalse(this.server.isRegistered(first));
+  }
+
+  /**
+   * Test that a rate covers the growth since the start of its interval and
+   * holds until the next interval is over
+   *
+   * @throws Exception
+   */
+  @Test
+  public void testRate() throws Exception {
+    Metrics.Rate rate = new Metrics.Rate();
+    assertEquals(0, rate.get(0), 0);
+    Thread.sleep(Metrics.SAMPLE / 1000000 + 10);
+    double first = rate.get(100);
+    assertTrue(first > 0 && first <= 100);
+    assertEquals(first, rate.get(1000), 0);
+  }
+
+  /**
+   * Test that documents are counted by their size in UTF-8, as they are
+   * read and written, and not by their characters
+   */
+  @Test
+  public void testUtf8() {
+    assertEquals(0, Metrics.utf8(""));
+    assertEquals(5, Metrics.utf8("court"));
+    assertEquals(6, Metrics.utf8("\u6cd5\u9662"));
+    assertEquals(4, Metrics.utf8("\ud83d\ude00")); // Surrogate pair
+    assertEquals(2, Metrics.utf8("a\ud83d")); // Replaced by '?'
+  }
+}
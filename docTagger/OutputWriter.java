@@ -0,0 +1,388 @@
+/**
+ * Single asynchronous writer of tagged records.
+ * @author agent
+ * @since 10/17/2026
+ */
+package docTagger;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+/**
+ * A class that writes the records of all workers from one dedicated thread.
+ *
+ * Records are assigned to one of a fixed number of partitions by the hash of
+ * their case id, so the records of a case always land in the same partition.
+ * Each partition batches records in a large buffer, at most the rotation size,
+ * that is written to its file in one sequential write. A partition file is
+ * closed once the next batch would take it over the rotation size, and the
+ * next file of the partition is opened, so every file except the last of each
+ * partition is about the same size. A batch never splits a record, and every
+ * record ends with a line feed.
+ *
+ * In the compressed mode every batch becomes a gzip member of its own,
+ * compressed by a pool of threads while the writer goes on batching. The
+ * writer keeps a window of blocks in flight and writes them in the order they
+ * were batched, so each file is a multi-member gzip stream that gunzip and
+ * GZIPInputStream read back as the concatenated records. Files are rotated by
+ * compressed size.
+ *
+ * The compressing threads are a stage of their own, as many as the workers,
+ * rather than the annotate stage. A worker hands its record on through the
+ * bounded serialize queue and the writer queue, so it blocks whenever the
+ * writer is behind, and the writer blocks whenever compression is behind. A
+ * block queued behind the workers could then wait for a worker that waits for
+ * the writer, which waits for the block.
+ *
+ * Files are named OUT_PATH + "part-PP-SSSS" + OUT_POST, where PP is the
+ * partition and SSSS the sequence number within the partition, followed by
+ * GZIP_POST when compressed.
+ */
+public class OutputWriter {
+  static final int BATCH = 1 << 20; // Bytes per sequential write
+  static final String PART_FMT = "part-%02d-%04d";
+  static final String GZIP_POST = ".gz";
+  static final byte NEW_LINE = '\n';
+  static final int WINDOW_MUL = 2; // Blocks in flight per compressing thread
+  static final int GZIP_MAGIC = 0x8b1f;
+  static final int GZIP_HEADER = 10;
+  static final int GZIP_TRAILER = 8;
+  static final int GZIP_SLACK = 64; // Room for incompressible input
+  static final byte OS_UNKNOWN = (byte) 0xff;
+
+  private final String path;
+  private final long rotate;
+  private final int batchSize; // Bytes batched before a write
+  private final ExecutorService writer;
+  private final ExecutorService compressor; // Null when not compressing
+  private final ArrayDeque<Block> blocks; // Blocks in flight, in batch order
+  private final int window;
+  private final Partition[] partitions;
+  private final LongAdder written; // Bytes written to the files
+
+  /**
+   * Constructor of an uncompressed writer
+   * @param path - output directory prefix
+   * @param partitions - number of partitions
+   * @param rotate - size at which a partition file is closed
+   */
+  public OutputWriter(String path, int partitions, long rotate) {
+    this(path, partitions, rotate, 0);
+  }
+
+  /**
+   * Constructor
+   * @param path - output directory prefix
+   * @param partitions - number of partitions
+   * @param rotate - size at which a partition file is closed
+   * @param compressors - number of compressing threads, 0 for uncompressed
+   *        output
+   */
+  public OutputWriter(String path, int partitions, long rotate,
+      int compressors) {
+    if (partitions < 1 || rotate < 1 || compressors < 0)
+      throw new IllegalArgumentException("Invalid output configuration");
+    this.path = path;
+    this.rotate = rotate;
+    this.batchSize = (int) Math.min(BATCH, rotate);
+    this.writer = Pipeline.stage("write", 1);
+    this.compressor = compressors == 0 ? null :
+        Pipeline.stage("compress", compressors);
+    this.blocks = new ArrayDeque<>();
+    this.window = compressors * WINDOW_MUL;
+    this.partitions = new Partition[partitions];
+    for (int i = 0; i < partitions; i++)
+      this.partitions[i] = new Partition(i);
+    this.written = new LongAdder();
+  }
+
+  /**
+   * Queue a record, blocking while the writer is too far behind
+   * @param id - case id of the record
+   * @param record - the record, without line terminator
+   * @return a future that completes once the record is written to its file
+   */
+  public CompletableFuture<Void> write(String id, String record) {
+    CompletableFuture<Void> done = new CompletableFuture<>();
+    this.writer.execute(() -> {
+      try {
+        this.partitions[partition(id, this.partitions.length)].add(record,
+            done);
+      } catch (IOException ex) {
+        done.completeExceptionally(ex);
+      }
+    });
+    return done;
+  }
+
+  /**
+   * Getter for the output size
+   * @return bytes written to the files so far, after compression
+   */
+  public long written() {
+    return this.written.sum();
+  }
+
+  /**
+   * Write all batches, close all files and stop the writer thread
+   * @return a future that completes once everything is written
+   */
+  public CompletableFuture<Void> close() {
+    return CompletableFuture.runAsync(() -> {
+      try {
+        for (Partition partition : this.partitions)
+          partition.drain();
+        this.flush(0);
+        for (Partition partition : this.partitions)
+          partition.close();
+      } catch (IOException ex) {
+        throw new CompletionException(ex);
+      }
+    }, this.writer).whenComplete((v, ex) -> {
+      this.writer.shutdown();
+      if (this.compressor != null)
+        this.compressor.shutdown();
+    });
+  }
+
+  /**
+   * Select the partition of a case
+   * @param id - case id
+   * @param partitions - number of partitions
+   * @return the partition
+   */
+  static int partition(String id, int partitions) {
+    return Math.floorMod(id.hashCode(), partitions);
+  }
+
+  /**
+   * Compress bytes into a single gzip member with a deflater of its own. A
+   * batch is large enough that creating the deflater costs little, and its
+   * native memory is freed at once rather than whenever it is finalized.
+   * @param data - bytes to compress
+   * @param length - number of bytes to compress
+   * @return the member, header and trailer included
+   */
+  static byte[] gzip(byte[] data, int length) {
+    Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION, true);
+    try {
+      return gzip(data, length, deflater);
+    } finally {
+      deflater.end();
+    }
+  }
+
+  /**
+   * Compress bytes into a single gzip member
+   * @param data - bytes to compress
+   * @param length - number of bytes to compress
+   * @param deflater - raw deflater, reset before use
+   * @return the member, header and trailer included
+   */
+  static byte[] gzip(byte[] data, int length, Deflater deflater) {
+    deflater.reset();
+    deflater.setInput(data, 0, length);
+    deflater.finish();
+    byte[] out = new byte[GZIP_HEADER + length + GZIP_SLACK];
+    ByteBuffer.wrap(out).put((byte) GZIP_MAGIC).put((byte) (GZIP_MAGIC >> 8))
+        .put((byte) Deflater.DEFLATED).put(new byte[6]).put(OS_UNKNOWN);
+    int size = GZIP_HEADER;
+    while (!deflater.finished()) {
+      if (size == out.length)
+        out = Arrays.copyOf(out, out.length * 2);
+      size += deflater.deflate(out, size, out.length - size);
+    }
+    CRC32 crc = new CRC32();
+    crc.update(data, 0, length);
+    out = Arrays.copyOf(out, size + GZIP_TRAILER);
+    ByteBuffer.wrap(out, size, GZIP_TRAILER).order(ByteOrder.LITTLE_ENDIAN)
+        .putInt((int) crc.getValue()).putInt(length);
+    return out;
+  }
+
+  /**
+   * Write compressed blocks in batch order until at most a number of them
+   * are left in flight, waiting for their compression to finish
+   * @param limit - number of blocks to leave in flight
+   * @throws IOException
+   */
+  private void flush(int limit) throws IOException {
+    while (this.blocks.size() > limit) {
+      Block block = this.blocks.remove();
+      byte[] member;
+      try {
+        member = block.member.join();
+      } catch (CompletionException ex) {
+        for (CompletableFuture<Void> done : block.pending)
+          done.completeExceptionally(ex.getCause());
+        continue;
+      }
+      block.partition.write(ByteBuffer.wrap(member), block.pending);
+    }
+  }
+
+  /**
+   * A batch of one partition on its way through a compressing thread
+   */
+  private static class Block {
+    private final Partition partition;
+    private final CompletableFuture<byte[]> member;
+    private final List<CompletableFuture<Void>> pending;
+
+    /**
+     * Constructor
+     * @param partition - partition of the batch
+     * @param member - the batch as a gzip member, once compressed
+     * @param pending - futures of the records in the batch
+     */
+    private Block(Partition partition, CompletableFuture<byte[]> member,
+        List<CompletableFuture<Void>> pending) {
+      this.partition = partition;
+      this.member = member;
+      this.pending = pending;
+    }
+  }
+
+  /**
+   * The current file and batch of one partition, used only by the writer
+   * thread
+   */
+  private class Partition {
+    private final int index;
+    private final ByteBuffer batch;
+    private List<CompletableFuture<Void>> pending; // Records in the batch
+    private FileChannel channel;
+    private long size; // Bytes in the current file
+    private int sequence;
+
+    /**
+     * Constructor
+     * @param index - partition number
+     */
+    private Partition(int index) {
+      this.index = index;
+      this.batch = compressor == null ? ByteBuffer.allocateDirect(batchSize) :
+          ByteBuffer.allocate(batchSize);
+      this.pending = new ArrayList<>();
+    }
+
+    /**
+     * Add a record to the batch, writing the batch out first when it is full
+     * @param record - the record
+     * @param done - completed once the record is written
+     * @throws IOException
+     */
+    private void add(String record, CompletableFuture<Void> done)
+        throws IOException {
+      byte[] bytes = record.getBytes(StandardCharsets.UTF_8);
+      if (this.batch.position() + bytes.length + 1 > batchSize)
+        this.drain();
+      this.pending.add(done);
+      if (bytes.length + 1 > batchSize) { // Too large for a batch
+        byte[] large = Arrays.copyOf(bytes, bytes.length + 1);
+        large[bytes.length] = NEW_LINE;
+        this.submit(large, large.length);
+        return;
+      }
+      this.batch.put(bytes).put(NEW_LINE);
+    }
+
+    /**
+     * Write out the batch and start a new one
+     * @throws IOException
+     */
+    private void drain() throws IOException {
+      if (this.batch.position() == 0)
+        return;
+      if (compressor == null) {
+        this.batch.flip();
+        this.write(this.batch, this.pending);
+      } else
+        this.submit(Arrays.copyOf(this.batch.array(), this.batch.position()),
+            this.batch.position());
+      this.batch.clear();
+    }
+
+    /**
+     * Write the records of the batch to the current file, or hand them to
+     * the compressing threads
+     * @param data - the records
+     * @param length - number of bytes of records
+     * @throws IOException
+     */
+    private void submit(byte[] data, int length) throws IOException {
+      if (compressor == null) {
+        this.write(ByteBuffer.wrap(data, 0, length), this.pending);
+        return;
+      }
+      List<CompletableFuture<Void>> pending = this.pending;
+      this.pending = new ArrayList<>();
+      blocks.add(new Block(this, CompletableFuture.supplyAsync(() ->
+          gzip(data, length), compressor), pending));
+      flush(window);
+    }
+
+    /**
+     * Write whole records to the current file, rotating the file if needed,
+     * and complete their futures
+     * @param buffer - the records
+     * @param pending - futures of the records
+     * @throws IOException
+     */
+    private void write(ByteBuffer buffer, List<CompletableFuture<Void>> pending)
+        throws IOException {
+      try {
+        if (this.channel != null && this.size > 0 &&
+            this.size + buffer.remaining() > rotate) {
+          this.channel.close();
+          this.channel = null;
+        }
+        if (this.channel == null) {
+          this.channel = FileChannel.open(Paths.get(path + String.format(
+              PART_FMT, this.index, this.sequence++) + docTagger.OUT_POST +
+              (compressor == null ? "" : GZIP_POST)),
+              StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+              StandardOpenOption.TRUNCATE_EXISTING);
+          this.size = 0;
+        }
+        this.size += buffer.remaining();
+        written.add(buffer.remaining());
+        while (buffer.hasRemaining())
+          this.channel.write(buffer);
+      } catch (IOException ex) {
+        for (CompletableFuture<Void> done : pending)
+          done.completeExceptionally(ex);
+        pending.clear();
+        throw ex;
+      }
+      for (CompletableFuture<Void> done : pending)
+        done.complete(null);
+      pending.clear();
+    }
+
+    /**
+     * Close the file once its last batch is written
+     * @throws IOException
+     */
+    private void close() throws IOException {
+      if (this.channel != null)
+        this.channel.close();
+      this.channel = null;
+    }
+  }
+}
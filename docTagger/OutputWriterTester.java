@@ -0,0 +1,108 @@
+/**
+ * Simple unit tests for the OutputWriter
+ * @author agent
+ * @since 10/17/2026
+ */
+package docTagger;
+
+import static org.junit.Assert.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPInputStream;
+
+import org.junit.Before;
+import org.junit.Test;
+
+public class OutputWriterTester {
+  private File dir;
+
+  /**
+   * Set up testing fixture
+   *
+   * @throws Exception
+   */
+  @Before
+  public void setUp() throws Exception {
+    this.dir = Files.createTempDirectory("output").toFile();
+    this.dir.deleteOnExit();
+  }
+
+  /**
+   * Test that concatenated gzip members read back as the concatenated input
+   */
+  @Test
+  public void testMultiMember() throws IOException {
+    Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION, true);
+    byte[] first = "abcabcabc\n".getBytes(StandardCharsets.UTF_8);
+    byte[] second = new byte[OutputWriter.GZIP_SLACK * 4];
+    for (int i = 0; i < second.length; i++)
+      second[i] = (byte) (i * 31 + 7); // Hardly compressible
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    out.write(OutputWriter.gzip(first, first.length, deflater));
+    out.write(OutputWriter.gzip(second, second.length, deflater));
+    out.write(OutputWriter.gzip(first, 0, deflater));
+    deflater.end();
+
+    ByteArrayOutputStream expected = new ByteArrayOutputStream();
+    expected.write(first);
+    expected.write(second);
+    assertArrayEquals(expected.toByteArray(), gunzip(new ByteArrayInputStream(
+        out.toByteArray())));
+  }
+
+  /**
+   * Test that records written in compressed mode are all found, whole and
+   * newline-terminated, in the rotated files of their partitions
+   */
+  @Test
+  public void testCompressed() throws IOException {
+    OutputWriter writer = new OutputWriter(this.dir.getPath() + File.separator,
+        2, 256, 2);
+    StringBuilder expected = new StringBuilder();
+    for (int i = 0; i < 1000; i++) {
+      if (OutputWriter.partition("c" + i, 2) == 0)
+        expected.append("record ").append(i).append('\n');
+      writer.write("c" + i, "record " + i);
+    }
+    writer.close().join();
+
+    ByteArrayOutputStream actual = new ByteArrayOutputStream();
+    File part;
+    for (int i = 0; (part = new File(this.dir, String.format(
+        OutputWriter.PART_FMT, 0, i) + docTagger.OUT_POST +
+        OutputWriter.GZIP_POST)).exists(); i++) {
+      try (InputStream in = Files.newInputStream(part.toPath())) {
+        actual.write(gunzip(in));
+      }
+    }
+    assertEquals(expected.toString(), new String(actual.toByteArray(),
+        StandardCharsets.UTF_8));
+    assertTrue(new File(this.dir, String.format(OutputWriter.PART_FMT, 0, 1) +
+        docTagger.OUT_POST + OutputWriter.GZIP_POST).exists());
+    for (File file : this.dir.listFiles())
+      file.deleteOnExit();
+  }
+
+  /**
+   * Decompress a whole gzip stream
+   * @param in - the stream
+   * @return decompressed bytes
+   * @throws IOException
+   */
+  private static byte[] gunzip(InputStream in) throws IOException {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    try (GZIPInputStream gzip = new GZIPInputStream(in)) {
+      byte[] buffer = new byte[OutputWriter.GZIP_SLACK];
+      for (int n; (n = gzip.read(buffer)) > 0;)
+        out.write(buffer, 0, n);
+    }
+    return out.toByteArray();
+  }
+}
@@ -0,0 +1,386 @@
+/**
+ * Staged tagging pipeline with completion futures.
+ * @author agent
+ * @since 10/17/2026
+ */
+package docTagger;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * A class that tags documents in five stages: read, parse, annotate,
+ * serialize and write.
+ *
+ * Every stage has its own threads and a bounded queue in front of it. A stage
+ * that finds the next queue full blocks, so a slow stage holds back the ones
+ * before it instead of letting work pile up on the heap. The text of the
+ * documents in flight is also bounded by the byte budget: a document takes its
+ * share of the budget once it is read and returns it once its record is
+ * handed to the output writer. A document larger than the whole budget waits
+ * until it is alone.
+ *
+ * With deduplication, a document whose targeted fields repeat an earlier
+ * document skips the annotate stage and reuses the earlier annotation.
+ *
+ * The time each document spends in every stage, including the wait in front
+ * of it, is recorded in the metrics of the run, along with the documents in
+ * flight and the part of the budget they hold.
+ *
+ * Every submitted document gets a future that completes with its case id when
+ * its record has been written to an output file, or exceptionally if it could
+ * not be tagged. Documents already in memory can also be handed in directly,
+ * with a future that completes as soon as the record is tagged. The run gets
+ * a handle from finish() that completes once every document is done and the
+ * last buffer is flushed, so timings taken from it cover the whole run.
+ */
+public class Pipeline {
+  static final int QUEUE_MUL = 2; // Queued tasks per stage thread
+  static final int KILOBYTE_SHIFT = 10; // Budget permits are kilobytes
+  static final int PRUNE = 1 << 12; // Submissions between dropping done jobs
+
+  private final JsonProjection projection;
+  private final BlockingQueue<ByteBuffer> buffers; // Of the read stage
+  private final ExecutorService readStage;
+  private final ExecutorService parseStage;
+  private final ExecutorService annotateStage;
+  private final ExecutorService serializeStage;
+  private final OutputWriter output; // Write stage
+  private final ThreadLocal<docTagger> taggers;
+  private final Deduplicator dedup; // May be null
+  private final Semaphore budget; // Kilobytes of documents in flight
+  private final int permits;
+  private final List<CompletableFuture<Void>> stages; // Hand-off per job
+  private final Metrics metrics;
+  private final LongAdder queued; // Documents not yet handed to the writer
+
+  /**
+   * Constructor
+   * @param projection - compiled targeted fields and case id
+   * @param config - stage sizes and byte budget
+   * @param taggers - creates the tagger of each annotating thread
+   * @param dedup - annotations of repeated documents, may be null
+   * @param metrics - counters of the run
+   */
+  public Pipeline(JsonProjection projection, StreamConfig config,
+      Supplier<docTagger> taggers, Deduplicator dedup, Metrics metrics) {
+    this(projection, config, taggers, dedup, metrics, new OutputWriter(
+        docTagger.OUT_PATH, config.partitions(), config.rotate(),
+        config.compressors()));
+  }
+
+  /**
+   * Constructor
+   * @param projection - compiled targeted fields and case id
+   * @param config - stage sizes and byte budget
+   * @param taggers - creates the tagger of each annotating thread
+   * @param dedup - annotations of repeated documents, may be null
+   * @param metrics - counters of the run
+   * @param output - writer of the output files, closed by finish()
+   */
+  Pipeline(JsonProjection projection, StreamConfig config,
+      Supplier<docTagger> taggers, Deduplicator dedup, Metrics metrics,
+      OutputWriter output) {
+    this.projection = projection;
+    this.buffers = DocumentReader.buffers(config.readers());
+    this.readStage = stage("read", config.readers());
+    this.parseStage = stage("parse", config.parsers());
+    this.annotateStage = stage("annotate", config.workers());
+    this.serializeStage = stage("serialize", config.serializers());
+    this.output = output;
+    this.taggers = ThreadLocal.withInitial(taggers);
+    this.dedup = dedup;
+    this.permits = (int) Math.min(Integer.MAX_VALUE,
+        Math.max(1, config.budget() >> KILOBYTE_SHIFT));
+    this.budget = new Semaphore(this.permits);
+    this.stages = new ArrayList<>();
+    this.metrics = metrics;
+    this.queued = new LongAdder();
+    metrics.setQueue(this.queued::sum, () -> (long) (this.permits -
+        this.budget.availablePermits()) << KILOBYTE_SHIFT);
+    metrics.setOutput(this.output::written);
+  }
+
+  /**
+   * Submit a file, blocking while the read stage is full
+   * @param fileName - input file name
+   * @return a future that completes with the case id once the record of the
+   *         document is written
+   */
+  public CompletableFuture<String> submit(String fileName) {
+    Job job = new Job(fileName);
+    this.submit(job);
+    return job.done;
+  }
+
+  /**
+   * Submit a document held in memory, blocking while the read stage is full.
+   * The record is written with its batch, at the latest by finish().
+   * @param name - name of the document in error messages
+   * @param content - the JSON document
+   * @return a future that completes with the case id once the record of the
+   *         document is handed to the output writer
+   */
+  public CompletableFuture<String> tag(String name, String content) {
+    Job job = new Job(name);
+    job.content = content;
+    this.submit(job);
+    return job.tagged;
+  }
+
+  /**
+   * Send a document through the stages
+   * @param job - the document
+   */
+  private void submit(Job job) {
+    job.mark = System.nanoTime();
+    this.queued.increment();
+    CompletableFuture<Void> stage = CompletableFuture
+        .supplyAsync(() -> this.read(job), this.readStage)
+        .thenApplyAsync(this::parse, this.parseStage)
+        .thenCompose(this::deduplicate)
+        .thenApplyAsync(this::serialize, this.serializeStage)
+        .thenAccept(this::write)
+        .exceptionally(ex -> {
+          Throwable cause = ex instanceof CompletionException ?
+              ex.getCause() : ex;
+          System.err.println("Failed to tag " + job.fileName + ": " + cause);
+          this.budget.release(job.weight);
+          this.queued.decrement();
+          this.metrics.failed();
+          job.tagged.completeExceptionally(cause);
+          job.done.completeExceptionally(cause);
+          return null;
+        });
+    synchronized (this.stages) {
+      if (this.stages.size() % PRUNE == 0)
+        this.stages.removeIf(CompletableFuture::isDone);
+      this.stages.add(stage);
+    }
+  }
+
+  /**
+   * Signal that no more files are submitted
+   * @return a handle that completes when every document is done and all
+   *         output is flushed
+   */
+  public CompletableFuture<Void> finish() {
+    CompletableFuture<?>[] all;
+    synchronized (this.stages) {
+      all = this.stages.toArray(new CompletableFuture<?>[0]);
+    }
+    return CompletableFuture.allOf(all)
+        .thenCompose(v -> this.output.close())
+        .whenComplete((v, ex) -> {
+          this.readStage.shutdown();
+          this.parseStage.shutdown();
+          this.annotateStage.shutdown();
+          this.serializeStage.shutdown();
+        });
+  }
+
+  /**
+   * Read stage: read the file, unless the document is in memory, and take its
+   * share of the budget
+   * @param job - the document
+   * @return the document
+   */
+  private Job read(Job job) {
+    try {
+      if (job.content == null)
+        job.content = DocumentReader.read(job.fileName, this.buffers);
+      job.bytes = Metrics.utf8(job.content);
+      job.weight = (int) Math.min(this.permits, Math.max(1,
+          ((long) job.content.length() * Character.BYTES) >> KILOBYTE_SHIFT));
+      this.budget.acquire(job.weight);
+    } catch (IOException ex) {
+      throw new CompletionException(ex);
+    } catch (InterruptedException ex) {
+      Thread.currentThread().interrupt();
+      job.weight = 0;
+      throw new CompletionException(ex);
+    }
+    this.lap(job, Metrics.READ);
+    return job;
+  }
+
+  /**
+   * Parse stage: locate the targeted fields
+   * @param job - the document
+   * @return the document
+   */
+  private Job parse(Job job) {
+    job.document = this.projection.project(job.content);
+    job.id = docTagger.caseId(job.document);
+    if (job.id == null)
+      throw new IllegalArgumentException(String.format(docTagger.ERR_MSG,
+          docTagger.FILE, job.fileName));
+    this.lap(job, Metrics.PARSE);
+    return job;
+  }
+
+  /**
+   * Send a document to the annotate stage, unless it is a copy of an earlier
+   * document whose annotation can be reused. A copy waits for the annotation
+   * without holding a thread, and tags itself on the thread that finds the
+   * first copy failed.
+   * @param job - the document
+   * @return a future of the annotated document
+   */
+  private CompletableFuture<Job> deduplicate(Job job) {
+    if (this.dedup == null)
+      return CompletableFuture.supplyAsync(() -> this.annotate(job),
+          this.annotateStage);
+    CompletableFuture<String[]> annotation = new CompletableFuture<>();
+    CompletableFuture<String[]> prior = this.dedup.claim(job.document,
+        annotation);
+    if (prior == null)
+      return CompletableFuture.supplyAsync(() -> this.annotate(job),
+          this.annotateStage).whenComplete((done, ex) ->
+              annotation.complete(ex == null ? done.contents : null));
+    return prior.thenApply(contents -> {
+      if (contents == null)
+        return this.annotate(job);
+      this.dedup.skipped(job.content);
+      job.contents = contents;
+      job.document = null;
+      job.content = null;
+      this.lap(job, Metrics.ANNOTATE);
+      return job;
+    });
+  }
+
+  /**
+   * Annotate stage: tag the fields with the tagger of this thread
+   * @param job - the document
+   * @return the document
+   */
+  private Job annotate(Job job) {
+    job.contents = this.taggers.get().annotate(job.document, job.id);
+    job.document = null;
+    job.content = null;
+    this.lap(job, Metrics.ANNOTATE);
+    return job;
+  }
+
+  /**
+   * Serialize stage: format the output record
+   * @param job - the document
+   * @return the document
+   */
+  private Job serialize(Job job) {
+    job.record = docTagger.serialize(this.projection, job.id, job.contents);
+    job.contents = null;
+    this.lap(job, Metrics.SERIALIZE);
+    return job;
+  }
+
+  /**
+   * Write stage: hand the record to the output writer and return the share
+   * of the budget. The document is done once its batch is written, which for
+   * the last batches is only when the writer is closed. It counts as tagged
+   * from here on, so a writer that refuses the record only fails its done
+   * future.
+   * @param job - the document
+   */
+  private void write(Job job) {
+    this.budget.release(job.weight);
+    job.weight = 0;
+    String record = job.record;
+    job.record = null;
+    this.queued.decrement();
+    this.metrics.tagged(job.bytes);
+    job.tagged.complete(job.id);
+    CompletableFuture<Void> written;
+    try {
+      written = this.output.write(job.id, record);
+    } catch (RuntimeException ex) {
+      written = new CompletableFuture<>();
+      written.completeExceptionally(ex);
+    }
+    written.whenComplete((v, ex) -> {
+      this.lap(job, Metrics.WRITE);
+      if (ex != null)
+        job.done.completeExceptionally(ex);
+      else
+        job.done.complete(job.id);
+    });
+  }
+
+  /**
+   * Record the time a document took through a stage since it left the stage
+   * before
+   * @param job - the document
+   * @param stage - name of the stage it leaves
+   */
+  private void lap(Job job, String stage) {
+    long now = System.nanoTime();
+    this.metrics.stage(stage).record(now - job.mark);
+    job.mark = now;
+  }
+
+  /**
+   * Create the threads of a stage, whose submitters block while its queue is
+   * full, and which rejects tasks once it is shut down
+   * @param name - stage name
+   * @param nThreads - number of threads
+   * @return the stage executor
+   */
+  static ExecutorService stage(String name, int nThreads) {
+    AtomicInteger count = new AtomicInteger();
+    return new ThreadPoolExecutor(nThreads, nThreads, 0, TimeUnit.SECONDS,
+        new ArrayBlockingQueue<>(nThreads * QUEUE_MUL),
+        r -> new Thread(r, name + "-" + count.incrementAndGet()),
+        (r, executor) -> {
+          if (executor.isShutdown())
+            throw new RejectedExecutionException(name + " stage is shut down");
+          try {
+            executor.getQueue().put(r);
+          } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new RejectedExecutionException(ex);
+          }
+        });
+  }
+
+  /**
+   * A document on its way through the stages
+   */
+  private static class Job {
+    private final String fileName;
+    private final CompletableFuture<String> tagged;
+    private final CompletableFuture<String> done;
+    private String content;
+    private int weight; // Kilobytes of the budget held
+    private long bytes; // UTF-8 bytes of the document
+    private long mark; // Time it left the last stage, in nanoseconds
+    private JsonProjection.Document document;
+    private String id;
+    private String[] contents;
+    private String record;
+
+    /**
+     * Constructor
+     * @param fileName - input file name, or name of a document in memory
+     */
+    private Job(String fileName) {
+      this.fileName = fileName;
+      this.tagged = new CompletableFuture<>();
+      this.done = new CompletableFuture<>();
+    }
+  }
+}
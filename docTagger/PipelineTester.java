@@ -0,0 +1,277 @@
+/**
+ * Simple unit tests for the Pipeline
+ * @author agent
+ * @since 10/17/2026
+ */
+package docTagger;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class PipelineTester {
+  static final int DOCUMENTS = 50;
+  static final long TIMEOUT = 10; // Seconds
+  static final long SETTLE = 100; // Milliseconds to see nothing more moves
+
+  private Path dir;
+  private JsonProjection projection;
+  private Dictionary dict;
+  private Metrics metrics;
+
+  /**
+   * Set up testing fixture
+   *
+   * @throws Exception
+   */
+  @Before
+  public void setUp() throws Exception {
+    this.dir = Files.createTempDirectory("pipeline");
+    this.projection = new JsonProjection(Arrays.asList("$.t"), "$.file");
+    Dictionary.Builder builder = new Dictionary.Builder();
+    builder.add("court", "fayuan");
+    this.dict = builder.build(docTagger.INIT_WL);
+    this.metrics = new Metrics();
+  }
+
+  /**
+   * Remove the output files
+   *
+   * @throws IOException
+   */
+  @After
+  public void tearDown() throws IOException {
+    for (Path file : this.files())
+      Files.delete(file);
+    Files.delete(this.dir);
+  }
+
+  /**
+   * Test that with one thread per stage the records are written in the order
+   * the documents were submitted, and that a document is done only once its
+   * record is in a file
+   *
+   * @throws Exception
+   */
+  @Test
+  public void testOrder() throws Exception {
+    Pipeline pipeline = this.pipeline(new StreamConfig.Builder().workers(1)
+        .readers(1).parsers(1).serializers(1).partitions(1), this::tagger);
+    List<CompletableFuture<String>> tagged = new ArrayList<>();
+    for (int i = 0; i < DOCUMENTS; i++)
+      tagged.add(pipeline.tag("d" + i, this.document(i)));
+    pipeline.finish().get(TIMEOUT, TimeUnit.SECONDS);
+
+    List<String> expected = new ArrayList<>();
+    for (int i = 0; i < DOCUMENTS; i++) {
+      assertEquals("d" + i, tagged.get(i).get());
+      expected.add(this.tagger().tag(this.document(i)));
+    }
+    assertEquals(expected, this.records());
+    assertEquals(DOCUMENTS, this.metrics.getDocuments());
+  }
+
+  /**
+   * Test that a submitter blocks once the byte budget and the read queue are
+   * full, and carries on once the documents ahead move
+   *
+   * @throws Exception
+   */
+  @Test
+  public void testBackPressure() throws Exception {
+    CountDownLatch release = new CountDownLatch(1);
+    Pipeline pipeline = this.pipeline(new StreamConfig.Builder().workers(1)
+        .readers(1).parsers(1).serializers(1).partitions(1)
+        .budget(1 << Pipeline.KILOBYTE_SHIFT), () -> {
+          try {
+            release.await(); // Hold the first document in the annotate stage
+          } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+          }
+          return this.tagger();
+        });
+    AtomicInteger submitted = new AtomicInteger();
+    Thread submitter = new Thread(() -> {
+      for (int i = 0; i < DOCUMENTS; i++) {
+        pipeline.tag("d" + i, this.document(i));
+        submitted.incrementAndGet();
+      }
+    });
+    submitter.start();
+
+    /* One document holds the budget while it is annotated, the next waits for
+       the budget on the read thread and two more wait in the read queue */
+    long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(TIMEOUT);
+    while ((submitted.get() < 2 + Pipeline.QUEUE_MUL ||
+        submitter.getState() != Thread.State.WAITING) &&
+        System.nanoTime() < deadline)
+      Thread.sleep(1);
+    Thread.sleep(SETTLE);
+    assertEquals(Thread.State.WAITING, submitter.getState());
+    assertEquals(2 + Pipeline.QUEUE_MUL, submitted.get());
+    assertEquals(1 << Pipeline.KILOBYTE_SHIFT,
+        this.metrics.getQueueBytes());
+
+    release.countDown();
+    submitter.join(TimeUnit.SECONDS.toMillis(TIMEOUT));
+    assertEquals(DOCUMENTS, submitted.get());
+    pipeline.finish().get(TIMEOUT, TimeUnit.SECONDS);
+    assertEquals(DOCUMENTS, this.records().size());
+    assertEquals(0, this.metrics.getQueueBytes());
+  }
+
+  /**
+   * Test that documents that cannot be read or have no case id complete
+   * exceptionally and return their share of the budget, while the run goes
+   * on and finishes
+   *
+   * @throws Exception
+   */
+  @Test
+  public void testFailure() throws Exception {
+    Pipeline pipeline = this.pipeline(new StreamConfig.Builder().workers(1)
+        .readers(1).parsers(1).serializers(1).partitions(1)
+        .budget(1 << Pipeline.KILOBYTE_SHIFT), this::tagger);
+    CompletableFuture<String> missing = pipeline.submit(
+        this.dir.resolve("missing.json").toString());
+    CompletableFuture<String> noId = pipeline.tag("noId",
+        "{\"t\": \"court\"}");
+    CompletableFuture<String> good = pipeline.tag("good", this.document(0));
+    pipeline.finish().get(TIMEOUT, TimeUnit.SECONDS);
+
+    assertFailed(missing, IOException.class);
+    assertFailed(noId, IllegalArgumentException.class);
+    assertEquals("d0", good.get());
+    assertEquals(Arrays.asList(this.tagger().tag(this.document(0))),
+        this.records());
+    assertEquals(2, this.metrics.getFailed());
+    assertEquals(0, this.metrics.getQueueBytes());
+  }
+
+  /**
+   * Test that a document whose record the writer refuses counts as tagged,
+   * not failed, and leaves the queue empty, while only its done future fails
+   *
+   * @throws Exception
+   */
+  @Test
+  public void testRefused() throws Exception {
+    OutputWriter output = new OutputWriter(this.dir.toString() +
+        File.separator, 1, Long.MAX_VALUE);
+    output.close().get(TIMEOUT, TimeUnit.SECONDS);
+    Pipeline pipeline = new Pipeline(this.projection, new StreamConfig.Builder()
+        .build(), this::tagger, null, this.metrics, output);
+    CompletableFuture<String> tagged = pipeline.tag("d0", this.document(0));
+    assertEquals("d0", tagged.get(TIMEOUT, TimeUnit.SECONDS));
+    CompletableFuture<String> done = pipeline.submit(
+        this.write(this.document(1)));
+    assertFailed(done, RejectedExecutionException.class);
+    pipeline.finish().handle((v, ex) -> null).get(TIMEOUT, TimeUnit.SECONDS);
+    assertEquals(2, this.metrics.getDocuments());
+    assertEquals(0, this.metrics.getFailed());
+    assertEquals(0, this.metrics.getQueueDocuments());
+    assertEquals(0, this.metrics.getQueueBytes());
+  }
+
+  /**
+   * Check that a future completed exceptionally
+   * @param future - the future
+   * @param cause - the expected type of the exception
+   * @throws InterruptedException
+   */
+  private static void assertFailed(CompletableFuture<String> future,
+      Class<? extends Throwable> cause) throws InterruptedException {
+    try {
+      future.get();
+      fail("Document without a record was done");
+    } catch (ExecutionException e) {
+      assertTrue(e.getCause().toString(), cause.isInstance(e.getCause()));
+    }
+  }
+
+  /**
+   * Create a pipeline writing into the test directory
+   * @param config - stage sizes and byte budget
+   * @param taggers - creates the tagger of each annotating thread
+   * @return the pipeline
+   */
+  private Pipeline pipeline(StreamConfig.Builder config,
+      Supplier<docTagger> taggers) {
+    StreamConfig built = config.build();
+    return new Pipeline(this.projection, built, taggers, null, this.metrics,
+        new OutputWriter(this.dir.toString() + File.separator,
+            built.partitions(), built.rotate(), built.compressors()));
+  }
+
+  /**
+   * Create a tagger of the test dictionary
+   * @return the tagger
+   */
+  private docTagger tagger() {
+    return new docTagger(this.dict, null, this.projection, null);
+  }
+
+  /**
+   * Write a test document to an input file of the test directory
+   * @param content - the JSON document
+   * @return the file name
+   * @throws IOException
+   */
+  private String write(String content) throws IOException {
+    Path file = Files.createTempFile(this.dir, "in", ".json");
+    Files.write(file, content.getBytes(StandardCharsets.UTF_8));
+    return file.toString();
+  }
+
+  /**
+   * Create a test document
+   * @param i - number of the document
+   * @return the JSON document
+   */
+  private String document(int i) {
+    return "{\"file\": \"d" + i + ".json\", \"t\": \"court " + i + "\"}";
+  }
+
+  /**
+   * Read the records of every output file
+   * @return the records, in file order
+   * @throws IOException
+   */
+  private List<String> records() throws IOException {
+    List<String> records = new ArrayList<>();
+    for (Path file : this.files())
+      records.addAll(Files.readAllLines(file, StandardCharsets.UTF_8));
+    return records;
+  }
+
+  /**
+   * List the files of the test directory
+   * @return the files, sorted by name
+   * @throws IOException
+   */
+  private List<Path> files() throws IOException {
+    try (Stream<Path> files = Files.list(this.dir)) {
+      return files.sorted().collect(Collectors.toList());
+    }
+  }
+}
@@ -0,0 +1,327 @@
+/**
+ * Incremental re-tagging after a dictionary change.
+ * @author agent
+ * @since 10/17/2026
+ */
+package docTagger;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * A class that brings the output of an earlier run up to date with a new
+ * dictionary by tagging again only the documents the change can affect.
+ *
+ * The changed words are the words whose primary gloss or ignored status
+ * differs between the two dictionaries, including words only in one of them.
+ * A document is affected if the key index of the earlier run lists a changed
+ * word among the words it matched, or if one of its targeted fields contains
+ * a word that only the new dictionary has. Affected documents are tagged with
+ * the new dictionary, their records are replaced in the output files that hold
+ * them, and their lines in the key index are replaced. Output files without
+ * affected records are left as they are.
+ *
+ * The earlier run must have indexed its matched words with
+ * -DdocTagger.index=true; documents missing from the index are not touched.
+ */
+public class Retagger {
+  static final int NUM_ARGS = 3;
+  static final String RETAG_POST = ".retag"; // Suffix of files being written
+
+  private final Dictionary dict; // New dictionary
+  private final JsonProjection projection;
+  private final Set<String> changed; // Changed words
+  private final WordMatcher added; // Words only in the new dictionary
+  private final StringBuilder element;
+  private int[] hits;
+
+  /**
+   * Constructor
+   * @param oldDict - dictionary of the earlier run
+   * @param newDict - new dictionary
+   * @param projection - compiled targeted fields and case id
+   */
+  public Retagger(Dictionary oldDict, Dictionary newDict,
+      JsonProjection projection) {
+    this.dict = newDict;
+    this.projection = projection;
+    this.changed = diff(oldDict, newDict);
+    List<String> added = new ArrayList<>();
+    for (String word : this.changed) {
+      if (!oldDict.contains(word))
+        added.add(word);
+    }
+    this.added = added.isEmpty() ? null :
+        new WordMatcher(added, docTagger.INIT_WL);
+    this.element = new StringBuilder();
+    this.hits = new int[0];
+  }
+
+  /**
+   * Find the words whose tagging differs between two dictionaries
+   * @param oldDict - dictionary of the earlier run
+   * @param newDict - new dictionary
+   * @return words added, removed, or with another primary gloss or ignored
+   *         status
+   */
+  static Set<String> diff(Dictionary oldDict, Dictionary newDict) {
+    Set<String> changed = new HashSet<>();
+    for (int key = 0; key < oldDict.size(); key++) {
+      String word = oldDict.word(key);
+      int newKey = newDict.find(word, 0, word.length());
+      if (newKey == Dictionary.NOT_FOUND ||
+          !oldDict.gloss(key).equals(newDict.gloss(newKey)) ||
+          oldDict.isIgnored(key) != newDict.isIgnored(newKey))
+        changed.add(word);
+    }
+    for (int key = 0; key < newDict.size(); key++) {
+      String word = newDict.word(key);
+      if (!oldDict.contains(word))
+        changed.add(word);
+    }
+    return changed;
+  }
+
+  /**
+   * Getter for the changed words
+   * @return words whose tagging differs between the dictionaries
+   */
+  public Set<String> changed() {
+    return this.changed;
+  }
+
+  /**
+   * Tag the affected documents again and rewrite their records
+   * @param files - input file names of the earlier run
+   * @param readers - number of files read concurrently
+   * @return number of documents tagged again
+   * @throws IOException
+   * @throws InterruptedException
+   */
+  public int retag(List<String> files, int readers) throws IOException,
+      InterruptedException {
+    String indexName = docTagger.OUT_PATH + KeyIndex.FILE_NAME;
+    String deltaName = indexName + RETAG_POST;
+    Map<String, String[]> index = KeyIndex.load(indexName);
+    Map<String, String> records = new HashMap<>();
+
+    try (KeyIndex delta = new KeyIndex(deltaName);
+        DocumentReader reader = new DocumentReader(files, readers)) {
+      docTagger tagger = new docTagger(this.dict, null, this.projection, null);
+      tagger.setIndex(delta);
+      String content;
+      while ((content = reader.next()) != null) {
+        JsonProjection.Document document;
+        try {
+          document = this.projection.project(content);
+        } catch (IllegalArgumentException ex) {
+          continue; // Not tagged in the earlier run either
+        }
+        String id = docTagger.caseId(document);
+        if (id == null || !index.containsKey(id) ||
+            !this.isAffected(document, index.get(id)))
+          continue;
+        String record = tagger.tag(content);
+        if (record != null)
+          records.put(id, record);
+      }
+    }
+
+    /* Replace the index lines of the documents tagged again */
+    index.putAll(KeyIndex.load(deltaName));
+    Files.delete(Paths.get(deltaName));
+    try (KeyIndex updated = new KeyIndex(indexName + RETAG_POST)) {
+      for (Map.Entry<String, String[]> entry : index.entrySet())
+        updated.add(entry.getKey(), Arrays.asList(entry.getValue()));
+    }
+    Files.move(Paths.get(indexName + RETAG_POST), Paths.get(indexName),
+        StandardCopyOption.REPLACE_EXISTING);
+
+    int rewritten = 0;
+    if (!records.isEmpty()) {
+      for (File file : outputFiles()) {
+        if (rewrite(file.toPath(), records))
+          rewritten++;
+      }
+    }
+    System.out.println("Re-tagged " + records.size() + " documents, " +
+        "rewrote " + rewritten + " output files.");
+    return records.size();
+  }
+
+  /**
+   * Check whether a change of the dictionary can affect a document
+   * @param document - the projected document
+   * @param words - words the document matched in the earlier run
+   * @return true if the document has to be tagged again
+   */
+  private boolean isAffected(JsonProjection.Document document,
+      String[] words) {
+    for (String word : words) {
+      if (this.changed.contains(word))
+        return true;
+    }
+    if (this.added == null)
+      return false;
+    for (int i = 0; i < this.projection.size(); i++) {
+      if (!document.found(i))
+        continue;
+      if (this.projection.isDefinite(i)) {
+        if (this.containsAdded(document.value(i)))
+          return true;
+        continue;
+      }
+      JsonProjection.Elements elements = document.elements(i);
+      while (elements.next(this.element)) {
+        if (this.containsAdded(this.element))
+          return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Check whether a text contains a word only the new dictionary has
+   * @param text - text to scan
+   * @return true if an added word is found
+   */
+  private boolean containsAdded(CharSequence text) {
+    if (this.hits.length < text.length())
+      this.hits = new int[Math.max(text.length(), this.hits.length * 2)];
+    this.added.match(text, 0, text.length(), this.hits);
+    for (int i = 0; i < text.length(); i++) {
+      if (this.hits[i] != 0)
+        return true;
+    }
+    return false;
+  }
+
+  /**
+   * List the output files of the earlier run
+   * @return the output files
+   */
+  static List<File> outputFiles() {
+    String fmt = OutputWriter.PART_FMT;
+    File prefix = new File(docTagger.OUT_PATH +
+        fmt.substring(0, fmt.indexOf('%'))).getAbsoluteFile();
+    List<File> files = new ArrayList<>();
+    File[] candidates = prefix.getParentFile().listFiles();
+    if (candidates == null)
+      return files;
+    for (File file : candidates) {
+      if (file.getName().startsWith(prefix.getName()) &&
+          !file.getName().endsWith(RETAG_POST))
+        files.add(file);
+    }
+    return files;
+  }
+
+  /**
+   * Replace records in an output file, leaving the file untouched if it
+   * holds none of them
+   * @param file - the output file, gzip-compressed if its name says so
+   * @param records - new records by case id
+   * @return true if the file was rewritten
+   * @throws IOException
+   */
+  static boolean rewrite(Path file, Map<String, String> records)
+      throws IOException {
+    boolean gzip = file.toString().endsWith(OutputWriter.GZIP_POST);
+    Path temp = Paths.get(file + RETAG_POST);
+    boolean replaced = false;
+    try (BufferedReader reader = new BufferedReader(new InputStreamReader(
+        open(file, gzip), StandardCharsets.UTF_8));
+        Writer writer = new BufferedWriter(new OutputStreamWriter(
+            create(temp, gzip), StandardCharsets.UTF_8))) {
+      for (String line; (line = reader.readLine()) != null;) {
+        String id = docTagger.recordId(line);
+        String record = id == null ? null : records.get(id);
+        if (record != null)
+          replaced = true;
+        writer.append(record != null ? record : line).append('\n');
+      }
+    }
+    if (replaced)
+      Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING);
+    else
+      Files.delete(temp);
+    return replaced;
+  }
+
+  /**
+   * Open an output file for reading
+   * @param file - the file
+   * @param gzip - whether the file is gzip-compressed
+   * @return the records in the file
+   * @throws IOException
+   */
+  private static InputStream open(Path file, boolean gzip)
+      throws IOException {
+    InputStream in = Files.newInputStream(file);
+    return gzip ? new GZIPInputStream(in, OutputWriter.BATCH) : in;
+  }
+
+  /**
+   * Create an output file
+   * @param file - the file
+   * @param gzip - whether to gzip-compress the file
+   * @return the stream to write records to
+   * @throws IOException
+   */
+  private static OutputStream create(Path file, boolean gzip)
+      throws IOException {
+    OutputStream out = Files.newOutputStream(file);
+    return gzip ? new GZIPOutputStream(out, OutputWriter.BATCH) : out;
+  }
+
+  /**
+   * Driver of the re-tagger that updates the output of an earlier run of the
+   * Simulator in the working directory.
+   *
+   * @param args - command line arguments
+   *        args1 - dictionary of the earlier run
+   *        args2 - new dictionary
+   *        args3 - input directory of the earlier run
+   * @throws IOException
+   * @throws InterruptedException
+   */
+  public static void main(String[] args) throws IOException,
+      InterruptedException {
+    if(args.length != NUM_ARGS) throw new IllegalArgumentException();
+
+    long start = System.nanoTime();
+    Retagger retagger = new Retagger(
+        Dictionary.load(args[0], docTagger.INIT_WL),
+        Dictionary.load(args[1], docTagger.INIT_WL),
+        new JsonProjection(Simulator.FIELDS, Simulator.ID));
+    System.out.println("Dictionary diff: " + retagger.changed().size() +
+        " changed words.");
+    List<String> files = new ArrayList<>();
+    for (String name : new File(args[2]).list())
+      files.add(args[2] + "/" + name);
+    retagger.retag(files, StreamConfig.fromSystemProperties().readers());
+    long end = System.nanoTime();
+    System.out.println("Total time: " + (end - start) + " ns.");
+  }
+}
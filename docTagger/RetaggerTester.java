@@ -0,0 +1,85 @@
+/**
+ * Simple unit tests for the Retagger
+ * @author agent
+ * @since 10/17/2026
+ */
+package docTagger;
+
+import static org.junit.Assert.*;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+
+import org.junit.Test;
+
+public class RetaggerTester {
+  /**
+   * Test that added, removed and re-glossed words are changed, and that
+   * words with the same gloss are not
+   */
+  @Test
+  public void testDiff() {
+    Dictionary.Builder before = new Dictionary.Builder();
+    before.add("court", "fayuan");
+    before.add("ruling", "panjue");
+    before.add("plaintiff", "yuangao");
+    Dictionary.Builder after = new Dictionary.Builder();
+    after.add("court", "fayuan");
+    after.add("ruling", "caiding");
+    after.add("defendant", "beigao");
+    assertEquals(new HashSet<>(Arrays.asList("ruling", "plaintiff",
+        "defendant")),
+        Retagger.diff(before.build(docTagger.INIT_WL),
+            after.build(docTagger.INIT_WL)));
+  }
+
+  /**
+   * Test that only the records of the given cases are replaced
+   */
+  @Test
+  public void testRewrite() throws IOException {
+    Path file = Files.createTempFile("part", docTagger.OUT_POST);
+    String a = docTagger.serialize(new JsonProjection(Arrays.asList("$.t"),
+        "$.file"), "a", new String[] {"x"});
+    String b = a.replace("\"a\"", "\"b\"");
+    Files.write(file, (a + "\n" + b + "\n").getBytes(StandardCharsets.UTF_8));
+    assertTrue(Retagger.rewrite(file, Collections.singletonMap("b",
+        b.replace("x", "y"))));
+    assertEquals(Arrays.asList(a, b.replace("x", "y")), Files.readAllLines(
+        file, StandardCharsets.UTF_8));
+    assertFalse(Retagger.rewrite(file, Collections.singletonMap("c", "z")));
+    Files.delete(file);
+  }
+
+  /**
+   * Test that a record whose field holds a line break is replaced whole,
+   * leaving no stale line behind
+   */
+  @Test
+  public void testRewriteLineBreak() throws IOException {
+    Dictionary.Builder builder = new Dictionary.Builder();
+    builder.add("court", "fayuan");
+    JsonProjection projection = new JsonProjection(Arrays.asList(
+        "$.content"), "$.file");
+    docTagger tagger = new docTagger(builder.build(docTagger.INIT_WL), null,
+        projection, null);
+    String a = tagger.tag("{\"file\": \"a.json\", \"content\": " +
+        "\"line1\\ncourt\"}");
+    String b = tagger.tag("{\"file\": \"b.json\", \"content\": " +
+        "\"line1\\nline2\"}");
+    Path file = Files.createTempFile("part", docTagger.OUT_POST);
+    Files.write(file, (a + "\n" + b + "\n").getBytes(StandardCharsets.UTF_8));
+    String retagged = tagger.tag("{\"file\": \"a.json\", \"content\": " +
+        "\"line1\\ncourt\\nline3\"}");
+    assertTrue(Retagger.rewrite(file, Collections.singletonMap("a",
+        retagged)));
+    assertEquals(Arrays.asList(retagged, b), Files.readAllLines(file,
+        StandardCharsets.UTF_8));
+    Files.delete(file);
+  }
+}
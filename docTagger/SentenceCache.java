@@ -0,0 +1,158 @@
+/**
+ * Shared cache of tagged sentences.
+ * @author agent
+ * @since 10/17/2026
+ */
+package docTagger;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+
+/**
+ * A class that remembers the tagged form of sentences, so that boilerplate
+ * repeated across documents, such as procedural formulae, statute citations
+ * and party descriptions, is segmented only once.
+ *
+ * Sentences are keyed by their whole text: a lookup hashes the sentence and
+ * compares it with the cached one, so different sentences with the same hash
+ * never share an entry. The cache is bounded by the approximate number of
+ * bytes its keys and values take on the heap, and evicts the least recently
+ * used sentences first within each of its segments. It is safe to share
+ * between all workers.
+ *
+ * When the tagger indexes matched words, the dictionary ids of the words
+ * matched in a sentence are cached along with its tagged form.
+ *
+ * Sentences shorter than MIN_LENGTH are cheaper to tag than to look up, and
+ * sentences longer than MAX_LENGTH are unlikely to repeat, so neither is
+ * cached.
+ */
+public class SentenceCache {
+  static final int MIN_LENGTH = 8;
+  static final int MAX_LENGTH = 1024;
+  static final int ENTRY_OVERHEAD = 96; // Bytes of an entry and its strings
+
+  private final Cache<String, Tagged> cache;
+  private final long capacity;
+
+  /**
+   * Constructor
+   * @param capacity - maximum bytes of cached sentences
+   */
+  public SentenceCache(long capacity) {
+    this(capacity, Runtime.getRuntime().availableProcessors());
+  }
+
+  /**
+   * Constructor
+   * @param capacity - maximum bytes of cached sentences
+   * @param concurrency - number of independently locked segments, each
+   *        holding an equal share of the capacity
+   */
+  SentenceCache(long capacity, int concurrency) {
+    if (capacity < 1 || concurrency < 1)
+      throw new IllegalArgumentException("Invalid cache capacity");
+    this.capacity = capacity;
+    this.cache = CacheBuilder.newBuilder()
+        .concurrencyLevel(concurrency)
+        .maximumWeight(capacity)
+        .weigher((String key, Tagged value) -> weight(key, value.text) +
+            (value.keys == null ? 0 : value.keys.length * Integer.BYTES))
+        .recordStats()
+        .build();
+  }
+
+  /**
+   * Whether a sentence is worth caching
+   * @param length - length of the sentence
+   * @return true if the sentence may be cached
+   */
+  public static boolean isCacheable(int length) {
+    return length >= MIN_LENGTH && length <= MAX_LENGTH;
+  }
+
+  /**
+   * Get the tagged form of a sentence
+   * @param sentence - the sentence
+   * @return the tagged sentence, or null if it is not cached
+   */
+  public Tagged get(String sentence) {
+    return this.cache.getIfPresent(sentence);
+  }
+
+  /**
+   * Remember the tagged form of a sentence
+   * @param sentence - the sentence
+   * @param tagged - the tagged sentence
+   * @param keys - ids of the words matched in the sentence, may be null
+   */
+  public void put(String sentence, String tagged, int[] keys) {
+    this.cache.put(sentence, new Tagged(tagged, keys));
+  }
+
+  /**
+   * Getter for the hit and miss counts
+   * @return statistics since the cache was created
+   */
+  public CacheStats stats() {
+    return this.cache.stats();
+  }
+
+  @Override
+  public String toString() {
+    CacheStats stats = this.stats();
+    String rate = stats.requestCount() == 0 ? "n/a" : // Guava says 100%
+        String.format("%.1f%%", stats.hitRate() * 100);
+    return String.format("Sentence cache: %d hits, %d misses, %s hit " +
+        "rate, %d evictions, %d sentences in %d bytes.", stats.hitCount(),
+        stats.missCount(), rate, stats.evictionCount(), this.cache.size(),
+        this.capacity);
+  }
+
+  /**
+   * The tagged form of a sentence
+   */
+  public static class Tagged {
+    private final String text;
+    private final int[] keys;
+
+    /**
+     * Constructor
+     * @param text - the tagged sentence
+     * @param keys - ids of the words matched in the sentence, may be null
+     */
+    private Tagged(String text, int[] keys) {
+      this.text = text;
+      this.keys = keys;
+    }
+
+    /**
+     * Getter for the tagged sentence
+     * @return the tagged sentence
+     */
+    public String text() {
+      return this.text;
+    }
+
+    /**
+     * Getter for the matched words
+     * @return ids of the words matched in the sentence, null if they were
+     *         not recorded
+     */
+    public int[] keys() {
+      return this.keys;
+    }
+  }
+
+  /**
+   * Approximate heap size of an entry
+   * @param key - the sentence
+   * @param value - the tagged sentence
+   * @return bytes taken by the entry
+   */
+  static int weight(String key, String value) {
+    return (key.length() + value.length()) * Character.BYTES +
+        ENTRY_OVERHEAD;
+  }
+}
@@ -0,0 +1,76 @@
+/**
+ * Simple unit tests for the SentenceCache
+ * @author agent
+ * @since 10/17/2026
+ */
+package docTagger;
+
+import static org.junit.Assert.*;
+
+import org.junit.Before;
+import org.junit.Test;
+
+public class SentenceCacheTester {
+  private SentenceCache cache;
+
+  /**
+   * Set up testing fixture
+   *
+   * @throws Exception
+   */
+  @Before
+  public void setUp() throws Exception {
+    this.cache = new SentenceCache(SentenceCache.weight("abcdefgh",
+        "<a>abcdefgh</a>") * 2, 1);
+  }
+
+  /**
+   * Test that lookups are counted as hits and misses
+   */
+  @Test
+  public void testStats() {
+    assertNull(this.cache.get("abcdefgh"));
+    this.cache.put("abcdefgh", "<a>abcdefgh</a>", new int[] {1});
+    assertEquals("<a>abcdefgh</a>", this.cache.get("abcdefgh").text());
+    assertEquals(1, this.cache.get("abcdefgh").keys()[0]);
+    assertEquals(2, this.cache.stats().hitCount());
+    assertEquals(1, this.cache.stats().missCount());
+  }
+
+  /**
+   * Test that the summary of an unused cache gives no hit rate rather than a
+   * perfect one
+   */
+  @Test
+  public void testUnused() {
+    assertTrue(this.cache.toString(), this.cache.toString().contains(
+        " n/a hit rate"));
+    this.cache.get("abcdefgh");
+    assertTrue(this.cache.toString(), this.cache.toString().contains(
+        String.format(" %.1f%% hit rate", 0.0)));
+  }
+
+  /**
+   * Test that the least recently used sentence is evicted once the cache is
+   * over its size
+   */
+  @Test
+  public void testEviction() {
+    this.cache.put("abcdefgh", "<a>abcdefgh</a>", null);
+    this.cache.put("bcdefghi", "<b>bcdefghi</b>", null);
+    this.cache.get("abcdefgh");
+    this.cache.put("cdefghij", "<c>cdefghij</c>", null);
+    assertEquals("<a>abcdefgh</a>", this.cache.get("abcdefgh").text());
+    assertNull(this.cache.get("bcdefghi"));
+  }
+
+  /**
+   * Test that only sentences of a useful length are cached
+   */
+  @Test
+  public void testCacheable() {
+    assertFalse(SentenceCache.isCacheable(SentenceCache.MIN_LENGTH - 1));
+    assertTrue(SentenceCache.isCacheable(SentenceCache.MIN_LENGTH));
+    assertFalse(SentenceCache.isCacheable(SentenceCache.MAX_LENGTH + 1));
+  }
+}
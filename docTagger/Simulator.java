@@ -7,24 +7,45 @@
 package docTagger;
 
 import java.io.File;
-import java.util.ArrayList;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
 import java.util.Vector;
+import java.util.concurrent.CompletionException;
 
 /**
- * Simulate streaming environment and print out statistics.
+ * Simulate streaming environment and print out statistics. With
+ * -DdocTagger.load=true, documents are generated instead of read from a
+ * directory, see LoadGenerator and LoadConfig.
  */
 public class Simulator {
   static final int NUM_ARGS = 2;
+  static final int NUM_LOAD_ARGS = 1;
+  static final String LOAD = StreamConfig.PREFIX + "load"; //Load mode
   static final int CAP = 4021; //Capacity for the stream
+  static final List<String> FIELDS = Arrays.asList("$.statute",
+      "$.laws_full.*", "$.citations.*", "$.parties.*", "$.holding.*",
+      "$.facts.*", "$.decision.*"); //Targeted fields
+  static final String ID = "$.file"; //Case id
   
   /**
    * main method to perform the simulation.
    * @param args - command line arguments
    *        args1 - dictionary name
-   *        args2 - input directory
+   *        args2 - input directory, not given in load mode
    * @throws InterruptedException
    */
   public static void main(String[] args) throws InterruptedException {
+    if(Boolean.getBoolean(LOAD)) {
+      if(args.length != NUM_LOAD_ARGS) throw new IllegalArgumentException();
+      try {
+        new LoadGenerator(new StreamManager(),
+            LoadConfig.fromSystemProperties(), FIELDS, ID).run(args[0]);
+      } catch (IOException e) {
+        System.err.println("Dictionary not loaded: " + e);
+      }
+      return;
+    }
     if(args.length != NUM_ARGS) throw new IllegalArgumentException();
     
     long start = System.nanoTime();
@@ -44,15 +65,12 @@ public class Simulator {
     
     /* Merge all streams together */
     StreamManager mg = new StreamManager();
-    ArrayList<String> fields = new ArrayList<>();
-    fields.add("$.statute");
-    fields.add("$.laws_full.*");
-    fields.add("$.citations.*");
-    fields.add("$.parties.*");
-    fields.add("$.holding.*");
-    fields.add("$.facts.*");
-    fields.add("$.decision.*");
-    mg.process(fileStream, args[0], fields, "$.file"); //Start annotating files
+    try {
+      mg.process(fileStream, args[0], FIELDS, ID).join(); //Annotate files
+    } catch (CompletionException e) {
+      System.err.println("Run failed: " + e.getCause());
+      return;
+    }
     end = System.nanoTime();
     System.out.println("Total time: " + (end - start) + " ns.");
   }
@@ -0,0 +1,514 @@
+/**
+ * Runtime configuration of the StreamManager.
+ * @author agent
+ * @since 10/17/2026
+ */
+package docTagger;
+
+/**
+ * A class that holds the sizes of the tagging pipeline.
+ *
+ * Defaults are derived from the number of available processors: one worker
+ * per core, one reading thread per four cores, one parser and one serializer
+ * per four workers, a queue budget of a quarter of the maximum heap, and four
+ * uncompressed output partitions rotated at 256 MB. Compressed output is
+ * compressed by one thread per worker. The sentence cache and deduplication
+ * are off unless given a size, matched words are not indexed unless asked
+ * for, and the dictionary is not reloaded while running unless asked for.
+ * Documents of 64K characters or more have their fields split among the
+ * workers when there is more than one. Words are claimed with one pass over
+ * the sentence per word length, unless the single-pass engine is chosen.
+ * Every value can be overridden with a system property, for example
+ * -DdocTagger.workers=16, or set with a Builder.
+ */
+public class StreamConfig {
+  static final String PREFIX = "docTagger.";
+  static final String WORKERS = PREFIX + "workers";
+  static final String READERS = PREFIX + "readers";
+  static final String PARSERS = PREFIX + "parsers";
+  static final String SERIALIZERS = PREFIX + "serializers";
+  static final String BUDGET = PREFIX + "budget";
+  static final String PRELOAD = PREFIX + "preload";
+  static final String PARTITIONS = PREFIX + "partitions";
+  static final String ROTATE = PREFIX + "rotate";
+  static final String AUTO_TUNE = PREFIX + "autoTune";
+  static final String VIRTUAL = PREFIX + "virtual";
+  static final String COMPRESS = PREFIX + "compress";
+  static final String CACHE = PREFIX + "cache";
+  static final String DEDUP = PREFIX + "dedup";
+  static final String INDEX = PREFIX + "index";
+  static final String RELOAD = PREFIX + "reload";
+  static final String SPLIT = PREFIX + "split";
+  static final String ENGINE = PREFIX + "engine";
+  static final String MULTI_PASS = "multiPass";
+  static final String SINGLE_PASS = "singlePass";
+  static final int CORES_PER_READER = 4;
+  static final int WORKERS_PER_STAGE = 4; // Workers per parser or serializer
+  static final int PRELOAD_PER_WORKER = 10;
+  static final int HEAP_SHARE = 4; // Budget is 1/HEAP_SHARE of the heap
+  static final int PARTITIONS_DEFAULT = 4;
+  static final long ROTATE_DEFAULT = 256L << 20; // Bytes per output file
+  static final int SPLIT_DEFAULT = 1 << 16; // Characters of a split document
+
+  private final int workers;
+  private final int readers;
+  private final int parsers;
+  private final int serializers;
+  private final long budget;
+  private final int preload;
+  private final int partitions;
+  private final long rotate;
+  private final boolean autoTune;
+  private final boolean virtual;
+  private final boolean compress;
+  private final long cache;
+  private final long dedup;
+  private final boolean index;
+  private final boolean reload;
+  private final int split;
+  private final String engine;
+
+  /**
+   * Constructor
+   * @param builder - the values to hold
+   */
+  private StreamConfig(Builder builder) {
+    if (builder.workers < 1 || builder.readers < 1 || builder.parsers < 1 ||
+        builder.serializers < 1 || builder.budget < 1 || builder.preload < 0 ||
+        builder.partitions < 1 || builder.rotate < 1 || builder.cache < 0 ||
+        builder.dedup < 0 || builder.split < 0 ||
+        !(builder.engine.equals(MULTI_PASS) ||
+            builder.engine.equals(SINGLE_PASS)))
+      throw new IllegalArgumentException("Invalid configuration");
+    this.workers = builder.workers;
+    this.readers = builder.readers;
+    this.parsers = builder.parsers;
+    this.serializers = builder.serializers;
+    this.budget = builder.budget;
+    this.preload = builder.preload;
+    this.partitions = builder.partitions;
+    this.rotate = builder.rotate;
+    this.autoTune = builder.autoTune;
+    this.virtual = builder.virtual;
+    this.compress = builder.compress;
+    this.cache = builder.cache;
+    this.dedup = builder.dedup;
+    this.index = builder.index;
+    this.reload = builder.reload;
+    this.split = builder.split;
+    this.engine = builder.engine;
+  }
+
+  /**
+   * Build the configuration from the system properties, falling back to the
+   * defaults for this machine
+   * @return the configuration
+   */
+  public static StreamConfig fromSystemProperties() {
+    Builder defaults = new Builder();
+    int workers = Integer.getInteger(WORKERS, defaults.workers);
+    int helpers = Math.max(1, workers / WORKERS_PER_STAGE);
+    return new Builder()
+        .workers(workers)
+        .readers(Integer.getInteger(READERS, defaults.readers))
+        .parsers(Integer.getInteger(PARSERS, helpers))
+        .serializers(Integer.getInteger(SERIALIZERS, helpers))
+        .budget(Long.getLong(BUDGET, defaults.budget))
+        .preload(Integer.getInteger(PRELOAD, workers * PRELOAD_PER_WORKER))
+        .partitions(Integer.getInteger(PARTITIONS, defaults.partitions))
+        .rotate(Long.getLong(ROTATE, defaults.rotate))
+        .autoTune(Boolean.getBoolean(AUTO_TUNE))
+        .virtual(Boolean.getBoolean(VIRTUAL))
+        .compress(Boolean.getBoolean(COMPRESS))
+        .cache(Long.getLong(CACHE, defaults.cache))
+        .dedup(Long.getLong(DEDUP, defaults.dedup))
+        .index(Boolean.getBoolean(INDEX))
+        .reload(Boolean.getBoolean(RELOAD))
+        .split(Integer.getInteger(SPLIT, defaults.split))
+        .engine(System.getProperty(ENGINE, defaults.engine))
+        .build();
+  }
+
+  /**
+   * Getter for the number of workers
+   * @return number of tagging threads, the initial number when auto-tuning
+   */
+  public int workers() {
+    return this.workers;
+  }
+
+  /**
+   * Getter for the number of readers
+   * @return number of files read concurrently
+   */
+  public int readers() {
+    return this.readers;
+  }
+
+  /**
+   * Getter for the number of parsers
+   * @return number of threads locating fields in documents
+   */
+  public int parsers() {
+    return this.parsers;
+  }
+
+  /**
+   * Getter for the number of serializers
+   * @return number of threads formatting output records
+   */
+  public int serializers() {
+    return this.serializers;
+  }
+
+  /**
+   * Getter for the queue budget
+   * @return maximum bytes of documents waiting for the workers
+   */
+  public long budget() {
+    return this.budget;
+  }
+
+  /**
+   * Getter for the number of preloaded documents
+   * @return number of documents queued before workers start
+   */
+  public int preload() {
+    return this.preload;
+  }
+
+  /**
+   * Getter for the number of output partitions
+   * @return number of output files written at a time
+   */
+  public int partitions() {
+    return this.partitions;
+  }
+
+  /**
+   * Getter for the output rotation size
+   * @return size at which an output file is closed and the next one opened
+   */
+  public long rotate() {
+    return this.rotate;
+  }
+
+  /**
+   * Whether the number of workers is adjusted during a run
+   * @return true if auto-tuning
+   */
+  public boolean autoTune() {
+    return this.autoTune;
+  }
+
+  /**
+   * Whether each document runs as a virtual-thread task
+   * @return true for the virtual-thread mode
+   */
+  public boolean virtual() {
+    return this.virtual;
+  }
+
+  /**
+   * Whether the output files are gzip-compressed
+   * @return true for compressed output
+   */
+  public boolean compress() {
+    return this.compress;
+  }
+
+  /**
+   * Getter for the number of compressing threads
+   * @return one per worker for compressed output, 0 otherwise
+   */
+  public int compressors() {
+    return this.compress ? this.workers : 0;
+  }
+
+  /**
+   * Getter for the sentence cache size
+   * @return maximum bytes of cached tagged sentences, 0 for no cache
+   */
+  public long cache() {
+    return this.cache;
+  }
+
+  /**
+   * Getter for the deduplication size
+   * @return maximum bytes of annotations kept for repeated documents, 0 for
+   *         no deduplication
+   */
+  public long dedup() {
+    return this.dedup;
+  }
+
+  /**
+   * Whether the words matched in each document are indexed
+   * @return true if a key index is written next to the output
+   */
+  public boolean index() {
+    return this.index;
+  }
+
+  /**
+   * Whether the dictionary is reloaded while running
+   * @return true if a change of the dictionary file or the command "reload"
+   *         on the standard input swaps in the new dictionary
+   */
+  public boolean reload() {
+    return this.reload;
+  }
+
+  /**
+   * Getter for the size of a split document
+   * @return fewest characters in the targeted fields of a document whose
+   *         fields are annotated by several workers, 0 for never
+   */
+  public int split() {
+    return this.workers > 1 ? this.split : 0;
+  }
+
+  /**
+   * Whether words are claimed by the single-pass engine
+   * @return true to claim the words of a sentence in one pass over its
+   *         dictionary hits, false for one pass per word length
+   */
+  public boolean singlePass() {
+    return this.engine.equals(SINGLE_PASS);
+  }
+
+  @Override
+  public String toString() {
+    return "workers=" + this.workers + ", readers=" + this.readers +
+        ", parsers=" + this.parsers + ", serializers=" + this.serializers +
+        ", budget=" + this.budget + ", preload=" + this.preload +
+        ", partitions=" + this.partitions + ", rotate=" + this.rotate +
+        ", autoTune=" + this.autoTune + ", virtual=" + this.virtual +
+        ", compress=" + this.compress + ", cache=" + this.cache +
+        ", dedup=" + this.dedup + ", index=" + this.index +
+        ", reload=" + this.reload + ", split=" + this.split() +
+        ", engine=" + this.engine;
+  }
+
+  /**
+   * Builder of a configuration, starting from the defaults for this machine
+   */
+  public static class Builder {
+    private int workers;
+    private int readers;
+    private int parsers;
+    private int serializers;
+    private long budget;
+    private int preload;
+    private int partitions;
+    private long rotate;
+    private boolean autoTune;
+    private boolean virtual;
+    private boolean compress;
+    private long cache;
+    private long dedup;
+    private boolean index;
+    private boolean reload;
+    private int split;
+    private String engine;
+
+    /**
+     * Constructor
+     */
+    public Builder() {
+      int cores = Runtime.getRuntime().availableProcessors();
+      this.workers = cores;
+      this.readers = Math.max(1, cores / CORES_PER_READER);
+      this.parsers = Math.max(1, cores / WORKERS_PER_STAGE);
+      this.serializers = this.parsers;
+      this.budget = Runtime.getRuntime().maxMemory() / HEAP_SHARE;
+      this.preload = cores * PRELOAD_PER_WORKER;
+      this.partitions = PARTITIONS_DEFAULT;
+      this.rotate = ROTATE_DEFAULT;
+      this.split = SPLIT_DEFAULT;
+      this.engine = MULTI_PASS;
+    }
+
+    /**
+     * Setter for the number of workers
+     * @param workers - number of tagging threads
+     * @return this builder
+     */
+    public Builder workers(int workers) {
+      this.workers = workers;
+      return this;
+    }
+
+    /**
+     * Setter for the number of readers
+     * @param readers - number of files read concurrently
+     * @return this builder
+     */
+    public Builder readers(int readers) {
+      this.readers = readers;
+      return this;
+    }
+
+    /**
+     * Setter for the number of parsers
+     * @param parsers - number of threads locating fields in documents
+     * @return this builder
+     */
+    public Builder parsers(int parsers) {
+      this.parsers = parsers;
+      return this;
+    }
+
+    /**
+     * Setter for the number of serializers
+     * @param serializers - number of threads formatting output records
+     * @return this builder
+     */
+    public Builder serializers(int serializers) {
+      this.serializers = serializers;
+      return this;
+    }
+
+    /**
+     * Setter for the queue budget
+     * @param budget - maximum bytes of documents in flight
+     * @return this builder
+     */
+    public Builder budget(long budget) {
+      this.budget = budget;
+      return this;
+    }
+
+    /**
+     * Setter for the number of preloaded documents
+     * @param preload - number of documents queued before workers start
+     * @return this builder
+     */
+    public Builder preload(int preload) {
+      this.preload = preload;
+      return this;
+    }
+
+    /**
+     * Setter for the number of output partitions
+     * @param partitions - number of output files written at a time
+     * @return this builder
+     */
+    public Builder partitions(int partitions) {
+      this.partitions = partitions;
+      return this;
+    }
+
+    /**
+     * Setter for the output rotation size
+     * @param rotate - size at which an output file is closed
+     * @return this builder
+     */
+    public Builder rotate(long rotate) {
+      this.rotate = rotate;
+      return this;
+    }
+
+    /**
+     * Setter for the auto-tune mode
+     * @param autoTune - whether to adjust the number of workers during a run
+     * @return this builder
+     */
+    public Builder autoTune(boolean autoTune) {
+      this.autoTune = autoTune;
+      return this;
+    }
+
+    /**
+     * Setter for the virtual-thread mode
+     * @param virtual - whether to run each document as a virtual-thread task
+     * @return this builder
+     */
+    public Builder virtual(boolean virtual) {
+      this.virtual = virtual;
+      return this;
+    }
+
+    /**
+     * Setter for the compressed output mode
+     * @param compress - whether to gzip-compress the output files
+     * @return this builder
+     */
+    public Builder compress(boolean compress) {
+      this.compress = compress;
+      return this;
+    }
+
+    /**
+     * Setter for the sentence cache size
+     * @param cache - maximum bytes of cached tagged sentences, 0 for none
+     * @return this builder
+     */
+    public Builder cache(long cache) {
+      this.cache = cache;
+      return this;
+    }
+
+    /**
+     * Setter for the deduplication size
+     * @param dedup - maximum bytes of annotations kept for repeated
+     *        documents, 0 for none
+     * @return this builder
+     */
+    public Builder dedup(long dedup) {
+      this.dedup = dedup;
+      return this;
+    }
+
+    /**
+     * Setter for the key index mode
+     * @param index - whether to index the words matched in each document
+     * @return this builder
+     */
+    public Builder index(boolean index) {
+      this.index = index;
+      return this;
+    }
+
+    /**
+     * Setter for the hot reload mode
+     * @param reload - whether to reload the dictionary while running
+     * @return this builder
+     */
+    public Builder reload(boolean reload) {
+      this.reload = reload;
+      return this;
+    }
+
+    /**
+     * Setter for the size of a split document
+     * @param split - fewest characters in the targeted fields of a document
+     *        whose fields are annotated by several workers, 0 for never
+     * @return this builder
+     */
+    public Builder split(int split) {
+      this.split = split;
+      return this;
+    }
+
+    /**
+     * Setter for the word claiming engine
+     * @param engine - "multiPass" for one pass per word length, "singlePass"
+     *        for one pass over the dictionary hits
+     * @return this builder
+     */
+    public Builder engine(String engine) {
+      this.engine = engine;
+      return this;
+    }
+
+    /**
+     * Build the configuration
+     * @return the configuration
+     * @throws IllegalArgumentException if a value is out of range
+     */
+    public StreamConfig build() {
+      return new StreamConfig(this);
+    }
+  }
+}
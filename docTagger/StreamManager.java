@@ -6,43 +6,55 @@
 
 package docTagger;
 
-import java.io.FileInputStream;
-import java.io.FileNotFoundException;
 import java.io.IOException;
-import java.io.InputStreamReader;
-import java.nio.charset.StandardCharsets;
+import java.nio.ByteBuffer;
 import java.util.List;
-import java.util.Scanner;
+import java.util.Queue;
 import java.util.Vector;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
-import java.util.concurrent.LinkedBlockingQueue;
-
-import com.google.common.collect.*;
-import com.opencsv.*;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
 
 /**
  * A class that manages word matching tasks by dividing huge file stream into
  * smaller portion.
- * This program uses fixed number of sub-threads, and next portion of the file
- * stream will be processed once a thread is free.
+ * By default the files go through a staged pipeline. With auto-tuning, a
+ * changing number of sub-threads take the files from a shared queue, and next
+ * portion of the file stream will be processed once a thread is free. In the
+ * virtual-thread mode every file is a task of its own.
+ * In every mode, the fields of a large document are split among the threads
+ * of a fork/join pool the size of the workers.
+ * While a run is going, its metrics are published through JMX.
  */
 public class StreamManager {
-  static final int CHN_IDX = 2; //Index of Chinese word
-  static final int nThreads = 4; //Number of threads used
   static final Integer DONE = new Integer(1); //Result indicator
-  static final String DELI = "\\Z"; //File delimiter
   static final String END = "END";
-  static final int CAPACITY = 1000;
-  static final int SIZE = 40;
+  static final String VIRTUAL_FACTORY = "newVirtualThreadPerTaskExecutor";
   
-  private HashMultimap<String, String> dict;
+  private DictionaryReloader reloader; //Current dictionary and sentence cache
+  private StreamConfig config; //Pipeline sizes
+  private Deduplicator dedup; //Annotations of repeated documents, may be null
+  private KeyIndex index; //Matched words of each document, may be null
+  private Metrics metrics; //Counters of the current run
+  private FieldSplitter splitter; //Tags large documents in pieces, may be null
   
   /**
    * Constructor
    */
   StreamManager() {
-    this.dict = HashMultimap.create();
+    this(StreamConfig.fromSystemProperties());
+  }
+  
+  /**
+   * Constructor
+   * @param config - pipeline sizes
+   */
+  StreamManager(StreamConfig config) {
+    this.config = config;
   }
   
   /**
@@ -52,93 +64,350 @@ public class StreamManager {
    * @param dictName - dictionary name
    * @param fields - targeted fields
    * @param id - case id
+   * @return a handle that completes when all output is written, or
+   *         exceptionally if the dictionary cannot be loaded
    * @throws InterruptedException
    */
-  public void process(Vector<String> stream, String dictName,
-      List<String> fields, String id) throws InterruptedException {
+  public CompletableFuture<Void> process(Vector<String> stream,
+      String dictName, List<String> fields, String id)
+      throws InterruptedException {
+    JsonProjection projection;
+    try {
+      projection = this.prepare(dictName, fields, id);
+    } catch (IOException e) {
+      return this.fail(e);
+    }
+    CompletableFuture<Void> handle;
+    if(this.config.virtual())
+      handle = this.manageVirtual(stream, projection);
+    else if(this.config.autoTune()) {
+      final ExecutorService es = Executors.newCachedThreadPool();
+      handle = this.manageProcess(es, stream, projection);
+    } else
+      handle = this.managePipeline(stream, projection);
+    return this.complete(handle);
+  }
+  
+  /**
+   * Open a staged pipeline that the caller feeds with documents, such as the
+   * documents of a load generator
+   * @param dictName - dictionary name
+   * @param fields - targeted fields
+   * @param id - case id
+   * @param dedup - whether repeated documents may reuse earlier annotations
+   *        when deduplication is configured
+   * @return the pipeline, to be closed with close()
+   * @throws IOException if the dictionary cannot be loaded
+   */
+  public Pipeline open(String dictName, List<String> fields, String id,
+      boolean dedup) throws IOException {
+    JsonProjection projection;
+    try {
+      projection = this.prepare(dictName, fields, id);
+    } catch (IOException e) {
+      this.fail(e);
+      throw e;
+    }
+    if(!dedup && this.dedup != null) {
+      System.out.println("Deduplication is off for this pipeline.");
+      this.dedup = null;
+    }
+    return new Pipeline(projection, this.config,
+        () -> this.newTagger(null, projection, null, null), this.dedup,
+        this.metrics);
+  }
+  
+  /**
+   * Close a pipeline opened by open()
+   * @param pipeline - the pipeline
+   * @return a handle that completes when all output is written
+   */
+  public CompletableFuture<Void> close(Pipeline pipeline) {
+    return this.complete(pipeline.finish());
+  }
+  
+  /**
+   * Getter for the current dictionary
+   * @return the dictionary new documents are tagged with, null before a run
+   */
+  Dictionary dictionary() {
+    return this.reloader == null ? null : this.reloader.current().dict();
+  }
+  
+  /**
+   * Load the dictionary and create what the taggers share
+   * @param dictName - dictionary name
+   * @param fields - targeted fields
+   * @param id - case id
+   * @return the compiled targeted fields and case id
+   * @throws IOException if the dictionary cannot be loaded
+   */
+  private JsonProjection prepare(String dictName, List<String> fields,
+      String id) throws IOException {
+    /* Compile the field paths once for all workers */
+    JsonProjection projection = new JsonProjection(fields, id);
+    this.dedup = this.config.dedup() > 0 ?
+        new Deduplicator(projection, this.config.dedup()) : null;
+    this.index = this.config.index() ? this.openIndex() : null;
+    if(this.index != null && this.dedup != null) {
+      /* A reused annotation does not carry the words its document matched */
+      System.out.println("Deduplication is off while indexing matched words.");
+      this.dedup = null;
+    }
+    this.splitter = this.config.split() > 0 ? new FieldSplitter(
+        this.config.workers(), this.config.split()) : null;
+    this.metrics = new Metrics();
+    this.metrics.register();
     long start = System.nanoTime();
     this.loadDict(dictName);
     long end = System.nanoTime();
     System.out.println("Dictionary loaded in " + (end - start) + " ns.");
-    final ExecutorService es = Executors.newFixedThreadPool(nThreads);
-    this.manageProcess(es, stream, fields, id);
+    System.out.println("Configuration: " + this.config + ".");
+    return projection;
   }
   
   /**
-   * Load the whole dictionary to a hash multi-map
-   * 
-   * @param dictName - the dictionary file name
+   * Print the statistics of a run and release what the taggers shared once
+   * the run is done
+   * @param handle - completes when all output is written
+   * @return a handle that completes after the release
    */
-  private void loadDict(String dictName) {
-    InputStreamReader in;
-    CSVReader reader;
-    try { /* Read and hash to the multi-map */
-      in = new InputStreamReader(new FileInputStream(dictName),
-          StandardCharsets.UTF_8);
-      reader = new CSVReader(in);
-      String[] dictLine;
-      /* Use Chinese words as keys and English words as values */
-      while ((dictLine = reader.readNext()) != null) {
-        if (dictLine[1].contains("~"))
-          dictLine[0] = dictLine[1].replace("~", dictLine[0]);
-        if(dictLine[0].contains(" "))
-          dictLine[0] = dictLine[0].replace(" ", "-");
-        this.dict.put(dictLine[CHN_IDX], dictLine[0]);
+  private CompletableFuture<Void> complete(CompletableFuture<Void> handle) {
+    return handle.whenComplete((v, ex) -> {
+      SentenceCache cache = this.reloader == null ? null :
+          this.reloader.current().cache();
+      if(cache != null)
+        System.out.println(cache);
+      if(this.dedup != null)
+        System.out.println(this.dedup);
+      System.out.println(this.metrics);
+      this.metrics.unregister();
+      if(this.splitter != null)
+        this.splitter.close();
+      try {
+        if(this.reloader != null)
+          this.reloader.close();
+        if(this.index != null)
+          this.index.close();
+      } catch (IOException e) {
+        e.printStackTrace();
       }
-      reader.close();
+    });
+  }
+  
+  /**
+   * End a run whose dictionary cannot be loaded, releasing what was created
+   * for it
+   * @param cause - why the dictionary cannot be loaded
+   * @return a handle that completes exceptionally with the cause
+   */
+  private CompletableFuture<Void> fail(IOException cause) {
+    CompletableFuture<Void> failed = new CompletableFuture<>();
+    failed.completeExceptionally(cause);
+    return this.complete(failed);
+  }
+  
+  /**
+   * Open the key index next to the output files, replacing the index of an
+   * earlier run
+   * @return the key index, or null if it cannot be created
+   */
+  private KeyIndex openIndex() {
+    try {
+      return new KeyIndex(docTagger.OUT_PATH + KeyIndex.FILE_NAME);
     } catch (IOException e) {
       e.printStackTrace();
+      return null;
     }
   }
   
   /**
-   * Manage thread usage and assign tasks to available thread.
+   * Send every file through the staged pipeline
+   * @param stream - main file stream
+   * @param projection - compiled targeted fields and case id
+   * @return a handle that completes when all output is written
+   */
+  private CompletableFuture<Void> managePipeline(Vector<String> stream,
+      JsonProjection projection) {
+    Pipeline pipeline = new Pipeline(projection, this.config,
+        () -> this.newTagger(null, projection, null, null), this.dedup,
+        this.metrics);
+    for(String fileName : stream)
+      pipeline.submit(fileName);
+    return pipeline.finish();
+  }
+  
+  /**
+   * Load the whole dictionary, from either a CSV file or a compiled snapshot,
+   * and with hot reloading, watch the file and the standard input for reloads
+   * 
+   * @param dictName - the dictionary file name
+   * @throws IOException if the dictionary cannot be loaded or watched
+   */
+  private void loadDict(String dictName) throws IOException {
+    this.reloader = null;
+    this.reloader = new DictionaryReloader(dictName, this.config.cache(),
+        this.dedup);
+    if(this.config.reload()) {
+      this.reloader.listen(System.in);
+      this.reloader.watch();
+    }
+  }
+  
+  /**
+   * Manage thread usage and assign tasks to available thread, adjusting the
+   * number of workers with the auto-tuner.
    * @param e - task executor
+   * @param stream - main file stream
+   * @param projection - compiled targeted fields and case id
+   * @return a handle that completes when all workers have exited and all
+   *         output is written
    * @throws InterruptedException
    */
-  private void manageProcess(ExecutorService e, Vector<String> stream,
-      List<String> fields, String id) throws InterruptedException {
-    LinkedBlockingQueue<String> lbq = new LinkedBlockingQueue<>(CAPACITY);
+  private CompletableFuture<Void> manageProcess(ExecutorService e,
+      Vector<String> stream, JsonProjection projection)
+      throws InterruptedException {
+    ByteBudgetQueue lbq = new ByteBudgetQueue(this.config.budget());
+    OutputWriter output = this.newOutputWriter();
+    this.metrics.setQueue(lbq::size, lbq::bytes);
+    AutoTuner tuner;
     
-    int index = 0;
-    while(index < stream.size() && index < SIZE) {
-      Scanner sc;
-      try {
-        sc = new Scanner(new FileInputStream(stream.get(index)),
-            StandardCharsets.UTF_8.toString());
-        sc.useDelimiter(DELI);
-        lbq.put(sc.next());
-        sc.close();
-      } catch (FileNotFoundException ex) {
-        ex.printStackTrace();
+    try (DocumentReader reader = new DocumentReader(stream,
+        this.config.readers())) {
+      String document;
+      int index = 0;
+      while(index < this.config.preload() &&
+          (document = reader.next()) != null) {
+        lbq.put(document);
+        index++;
+      }
+      
+      if(!reader.hasNext())
+        lbq.put(END);
+      
+      /* Assign tasks to each thread */
+      tuner = new AutoTuner(this.config.workers(), e, t -> this.newTagger(
+          lbq, projection, output, t));
+      tuner.start();
+      
+      /* Read all files and send next file to available thread */
+      if(reader.hasNext()) {
+        while((document = reader.next()) != null)
+          lbq.put(document);
+        lbq.put(END);
       }
-      index++;
     }
+    System.out.println("Work queue peak: " + lbq.peakBytes() + " bytes, " +
+        lbq.peakSize() + " documents.");
     
-    if(index == stream.size())
-      lbq.put(END);
+    /* The tuner may add workers until the last one has exited */
+    return tuner.finished().thenCompose(v -> {
+      e.shutdown();
+      return output.close();
+    });
+  }
+  
+  /**
+   * Tag each document in its own virtual-thread task. A task blocks on
+   * reading its file without holding a core, then takes a permit of the CPU
+   * semaphore, which has one permit per worker, before annotating with one of
+   * the pooled taggers. The number of documents in flight is bounded by the
+   * preload count.
+   * @param stream - main file stream
+   * @param projection - compiled targeted fields and case id
+   * @return a handle that completes when all output is written
+   * @throws InterruptedException
+   */
+  private CompletableFuture<Void> manageVirtual(Vector<String> stream,
+      JsonProjection projection) throws InterruptedException {
+    OutputWriter output = this.newOutputWriter();
+    Semaphore cpu = new Semaphore(this.config.workers());
+    Semaphore inFlight = new Semaphore(Math.max(1, this.config.preload()));
+    this.metrics.setQueue(() -> Math.max(1, this.config.preload()) -
+        inFlight.availablePermits(), () -> 0);
+    Queue<docTagger> taggers = new ConcurrentLinkedQueue<>();
+    for(int i = 0; i < this.config.workers(); i++)
+      taggers.add(this.newTagger(null, projection, output, null));
     
-    /* Assign tasks to each thread */
-    for(int i = 0; i < nThreads; i++) {
-      e.execute(new docTagger(this.dict, lbq, fields, id));
+    BlockingQueue<ByteBuffer> buffers = DocumentReader.buffers(
+        this.config.readers());
+    ExecutorService es = newVirtualExecutor();
+    for(String fileName : stream) {
+      inFlight.acquire();
+      es.execute(() -> {
+        try {
+          String document = DocumentReader.read(fileName, buffers);
+          cpu.acquire();
+          docTagger tagger = taggers.remove();
+          try {
+            String str = tagger.tag(document);
+            if(str != null)
+              tagger.collect(str);
+          } finally {
+            taggers.add(tagger);
+            cpu.release();
+          }
+        } catch (IOException ex) {
+          ex.printStackTrace();
+        } catch (InterruptedException ex) {
+          Thread.currentThread().interrupt();
+        } finally {
+          inFlight.release();
+        }
+      });
     }
-    
-    /* Read all files and send next file to available thread */
-    while(index < stream.size()) {
-      Scanner sc;
-      try {
-        sc = new Scanner(new FileInputStream(stream.get(index)),
-            StandardCharsets.UTF_8.toString());
-        sc.useDelimiter(DELI);
-        lbq.put(sc.next());
-        sc.close();
-      } catch (FileNotFoundException ex) {
-        ex.printStackTrace();
-      }
-      index++;
+    es.shutdown();
+    es.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+    return output.close();
+  }
+  
+  /**
+   * Create a tagger sharing the current dictionary and sentence cache, the
+   * deduplicator and the key index
+   * @param lbq - queue of documents, null if documents are handed over
+   * @param projection - compiled targeted fields and case id
+   * @param output - shared writer of tagged documents
+   * @param tuner - auto-tuner of the worker, may be null
+   * @return the tagger
+   */
+  private docTagger newTagger(ByteBudgetQueue lbq, JsonProjection projection,
+      OutputWriter output, AutoTuner tuner) {
+    docTagger tagger = new docTagger(this.reloader.current().dict(), lbq,
+        projection, output, tuner);
+    tagger.setReloader(this.reloader);
+    tagger.setDeduplicator(this.dedup);
+    tagger.setIndex(this.index);
+    tagger.setMetrics(this.metrics);
+    tagger.setSplitter(this.splitter);
+    tagger.setSinglePass(this.config.singlePass());
+    return tagger;
+  }
+
+  /**
+   * Create the single writer shared by all workers
+   * @return the output writer
+   */
+  private OutputWriter newOutputWriter() {
+    OutputWriter output = new OutputWriter(docTagger.OUT_PATH,
+        this.config.partitions(), this.config.rotate(),
+        this.config.compressors());
+    this.metrics.setOutput(output::written);
+    return output;
+  }
+  
+  /**
+   * Create an executor that starts a virtual thread for each task, falling
+   * back to a cached pool of platform threads on runtimes without them
+   * @return the executor
+   */
+  static ExecutorService newVirtualExecutor() {
+    try {
+      return (ExecutorService) Executors.class.getMethod(VIRTUAL_FACTORY)
+          .invoke(null);
+    } catch (ReflectiveOperationException ex) {
+      System.err.println("Virtual threads are not available, using a cached " +
+          "thread pool.");
+      return Executors.newCachedThreadPool();
     }
-    lbq.put(END);
-    
-    e.shutdown();
   }
-}
\ No newline at end of file
+}
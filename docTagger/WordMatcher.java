@@ -0,0 +1,240 @@
+/**
+ * Compiled multi-pattern matcher for dictionary words.
+ * @author agent
+ * @since 10/17/2026
+ */
+package docTagger;
+
+import java.io.IOException;
+import java.nio.CharBuffer;
+import java.nio.IntBuffer;
+import java.util.Arrays;
+import java.util.Collection;
+
+/**
+ * An Aho-Corasick automaton compiled from the keys of the dictionary.
+ *
+ * A single left-to-right scan of a sentence reports every dictionary word that
+ * occurs in it, so the tagger no longer needs to cut and hash a substring for
+ * each candidate position and word length. Hits are reported as a bitmask of
+ * word lengths per start position: bit L of hits[j] is set if and only if the
+ * word of length L starting at j is in the dictionary.
+ *
+ * The trie is flattened in breadth-first order; the children of every node are
+ * stored contiguously and sorted by character so that a transition is a binary
+ * search. Transitions out of the root, which has by far the most children, use
+ * a direct lookup table instead.
+ *
+ * All tables are kept in primitive buffers, which either wrap heap arrays or
+ * point into a memory-mapped dictionary snapshot. Reads only use absolute
+ * gets, so one instance can be shared by all workers.
+ */
+public class WordMatcher {
+  static final int MAX_LENGTH = Integer.SIZE - 1; // Longest word in a mask
+  static final int ROOT = 0;
+  static final int INIT_CAP = 1024;
+
+  private final int maxLength;
+  private final IntBuffer rootNext; // Transitions out of the root
+  private final IntBuffer edgeBase; // First edge of each node, nodes + 1
+  private final CharBuffer edgeChars; // Edge labels, sorted within each node
+  private final IntBuffer edgeTargets; // Edge target nodes
+  private final IntBuffer fail; // Failure links
+  private final IntBuffer lengths; // Lengths of all words ending at each node
+
+  /**
+   * Constructor
+   * @param words - dictionary words to match
+   * @param maxLength - the length of the longest word to match, words longer
+   *        than this are ignored
+   */
+  public WordMatcher(Collection<String> words, int maxLength) {
+    if(maxLength < 1 || maxLength > MAX_LENGTH)
+      throw new IllegalArgumentException("Invalid word length " + maxLength);
+    this.maxLength = maxLength;
+
+    String[] sorted = words.stream().filter(w -> !w.isEmpty() &&
+        w.length() <= maxLength).sorted().toArray(String[]::new);
+
+    /*
+     * Build a linked trie first. Keys are inserted in sorted order, so the only
+     * child of a node that can share a prefix with the next key is the child
+     * added last, and children end up in ascending order of their labels.
+     */
+    int[] firstChild = new int[INIT_CAP];
+    int[] lastChild = new int[INIT_CAP];
+    int[] sibling = new int[INIT_CAP];
+    char[] label = new char[INIT_CAP];
+    boolean[] terminal = new boolean[INIT_CAP];
+    Arrays.fill(firstChild, -1);
+    Arrays.fill(lastChild, -1);
+    Arrays.fill(sibling, -1);
+    int nodes = 1;
+    for (String word : sorted) {
+      int node = ROOT;
+      for (int i = 0; i < word.length(); i++) {
+        char c = word.charAt(i);
+        int child = lastChild[node];
+        if (child < 0 || label[child] != c) {
+          if (nodes == label.length) {
+            int cap = nodes * 2;
+            firstChild = grow(firstChild, cap);
+            lastChild = grow(lastChild, cap);
+            sibling = grow(sibling, cap);
+            label = Arrays.copyOf(label, cap);
+            terminal = Arrays.copyOf(terminal, cap);
+          }
+          child = nodes++;
+          label[child] = c;
+          if (lastChild[node] < 0)
+            firstChild[node] = child;
+          else
+            sibling[lastChild[node]] = child;
+          lastChild[node] = child;
+        }
+        node = child;
+      }
+      terminal[node] = true;
+    }
+
+    /* Renumber nodes in breadth-first order with contiguous children */
+    int[] order = new int[nodes]; // New id to old id
+    int[] depth = new int[nodes];
+    int[] edgeBase = new int[nodes + 1];
+    char[] edgeChars = new char[nodes - 1];
+    int[] edgeTargets = new int[nodes - 1];
+    int tail = 1;
+    for (int head = 0; head < nodes; head++) {
+      edgeBase[head] = tail - 1;
+      for (int c = firstChild[order[head]]; c >= 0; c = sibling[c]) {
+        edgeChars[tail - 1] = label[c];
+        edgeTargets[tail - 1] = tail;
+        depth[tail] = depth[head] + 1;
+        order[tail++] = c;
+      }
+    }
+    edgeBase[nodes] = nodes - 1;
+    this.edgeBase = IntBuffer.wrap(edgeBase);
+    this.edgeChars = CharBuffer.wrap(edgeChars);
+    this.edgeTargets = IntBuffer.wrap(edgeTargets);
+
+    int[] rootNext = new int[Character.MAX_VALUE + 1];
+    for (int e = edgeBase[ROOT]; e < edgeBase[ROOT + 1]; e++)
+      rootNext[edgeChars[e]] = edgeTargets[e];
+    this.rootNext = IntBuffer.wrap(rootNext);
+
+    /* Failure links and output masks, parents are always visited first */
+    int[] fail = new int[nodes];
+    int[] lengths = new int[nodes];
+    this.fail = IntBuffer.wrap(fail);
+    this.lengths = IntBuffer.wrap(lengths);
+    for (int node = 0; node < nodes; node++) {
+      for (int e = edgeBase[node]; e < edgeBase[node + 1]; e++) {
+        int child = edgeTargets[e];
+        fail[child] = node == ROOT ? ROOT : this.next(fail[node], edgeChars[e]);
+        lengths[child] = lengths[fail[child]];
+        if (terminal[order[child]])
+          lengths[child] |= 1 << depth[child];
+      }
+    }
+  }
+
+  /**
+   * Read a matcher from a dictionary snapshot
+   * @param in - snapshot reader
+   * @throws IOException
+   */
+  WordMatcher(DictionarySnapshot.Reader in) throws IOException {
+    this.maxLength = in.getInt();
+    if(this.maxLength < 1 || this.maxLength > MAX_LENGTH)
+      throw new IOException("Invalid word length " + this.maxLength);
+    this.rootNext = in.getInts();
+    this.edgeBase = in.getInts();
+    this.edgeChars = in.getChars();
+    this.edgeTargets = in.getInts();
+    this.fail = in.getInts();
+    this.lengths = in.getInts();
+  }
+
+  /**
+   * Write the matcher to a dictionary snapshot
+   * @param out - snapshot writer
+   * @throws IOException
+   */
+  void write(DictionarySnapshot.Writer out) throws IOException {
+    out.putInt(this.maxLength);
+    out.putInts(this.rootNext);
+    out.putInts(this.edgeBase);
+    out.putChars(this.edgeChars);
+    out.putInts(this.edgeTargets);
+    out.putInts(this.fail);
+    out.putInts(this.lengths);
+  }
+
+  /**
+   * Getter for the length of the longest word to match
+   * @return the maximum word length
+   */
+  public int maxLength() {
+    return this.maxLength;
+  }
+
+  /**
+   * Find all dictionary words in text[from, to) in one scan.
+   * @param text - text to scan
+   * @param from - start index, inclusive
+   * @param to - end index, exclusive
+   * @param hits - output array with at least (to - from) entries; bit L of
+   *        hits[j] is set if a word of length L starts at from + j
+   */
+  public void match(CharSequence text, int from, int to, int[] hits) {
+    Arrays.fill(hits, 0, to - from, 0);
+    int state = ROOT;
+    for (int i = from; i < to; i++) {
+      state = this.next(state, text.charAt(i));
+      int mask = this.lengths.get(state);
+      while (mask != 0) {
+        int len = Integer.numberOfTrailingZeros(mask);
+        hits[i - from - len + 1] |= 1 << len;
+        mask &= mask - 1;
+      }
+    }
+  }
+
+  /**
+   * Follow the transition on a character, falling back along failure links
+   * @param state - current state
+   * @param c - next character
+   * @return next state
+   */
+  private int next(int state, char c) {
+    while (state != ROOT) {
+      int lo = this.edgeBase.get(state);
+      int hi = this.edgeBase.get(state + 1) - 1;
+      while (lo <= hi) {
+        int mid = (lo + hi) >>> 1;
+        char label = this.edgeChars.get(mid);
+        if (label < c)
+          lo = mid + 1;
+        else if (label > c)
+          hi = mid - 1;
+        else
+          return this.edgeTargets.get(mid);
+      }
+      state = this.fail.get(state);
+    }
+    return this.rootNext.get(c);
+  }
+
+  /**
+   * Grow an index array, filling new slots with -1
+   * @param array - array to grow
+   * @param cap - new capacity
+   * @return grown array
+   */
+  private static int[] grow(int[] array, int cap) {
+    int[] grown = Arrays.copyOf(array, cap);
+    Arrays.fill(grown, array.length, cap, -1);
+    return grown;
+  }
+}
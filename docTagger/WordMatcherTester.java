@@ -0,0 +1,58 @@
+/**
+ * Simple unit tests for the WordMatcher
+ * @author agent
+ * @since 10/17/2026
+ */
+package docTagger;
+
+import static org.junit.Assert.*;
+
+import java.util.Arrays;
+
+import org.junit.Before;
+import org.junit.Test;
+
+public class WordMatcherTester {
+  private WordMatcher matcher;
+
+  /**
+   * Set up testing fixture
+   *
+   * @throws Exception
+   */
+  @Before
+  public void setUp() throws Exception {
+    this.matcher = new WordMatcher(Arrays.asList("ab", "abcd", "bc", "c",
+        "bcde", "abcdefghijklm"), 12);
+  }
+
+  /**
+   * Test that overlapping words and words found through failure links are
+   * all reported at their start positions
+   */
+  @Test
+  public void testMatch() {
+    int[] hits = new int[6];
+    this.matcher.match("xabcde", 0, 6, hits);
+    assertEquals(0, hits[0]);
+    assertEquals((1 << 2) | (1 << 4), hits[1]);
+    assertEquals((1 << 2) | (1 << 4), hits[2]);
+    assertEquals(1 << 1, hits[3]);
+    assertEquals(0, hits[4]);
+    assertEquals(0, hits[5]);
+  }
+
+  /**
+   * Test matching a window of a longer text, and that words longer than the
+   * maximum length are ignored
+   */
+  @Test
+  public void testWindow() {
+    int[] hits = { -1, -1, -1, -1 };
+    this.matcher.match("abcdefghijklm", 1, 4, hits);
+    assertEquals(1 << 2, hits[0]);
+    assertEquals(1 << 1, hits[1]);
+    assertEquals(0, hits[2]);
+    assertEquals(-1, hits[3]);
+  }
+}
@@ -7,32 +7,23 @@ package docTagger;
 
 import java.io.File;
 import java.io.FileInputStream;
-import java.io.FileNotFoundException;
 import java.io.FileOutputStream;
 import java.io.IOException;
-import java.io.InputStreamReader;
 import java.io.OutputStreamWriter;
 import java.io.PrintWriter;
-import java.io.UnsupportedEncodingException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
 import java.util.List;
 import java.util.Scanner;
-import java.util.Set;
-import java.util.concurrent.LinkedBlockingQueue;
-
-import com.google.common.collect.*;
-import com.jayway.jsonpath.DocumentContext;
-import com.jayway.jsonpath.JsonPath;
-import com.opencsv.*;
-
-import net.minidev.json.JSONArray;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * A class that implement a document tagger (tag Chinese words with their
- * English meaning) using a hash multi-map and self-balanced interval search
- * tree.
+ * English meaning) using an immutable dictionary, a compiled word matcher and a
+ * flat occupancy map of matched words.
  */
 public class docTagger implements Runnable {
-  static final int CHN_IDX = 2;
   static final int OUTPUT_IDX = 2;
   static final int FREQ_CAP = 35; // The size of frequency array
   static final int NUM_ARGS = 3;
@@ -40,10 +31,11 @@ public class docTagger implements Runnable {
   static final int MUL = 2;
   static final int INIT_WL = 12;
   static final int EXT_LENGTH = 4;
-  static final int BUF_SIZ = 1000000;
+  static final int ERR_CONTEXT = 80; // Length of a document shown in errors
+  static final int RECORD_CAP = 1 << 22; // Largest record buffer kept
   
   static final String FMT = "UTF-8";
-  static final String DELI = "(?<=)";
+  static final String STOP = ""; // Sentence delimiter
   static final String TAG = "<%s>%s</%s>"; // Tag formatter
   static final String OUT_PREFIX = "out";
   static final String OUT_PATH = "output\\";
@@ -51,7 +43,6 @@ public class docTagger implements Runnable {
   static final String LAW_CHN = "";
   static final String LAW_CHN_Q = "";
   static final String LAW_ENG = "-law";
-  static final String IGNORE = ".-.-.";
   static final String FILE = "file";
   static final String ERR_MSG = "Field %s not found in file %s";
   static final String JOBJFMT =
@@ -59,51 +50,158 @@ public class docTagger implements Runnable {
   static final String JARRAYFMT =
       "\"JSONARRAY\": [\"%s\": \"%s\", \"content\": %s]";
   static final String END = "END";
+  static final String[] JOBJ_PARTS = JOBJFMT.split("%s", -1);
+  static final String[] JARRAY_PARTS = JARRAYFMT.split("%s", -1);
 
-  private HashMultimap<String, String> dict;
+  private Dictionary dict;
+  private int[] hits; // Bitmask of matched word lengths at each position
+  private CoverageMap coverage; // Positions claimed by matched words
   //private int[] freq; // Array that stores the frequency of word lengths
-  private LinkedBlockingQueue<String> lbq;
-  private List<String> fields;
-  private String id;
+  private ByteBudgetQueue lbq;
+  private JsonProjection projection; // Targeted fields and case id
+  private AutoTuner tuner; // Adjusts the number of workers, may be null
+  private StringBuilder element; // Buffer of the current array element
+  private StringBuilder sentence; // Buffer of the current tagged sentence
+  private StringBuilder record; // Buffer of the current output record
+  private OutputWriter output; // Shared writer of tagged documents
+  private String filename; // Case id of the last tagged document
+  private SentenceCache cache; // Shared tagged sentences, may be null
+  private Deduplicator dedup; // Annotations of repeated documents, may be null
+  private KeyIndex index; // Matched words of each document, may be null
+  private DictionaryReloader reloader; // Source of the dictionary, may be null
+  private BitSet matched; // Words matched in the current document
+  private int[] keys; // Same words, in the order they were first matched
+  private int keyCount;
+  private int[] sentenceKeys; // Words matched in the current sentence
+  private int sentenceKeyCount;
+  private Metrics metrics; // Counters of the run, may be null
+  private Metrics.Worker worker; // Busy time of this tagger, may be null
+  private long lookups; // Dictionary lookups since the last report
+  private long found; // Words found by those lookups
+  private FieldSplitter splitter; // Tags large documents in pieces, may be null
+  private boolean singlePass; // Claims words in one pass over the hits
+  private int[] bucketEnds; // End of the hits of each length
+  private int[] candidates; // Starts of the hits, longest first
 
   /**
    * Constructor
    * @param dict - dictionary
-   * @param content - file content
-   * @param id - process id
+   * @param lbq - queue of documents
+   * @param projection - compiled targeted fields and case id
+   * @param output - shared writer of tagged documents
    */
-  public docTagger(HashMultimap<String, String> dict,
-      LinkedBlockingQueue<String> lbq, List<String> fields, String id) {
+  public docTagger(Dictionary dict, ByteBudgetQueue lbq,
+      JsonProjection projection, OutputWriter output) {
+    this(dict, lbq, projection, output, null);
+  }
+
+  /**
+   * Constructor
+   * @param dict - dictionary
+   * @param lbq - queue of documents
+   * @param projection - compiled targeted fields and case id
+   * @param output - shared writer of tagged documents
+   * @param tuner - auto-tuner that measures and retires this worker
+   */
+  public docTagger(Dictionary dict, ByteBudgetQueue lbq,
+      JsonProjection projection, OutputWriter output, AutoTuner tuner) {
     this.dict = dict;
+    this.hits = new int[0];
+    this.coverage = new CoverageMap();
     this.lbq = lbq;
-    this.fields = fields;
-    this.id = id;
+    this.projection = projection;
+    this.output = output;
+    this.tuner = tuner;
+    this.element = new StringBuilder();
+    this.sentence = new StringBuilder();
+    this.record = new StringBuilder();
+    this.matched = new BitSet();
+    this.keys = new int[INIT_WL];
+    this.sentenceKeys = new int[INIT_WL];
+    this.bucketEnds = new int[INIT_WL + 1];
+    this.candidates = new int[0];
     //this.freq = new int[FREQ_CAP];
   }
 
   /**
-   * Load the whole dictionary to a hash multi-map
+   * Setter for the sentence cache
+   * @param cache - tagged sentences shared by all workers, null for none
+   */
+  public void setCache(SentenceCache cache) {
+    this.cache = cache;
+  }
+
+  /**
+   * Setter for the deduplicator
+   * @param dedup - annotations shared by copies of a document, null for none
+   */
+  public void setDeduplicator(Deduplicator dedup) {
+    this.dedup = dedup;
+  }
+
+  /**
+   * Setter for the key index
+   * @param index - index of the words matched in each document, null for none
+   */
+  public void setIndex(KeyIndex index) {
+    this.index = index;
+  }
+
+  /**
+   * Setter for the dictionary reloader
+   * @param reloader - source of the dictionary and sentence cache of each
+   *        document, null to keep the dictionary given at construction
+   */
+  public void setReloader(DictionaryReloader reloader) {
+    this.reloader = reloader;
+  }
+
+  /**
+   * Setter for the metrics
+   * @param metrics - counters of the run, null for none
+   */
+  public void setMetrics(Metrics metrics) {
+    this.metrics = metrics;
+    this.worker = metrics == null ? null : metrics.worker();
+  }
+
+  /**
+   * Setter for the field splitter
+   * @param splitter - annotates the fields of large documents on several
+   *        threads, null to annotate every document on this thread
+   */
+  public void setSplitter(FieldSplitter splitter) {
+    this.splitter = splitter;
+  }
+
+  /**
+   * Setter for the word claiming engine
+   * @param singlePass - true to claim the words of a sentence in one pass
+   *        over its dictionary hits, false for one pass per word length
+   */
+  public void setSinglePass(boolean singlePass) {
+    this.singlePass = singlePass;
+  }
+
+  /**
+   * Take the current dictionary and sentence cache for the next document
+   */
+  private void pin() {
+    if (this.reloader == null)
+      return;
+    DictionaryReloader.Snapshot snapshot = this.reloader.current();
+    this.dict = snapshot.dict();
+    this.cache = snapshot.cache();
+  }
+
+  /**
+   * Load the whole dictionary, from either a CSV file or a compiled snapshot
    * 
    * @param dictName - the dictionary file name
    */
   public void loadDict(String dictName) {
-    InputStreamReader in;
-    CSVReader reader;
-    try { /* Read and hash to the multi-map */
-      in = new InputStreamReader(new FileInputStream(dictName), FMT);
-      reader = new CSVReader(in);
-      String[] dictLine;
-      /* Use Chinese words as keys and English words as values */
-      while ((dictLine = reader.readNext()) != null) {
-        if (dictLine[1].contains("~"))
-          dictLine[0] = dictLine[1].replace("~", dictLine[0]);
-        if(dictLine[0].contains(" "))
-          dictLine[0] = dictLine[0].replace(" ", "-");
-        this.dict.put(dictLine[CHN_IDX], dictLine[0]);
-        /* Update frequency in terms of word lengths */
-        //freq[dictLine[CHN_IDX].length()]++;
-      }
-      reader.close();
+    try {
+      this.dict = Dictionary.load(dictName, INIT_WL);
     } catch (IOException e) {
       e.printStackTrace();
     }
@@ -135,101 +233,18 @@ public class docTagger implements Runnable {
        * Note: still need to think about how to process segments May be need to
        * split by "," as well
        */
-      String[] content = sc.next().split("");
+      String[] content = sc.next().split(STOP);
       sc.close();
       PrintWriter writer = new PrintWriter(new OutputStreamWriter(new
           FileOutputStream(outFile), FMT));
-      int wordLength = n;
+      StringBuilder builder = new StringBuilder();
 
       /* Iterate through all sentences */
       for (int i = 0; i < content.length; i++) {
-        IntervalTree<IndexInterval> ist = new IntervalTree<>();
-        int endIndex = 0;
-        wordLength = n;
-
-        /* First round word matching using the word length n */
-        for (int j = 0; j < content[i].length();) {
-          endIndex = j + wordLength - 1;
-          if (endIndex >= content[i].length())
-            break;
-
-          /* Word matching */
-          if (this.dict.containsKey(content[i].substring(j, endIndex + 1))) {
-            /* Mark interval */
-            ist.insert(new IndexInterval(j, endIndex));
-            j = endIndex + 1; // Get next index
-          } else {
-            j++;
-          }
-        }
-        wordLength--; // Ready to match word with shorter length
-
-        int nextPos;
-        for (; wordLength > 1; wordLength--) { // Try matching all words until
-                                               // the length 2
-          /* Start from the first available position */
-          for (int j = ist.nextAvailable(new IndexInterval(0, wordLength - 1));
-              j < content[i].length();) {
-            endIndex = j + wordLength - 1;
-            if (endIndex >= content[i].length())
-              break;
-
-            nextPos = ist.nextAvailable(new IndexInterval(j, endIndex)); // Check
-                                                                         // overlap
-            if (j == nextPos) { // No overlap found
-              /* Word matching */
-              if (this.dict.containsKey(content[i].substring(j, endIndex + 1))) {
-                /* Mark interval */
-                ist.insert(new IndexInterval(j, endIndex));
-                j = endIndex + 1; // Get next index
-              } else {
-                j++;
-              }
-            } else
-              j = nextPos; // Try next available position
-          }
-        }
-
-        /* Start output */
-        Set<String> matchWords;
-        String enWord;
-        String cnWord;
-        for (int j = 0; j < content[i].length();) {
-          nextPos = ist.nextAvailable(new IndexInterval(j, j));
-          if (nextPos == j) { // Single character is not matched yet
-            matchWords = this.dict.get(content[i].charAt(j) + "");
-            /* No match found */
-            if (matchWords.isEmpty())
-              writer.print(content[i].charAt(j));
-            else {
-              /* Get the first match */
-              enWord = (String) matchWords.toArray()[0];
-              writer.print(String.format(TAG, enWord, content[i].charAt(j), enWord));
-            }
-            j++;
-          } else {
-            /* Obtain the Chinese word */
-            cnWord = content[i].substring(j, nextPos);
-            matchWords = this.dict.get(cnWord);
-            /* Special case for law */
-            if(nextPos + LAW_LNG < content[i].length() &&
-                (content[i].substring(nextPos, nextPos +
-                    LAW_LNG).equals(LAW_CHN) || content[i].substring(nextPos,
-                        nextPos + LAW_LNG).equals(LAW_CHN_Q))) {
-              cnWord = content[i].substring(j, nextPos + 1);
-              enWord = (String) matchWords.toArray()[0] + LAW_ENG;
-              nextPos++;
-            }
-            else
-              enWord = (String) matchWords.toArray()[0];
-            if(!enWord.contains(IGNORE))
-              writer.print(String.format(TAG, enWord, cnWord, enWord));
-            else
-              writer.print(cnWord);
-            j = nextPos; // Skip to the start of the next word
-          }
-        }
-        if(i < content.length - 1) writer.print("");
+        builder.setLength(0);
+        this.tagSentence(content[i], 0, content[i].length(), n, builder);
+        writer.append(builder);
+        if(i < content.length - 1) writer.print(STOP);
       }
       writer.close();
     } catch (IOException e) {
@@ -242,161 +257,798 @@ public class docTagger implements Runnable {
    * threading
    */
   public void run() {
-    StringBuilder sb = new StringBuilder(BUF_SIZ);
     /* Keep running until an end indicator is taken from the queue */
     while(true) {
-      /* Parse string using Json-path parser */
-      DocumentContext document;
       try {
+        long wait = System.nanoTime();
         String context = this.lbq.take();
+        if(this.tuner != null)
+          this.tuner.waited(System.nanoTime() - wait);
         /* Checking end indicator */
         if(context.equals(END)) {
           this.lbq.put(context);
-          if(sb.length() > 0) {
-            PrintWriter writer = new PrintWriter(new OutputStreamWriter(new
-                FileOutputStream(OUT_PATH + Thread.currentThread().getName()
-                    + OUT_POST), FMT));
-            writer.write(sb.toString());
-            writer.close();
-          }
+          if(this.tuner != null)
+            this.tuner.exited();
           break;
         }
-        document = JsonPath.parse(context);
-        String filename = document.read(id); //Fetch file name
-        filename = filename.substring(0, filename.length() - 5);
-        
-        String str = "";
-        /* Iterate through the fields find corresponding value */
-        for(int i = 0; i < this.fields.size(); i++) {
-          String path = this.fields.get(i);
-          JsonPath jpath = JsonPath.compile(path);
-          if(jpath.isDefinite()) {
-            str += String.format(JOBJFMT, FILE, filename,
-                this.annotate(document.read(path).toString()));
-          }
-          else {
-            JSONArray jarray = document.read(path); //Get json array
-            
-            str += String.format(JARRAYFMT, FILE, filename,
-                this.annotate(jarray.toJSONString()));
-          }
-        }
+        String str = this.tag(context);
+        if(str == null)
+          continue;
+        this.collect(str);
         
-        if(sb.length() + str.length() >= BUF_SIZ) {
-          PrintWriter writer = new PrintWriter(new OutputStreamWriter(new
-              FileOutputStream(OUT_PATH + filename + OUT_POST), FMT));
-          writer.write(sb.toString());
-          sb = new StringBuilder(BUF_SIZ);
-          writer.close();
+        /* Stop early if the auto-tuner retired this worker */
+        if(this.tuner != null) {
+          this.tuner.completed();
+          if(this.tuner.retire())
+            break;
         }
-        sb.append(str);
-        
-      } catch (InterruptedException | UnsupportedEncodingException |
-          FileNotFoundException e) {
+      } catch (InterruptedException e) {
         e.printStackTrace();
       }
     }
   }
+
+  /**
+   * Tag the targeted fields of one document
+   * @param context - the JSON document
+   * @return tagged fields, or null if the document is skipped
+   */
+  String tag(String context) {
+    long start = System.nanoTime();
+    /* Locate the targeted fields in a single scan of the document */
+    JsonProjection.Document document;
+    try {
+      document = this.projection.project(context);
+    } catch (IllegalArgumentException ex) {
+      System.err.println("Malformed document: " + ex.getMessage());
+      this.failed();
+      return null;
+    }
+    String filename = caseId(document);
+    if(filename == null) {
+      System.err.println(String.format(ERR_MSG, FILE, context.substring(0,
+          Math.min(context.length(), ERR_CONTEXT))));
+      this.failed();
+      return null;
+    }
+    this.filename = filename;
+    long parsed = this.lap(Metrics.PARSE, start);
+    String str;
+    if (this.dedup != null)
+      str = serialize(this.projection, filename, this.annotate(document,
+          filename, context));
+    else {
+      if (this.record.capacity() > RECORD_CAP) // Drop the buffer of a huge one
+        this.record = new StringBuilder();
+      this.record.setLength(0);
+      this.annotate(document, filename, this.record);
+      str = this.record.toString();
+    }
+    this.lap(Metrics.ANNOTATE, parsed);
+    if (this.metrics != null)
+      this.metrics.tagged(Metrics.utf8(context));
+    return str;
+  }
+
+  /**
+   * Record the time a document took through a stage of this tagger. Unlike
+   * in the staged pipeline, the wait for the document is not part of it.
+   * @param stage - name of the stage
+   * @param start - time the stage started, in nanoseconds
+   * @return time the stage ended, in nanoseconds
+   */
+  private long lap(String stage, long start) {
+    long now = System.nanoTime();
+    if (this.metrics != null)
+      this.metrics.stage(stage).record(now - start);
+    return now;
+  }
+
+  /**
+   * Count a document that could not be tagged
+   */
+  private void failed() {
+    if (this.metrics != null)
+      this.metrics.failed();
+  }
+
+  /**
+   * Report the busy time and the dictionary lookups of the last annotated
+   * document. Lookups are counted in plain fields while annotating and added
+   * to the shared counters here, once per document.
+   * @param start - time the annotation started, in nanoseconds
+   */
+  private void report(long start) {
+    if (this.worker != null) {
+      this.worker.annotated(System.nanoTime() - start);
+      this.metrics.lookups(this.lookups, this.found);
+    }
+    this.lookups = 0;
+    this.found = 0;
+  }
+
+  /**
+   * Get the case id of a document, which names its output
+   * @param document - the projected document
+   * @return the case id without extension, or null if there is none
+   */
+  static String caseId(JsonProjection.Document document) {
+    String filename = document.id(); //Fetch file name
+    return filename == null ? null :
+        filename.substring(0, filename.length() - 5);
+  }
+
+  /**
+   * Annotate the targeted fields of a document
+   * @param document - the projected document
+   * @param filename - case id of the document
+   * @return annotated content of each field, null for missing fields
+   */
+  String[] annotate(JsonProjection.Document document, String filename) {
+    long start = System.nanoTime();
+    String[] contents = new String[this.projection.size()];
+    this.pin();
+    this.clearKeys();
+    String[][] split = this.split(document);
+    /* Iterate through the fields find corresponding value */
+    for(int i = 0; i < this.projection.size(); i++) {
+      if(!document.found(i)) {
+        System.err.println(String.format(ERR_MSG, this.projection.field(i),
+            filename));
+        continue;
+      }
+      if(split != null) {
+        StringBuilder builder = new StringBuilder();
+        appendField(builder, split[i], this.projection.isDefinite(i));
+        contents[i] = builder.toString();
+      } else if(this.projection.isDefinite(i))
+        contents[i] = this.annotate(document.value(i));
+      else
+        contents[i] = this.annotate(document.elements(i));
+    }
+    this.indexKeys(filename);
+    this.report(start);
+    return contents;
+  }
+
+  /**
+   * Annotate the targeted fields of a document, or reuse the annotation of an
+   * earlier copy of it
+   * @param document - the projected document
+   * @param filename - case id of the document
+   * @param context - the JSON document
+   * @return annotated content of each field, null for missing fields
+   */
+  private String[] annotate(JsonProjection.Document document, String filename,
+      String context) {
+    CompletableFuture<String[]> annotation = new CompletableFuture<>();
+    CompletableFuture<String[]> prior = this.dedup.claim(document, annotation);
+    if (prior != null) {
+      String[] contents = prior.join(); // The first copy is being tagged
+      if (contents != null) {
+        this.dedup.skipped(context);
+        return contents;
+      }
+      return this.annotate(document, filename);
+    }
+    String[] contents = null;
+    try {
+      contents = this.annotate(document, filename);
+    } finally {
+      annotation.complete(contents);
+    }
+    return contents;
+  }
+
+  /**
+   * Annotate the targeted fields of a document straight into its output
+   * record, same as serializing the annotated fields
+   * @param document - the projected document
+   * @param filename - case id of the document
+   * @param record - output buffer
+   */
+  void annotate(JsonProjection.Document document, String filename,
+      StringBuilder record) {
+    long start = System.nanoTime();
+    this.pin();
+    this.clearKeys();
+    String[][] split = this.split(document);
+    for(int i = 0; i < this.projection.size(); i++) {
+      if(!document.found(i)) {
+        System.err.println(String.format(ERR_MSG, this.projection.field(i),
+            filename));
+        continue;
+      }
+      boolean definite = this.projection.isDefinite(i);
+      openField(record, definite, filename);
+      if(split != null)
+        appendField(record, split[i], definite);
+      else if(definite) {
+        String value = document.value(i);
+        int from = record.length();
+        this.annotate(value, 0, value.length(), record);
+        JsonProjection.escapeControls(record, from);
+      } else
+        this.annotate(document.elements(i), record);
+      closeField(record, definite);
+    }
+    this.indexKeys(filename);
+    this.report(start);
+  }
+
+  /**
+   * Annotate the fields of a large document with the field splitter
+   * @param document - the projected document
+   * @return annotated value, or annotated elements, of each field, null if
+   *         the document is not split
+   */
+  private String[][] split(JsonProjection.Document document) {
+    if (this.splitter == null ||
+        !this.splitter.worthSplitting(this.projection, document))
+      return null;
+    int size = this.projection.size();
+    List<String> texts = new ArrayList<>();
+    int[] first = new int[size + 1]; // First text of each field
+    for (int i = 0; i < size; i++) {
+      first[i] = texts.size();
+      if (!document.found(i))
+        continue;
+      if (this.projection.isDefinite(i))
+        texts.add(document.value(i));
+      else {
+        JsonProjection.Elements elements = document.elements(i);
+        while (elements.next(this.element))
+          texts.add(this.element.toString());
+      }
+    }
+    first[size] = texts.size();
+    StringBuilder[] units = new StringBuilder[texts.size()];
+    for (FieldSplitter.Piece piece : this.splitter.annotate(texts, this)) {
+      if (units[piece.unit()] == null)
+        units[piece.unit()] = new StringBuilder(piece.text().length() * MUL);
+      units[piece.unit()].append(piece.tagged());
+      this.addKeys(piece.keys(), piece.keys().length);
+      this.lookups += piece.lookups();
+      this.found += piece.found();
+    }
+    String[][] fields = new String[size][];
+    for (int i = 0; i < size; i++) {
+      fields[i] = new String[first[i + 1] - first[i]];
+      for (int j = 0; j < fields[i].length; j++)
+        fields[i][j] = units[first[i] + j].toString();
+    }
+    return fields;
+  }
+
+  /**
+   * Annotate a piece of a large document for the tagger of the document, with
+   * its dictionary, sentence cache and key index
+   * @param piece - the piece, which receives the annotation
+   * @param parent - the tagger of the document
+   */
+  void annotate(FieldSplitter.Piece piece, docTagger parent) {
+    this.dict = parent.dict;
+    this.cache = parent.cache;
+    this.index = parent.index;
+    this.singlePass = parent.singlePass;
+    this.clearKeys();
+    StringBuilder builder = new StringBuilder((piece.to() - piece.from()) *
+        MUL);
+    this.annotate(piece.text(), piece.from(), piece.to(), builder);
+    piece.done(builder.toString(), Arrays.copyOf(this.keys, this.keyCount),
+        this.lookups, this.found);
+    this.lookups = 0;
+    this.found = 0;
+  }
+
+  /**
+   * Append a field annotated in pieces, same as annotating it whole
+   * @param record - output buffer
+   * @param units - annotated value, or annotated elements of an array
+   * @param definite - whether the field is a single value
+   */
+  private static void appendField(StringBuilder record, String[] units,
+      boolean definite) {
+    if (definite) {
+      int from = record.length();
+      record.append(units[0]);
+      JsonProjection.escapeControls(record, from);
+      return;
+    }
+    record.append('[');
+    for (int j = 0; j < units.length; j++) {
+      if (j > 0)
+        record.append(',');
+      record.append(units[j]);
+    }
+    record.append(']');
+  }
+
+  /**
+   * Forget the words matched in the last document
+   */
+  private void clearKeys() {
+    for (int i = 0; i < this.keyCount; i++)
+      this.matched.clear(this.keys[i]);
+    this.keyCount = 0;
+  }
+
+  /**
+   * Add the words matched in a sentence to those of the document
+   * @param sentenceKeys - ids of the words
+   * @param count - number of words
+   */
+  private void addKeys(int[] sentenceKeys, int count) {
+    for (int i = 0; i < count; i++) {
+      int key = sentenceKeys[i];
+      if (this.matched.get(key))
+        continue;
+      this.matched.set(key);
+      if (this.keyCount == this.keys.length)
+        this.keys = Arrays.copyOf(this.keys, this.keyCount * 2);
+      this.keys[this.keyCount++] = key;
+    }
+  }
+
+  /**
+   * Record the words matched in the document in the key index
+   * @param filename - case id of the document
+   */
+  private void indexKeys(String filename) {
+    if (this.index == null)
+      return;
+    List<String> words = new ArrayList<>(this.keyCount);
+    for (int i = 0; i < this.keyCount; i++)
+      words.add(this.dict.word(this.keys[i]));
+    try {
+      this.index.add(filename, words);
+    } catch (IOException e) {
+      e.printStackTrace();
+    }
+  }
+
+  /**
+   * Format annotated fields into the output record of a document, same as
+   * formatting each field with JOBJFMT or JARRAYFMT
+   * @param projection - targeted fields
+   * @param filename - case id of the document
+   * @param contents - annotated content of each field
+   * @return the record
+   */
+  static String serialize(JsonProjection projection, String filename,
+      String[] contents) {
+    int length = 0;
+    for(String content : contents) {
+      if(content != null)
+        length += content.length() + filename.length() + JOBJFMT.length();
+    }
+    StringBuilder record = new StringBuilder(length);
+    for(int i = 0; i < contents.length; i++) {
+      if(contents[i] == null)
+        continue;
+      openField(record, projection.isDefinite(i), filename);
+      record.append(contents[i]);
+      closeField(record, projection.isDefinite(i));
+    }
+    return record.toString();
+  }
+
+  /**
+   * Get the case id of an output record
+   * @param record - the record
+   * @return the case id, or null if the record has no fields
+   */
+  static String recordId(String record) {
+    for(String[] parts : new String[][] {JOBJ_PARTS, JARRAY_PARTS}) {
+      String head = parts[0] + FILE + parts[1];
+      if(!record.startsWith(head))
+        continue;
+      int end = record.indexOf(parts[2], head.length());
+      return end < 0 ? null : record.substring(head.length(), end);
+    }
+    return null;
+  }
+
+  /**
+   * Append the part of a field record before its content
+   * @param record - output buffer
+   * @param definite - true for a JSON object field, false for an array
+   * @param filename - case id of the document
+   */
+  private static void openField(StringBuilder record, boolean definite,
+      String filename) {
+    String[] parts = definite ? JOBJ_PARTS : JARRAY_PARTS;
+    record.append(parts[0]).append(FILE).append(parts[1]).append(filename)
+        .append(parts[2]);
+  }
+
+  /**
+   * Append the part of a field record after its content
+   * @param record - output buffer
+   * @param definite - true for a JSON object field, false for an array
+   */
+  private static void closeField(StringBuilder record, boolean definite) {
+    record.append((definite ? JOBJ_PARTS : JARRAY_PARTS)[3]);
+  }
+
+  /**
+   * Hand a tagged document to the output writer
+   * @param str - tagged fields of the last tagged document
+   */
+  void collect(String str) {
+    String filename = this.filename;
+    long start = System.nanoTime();
+    this.output.write(filename, str).whenComplete((v, ex) -> {
+      this.lap(Metrics.WRITE, start);
+      if (ex != null)
+        System.err.println("Failed to write " + filename + ": " + ex);
+    });
+  }
   
   /**
    * Annotate the string with longest word matching algorithm
    * @param content - content of the file
-   * @return annotated string
+   * @return annotated string, with control characters escaped so that the
+   *         record it goes into stays on one line
    */
   private String annotate(String content) {
-    String[] sentences = content.split(DELI);
     /* Create a string builder with twice the size of the original string */
     StringBuilder builder = new StringBuilder(content.length() * MUL);
-    
-    /* Iterate through all sentences */
-    for (int i = 0; i < sentences.length; i++) {
-      IntervalTree<IndexInterval> ist = new IntervalTree<>();
-      int endIndex = 0;
-      int wordLength = INIT_WL;
-
-      /* First round word matching using the word length n */
-      for (int j = 0; j < sentences[i].length();) {
-        endIndex = j + wordLength - 1;
-        if (endIndex >= sentences[i].length())
-          break;
+    this.annotate(content, 0, content.length(), builder);
+    JsonProjection.escapeControls(builder, 0);
+    return builder.toString();
+  }
 
-        /* Word matching */
-        if (this.dict.containsKey(sentences[i].substring(j, endIndex + 1))) {
-          /* Mark interval */
-          ist.insert(new IndexInterval(j, endIndex));
-          j = endIndex + 1; // Get next index
-        } else {
-          j++;
-        }
+  /**
+   * Annotate the elements of a JSON array one at a time, same as annotating
+   * the whole array written as JSON
+   * @param elements - elements of the array
+   * @return annotated array
+   */
+  private String annotate(JsonProjection.Elements elements) {
+    StringBuilder builder = new StringBuilder();
+    this.annotate(elements, builder);
+    return builder.toString();
+  }
+
+  /**
+   * Annotate the elements of a JSON array into a buffer
+   * @param elements - elements of the array
+   * @param builder - output buffer
+   */
+  private void annotate(JsonProjection.Elements elements,
+      StringBuilder builder) {
+    builder.append('[');
+    for (boolean first = true; elements.next(this.element); first = false) {
+      if (!first)
+        builder.append(',');
+      this.annotate(this.element, 0, this.element.length(), builder);
+    }
+    builder.append(']');
+  }
+
+  /**
+   * Annotate a text with longest word matching algorithm into any
+   * Appendable, one sentence at a time
+   * @param content - text to annotate
+   * @param out - output, written to directly if it is a StringBuilder
+   * @throws IOException if the output cannot be written
+   */
+  public void annotate(CharSequence content, Appendable out)
+      throws IOException {
+    if (out instanceof StringBuilder) {
+      this.annotate(content, 0, content.length(), (StringBuilder) out);
+      return;
+    }
+    for (int start = 0; start < content.length();) {
+      int end = sentenceEnd(content, start, content.length());
+      this.sentence.setLength(0);
+      this.tagSentence(content, start, end, this.sentence);
+      out.append(this.sentence);
+      start = end;
+    }
+  }
+
+  /**
+   * Annotate part of a text with longest word matching algorithm
+   * @param content - text to annotate
+   * @param from - start index, inclusive
+   * @param to - end index, exclusive
+   * @param builder - output buffer
+   */
+  private void annotate(CharSequence content, int from, int to,
+      StringBuilder builder) {
+    /* Iterate through all sentences, each one ends with the delimiter */
+    for (int start = from; start < to;) {
+      int end = sentenceEnd(content, start, to);
+      this.tagSentence(content, start, end, builder);
+      start = end;
+    }
+  }
+
+  /**
+   * Tag one sentence, reusing its tagged form from the sentence cache if it
+   * has been tagged before
+   * @param text - text containing the sentence
+   * @param from - start index of the sentence, inclusive
+   * @param to - end index of the sentence, exclusive
+   * @param builder - output buffer
+   */
+  private void tagSentence(CharSequence text, int from, int to,
+      StringBuilder builder) {
+    boolean cacheable = this.cache != null &&
+        SentenceCache.isCacheable(to - from);
+    String sentence = null;
+    if (cacheable) {
+      sentence = text.subSequence(from, to).toString();
+      SentenceCache.Tagged tagged = this.cache.get(sentence);
+      if (tagged != null) {
+        builder.append(tagged.text());
+        if (this.index != null)
+          this.addKeys(tagged.keys(), tagged.keys().length);
+        return;
       }
-      wordLength--; // Ready to match word with shorter length
-
-      int nextPos;
-      for (; wordLength > 1; wordLength--) { // Try matching all words until the length 2
-        /* Start from the first available position */
-        for (int j = ist.nextAvailable(new IndexInterval(0, wordLength - 1));
-            j < sentences[i].length();) {
-          endIndex = j + wordLength - 1;
-          if (endIndex >= sentences[i].length())
-            break;
+    }
+    int mark = builder.length();
+    this.sentenceKeyCount = 0;
+    this.tagSentence(text, from, to, INIT_WL, builder);
+    this.addKeys(this.sentenceKeys, this.sentenceKeyCount);
+    if (cacheable)
+      this.cache.put(sentence, builder.substring(mark), this.index == null ?
+          null : Arrays.copyOf(this.sentenceKeys, this.sentenceKeyCount));
+  }
 
-          nextPos = ist.nextAvailable(new IndexInterval(j, endIndex)); // Check overlap
-          if (j == nextPos) { // No overlap found
-            /* Word matching */
-            if (this.dict.containsKey(sentences[i].substring(j, endIndex + 1))) {
-              /* Mark interval */
-              ist.insert(new IndexInterval(j, endIndex));
-              j = endIndex + 1; // Get next index
-            } else {
-              j++;
-            }
-          } else
-            j = nextPos; // Try next available position
+  /**
+   * Find the end of the sentence starting at an index
+   * @param content - text to annotate
+   * @param start - start index of the sentence
+   * @param to - end index of the text, exclusive
+   * @return end index of the sentence after its delimiter, exclusive
+   */
+  static int sentenceEnd(CharSequence content, int start, int to) {
+    char stop = STOP.charAt(0);
+    int end = start;
+    while (end < to && content.charAt(end) != stop)
+      end++;
+    return end < to ? end + 1 : to;
+  }
+
+  /**
+   * Tag one sentence with longest word matching algorithm
+   * @param text - text containing the sentence
+   * @param from - start index of the sentence, inclusive
+   * @param to - end index of the sentence, exclusive
+   * @param n - the length of the longest word to match
+   * @param builder - output buffer
+   */
+  private void tagSentence(CharSequence text, int from, int to, int n,
+      StringBuilder builder) {
+    int length = to - from;
+    int wordLength = Math.min(n, this.dict.matcher().maxLength());
+    this.coverage.reset(length);
+    this.match(text, from, to);
+    if (this.singlePass)
+      this.claimSinglePass(length, wordLength);
+    else
+      this.claimMultiPass(length, wordLength);
+
+    /* Start output */
+    int nextPos;
+    int key;
+    for (int j = 0; j < length;) {
+      nextPos = this.coverage.nextAvailable(j, j);
+      if (nextPos == j) { // Single character is not matched yet
+        key = this.dict.find(text, from + j, 1);
+        this.lookups++;
+        /* No match found */
+        if (key == Dictionary.NOT_FOUND)
+          builder.append(text.charAt(from + j));
+        else {
+          this.found++;
+          this.matchKey(key);
+          this.appendTag(builder, key, false, text, from + j, from + j + 1);
         }
+        j++;
+      } else {
+        /* Obtain the Chinese word */
+        key = this.dict.find(text, from + j, nextPos - j);
+        /* Special case for law */
+        boolean law = nextPos + LAW_LNG < length &&
+            (startsWith(text, from + nextPos, LAW_CHN) ||
+                startsWith(text, from + nextPos, LAW_CHN_Q));
+        if(law)
+          nextPos++;
+        this.matchKey(key);
+        if(!this.dict.isIgnored(key))
+          this.appendTag(builder, key, law, text, from + j, from + nextPos);
+        else
+          builder.append(text, from + j, from + nextPos);
+        j = nextPos; // Skip to the start of the next word
       }
+    }
+  }
 
-      /* Start output */
-      Set<String> matchWords;
-      String enWord;
-      String cnWord;
-      for (int j = 0; j < sentences[i].length();) {
-        nextPos = ist.nextAvailable(new IndexInterval(j, j));
-        if (nextPos == j) { // Single character is not matched yet
-          matchWords = this.dict.get(sentences[i].charAt(j) + "");
-          /* No match found */
-          if (matchWords.isEmpty())
-            builder.append(sentences[i].charAt(j));
-          else {
-            /* Get the first match */
-            enWord = (String) matchWords.toArray()[0];
-            builder.append(String.format(TAG, enWord, sentences[i].charAt(j),
-                enWord));
-          }
-          j++;
-        } else {
-          /* Obtain the Chinese word */
-          cnWord = sentences[i].substring(j, nextPos);
-          matchWords = this.dict.get(cnWord);
-          /* Special case for law */
-          if(nextPos + LAW_LNG < sentences[i].length() &&
-              (sentences[i].substring(nextPos, nextPos +
-                  LAW_LNG).equals(LAW_CHN) || sentences[i].substring(nextPos,
-                      nextPos + LAW_LNG).equals(LAW_CHN_Q))) {
-            cnWord = sentences[i].substring(j, nextPos + 1);
-            enWord = (String) matchWords.toArray()[0] + LAW_ENG;
-            nextPos++;
+  /**
+   * Claim the dictionary words of the last matched sentence with one pass
+   * over the sentence per word length, longest first
+   * @param length - length of the sentence
+   * @param wordLength - the length of the longest word to claim
+   */
+  private void claimMultiPass(int length, int wordLength) {
+    int endIndex = 0;
+
+    /* First round word matching using the word length n */
+    for (int j = 0; j < length;) {
+      endIndex = j + wordLength - 1;
+      if (endIndex >= length)
+        break;
+
+      /* Word matching */
+      if (this.isWord(j, wordLength)) {
+        /* Mark interval */
+        this.coverage.insert(j, endIndex);
+        j = endIndex + 1; // Get next index
+      } else {
+        j++;
+      }
+    }
+    wordLength--; // Ready to match word with shorter length
+
+    int nextPos;
+    for (; wordLength > 1; wordLength--) { // Try matching all words until the length 2
+      /* Start from the first available position */
+      for (int j = this.coverage.nextAvailable(0, wordLength - 1);
+          j < length;) {
+        endIndex = j + wordLength - 1;
+        if (endIndex >= length)
+          break;
+
+        nextPos = this.coverage.nextAvailable(j, endIndex); // Check overlap
+        if (j == nextPos) { // No overlap found
+          /* Word matching */
+          if (this.isWord(j, wordLength)) {
+            /* Mark interval */
+            this.coverage.insert(j, endIndex);
+            j = endIndex + 1; // Get next index
+          } else {
+            j++;
           }
-          else
-            enWord = (String) matchWords.toArray()[0];
-          if(!enWord.contains(IGNORE))
-            builder.append(String.format(TAG, enWord, cnWord, enWord));
-          else
-            builder.append(cnWord);
-          j = nextPos; // Skip to the start of the next word
+        } else
+          j = nextPos; // Try next available position
+      }
+    }
+  }
+
+  /**
+   * Claim the dictionary words of the last matched sentence with a single
+   * pass over its hits, with the same result as one pass per word length.
+   * The hits are sorted into one bucket per length by counting, then claimed
+   * longest first and leftmost first within a length, as the passes would.
+   * A hit is claimed if both of its end points are free: every word claimed
+   * before it is at least as long, so none can lie between them.
+   * @param length - length of the sentence
+   * @param wordLength - the length of the longest word to claim
+   */
+  private void claimSinglePass(int length, int wordLength) {
+    if (wordLength < 2)
+      return;
+    int mask = (2 << wordLength) - 4; // Lengths 2 to wordLength
+    if (this.bucketEnds.length <= wordLength)
+      this.bucketEnds = new int[wordLength + 1];
+    int[] ends = this.bucketEnds;
+    Arrays.fill(ends, 0, wordLength + 1, 0);
+    for (int j = 0; j < length; j++) {
+      for (int bits = this.hits[j] & mask; bits != 0; bits &= bits - 1)
+        ends[Integer.numberOfTrailingZeros(bits)]++;
+    }
+    /* Turn the counts into the start of each bucket, longest first */
+    int total = 0;
+    for (int l = wordLength; l > 1; l--) {
+      int count = ends[l];
+      ends[l] = total;
+      total += count;
+    }
+    if (this.candidates.length < total)
+      this.candidates = new int[Math.max(total, this.candidates.length * 2)];
+    for (int j = 0; j < length; j++) { // Leaves each start at the bucket end
+      for (int bits = this.hits[j] & mask; bits != 0; bits &= bits - 1)
+        this.candidates[ends[Integer.numberOfTrailingZeros(bits)]++] = j;
+    }
+    this.lookups += total;
+    int i = 0;
+    for (int l = wordLength; l > 1; l--) {
+      for (; i < ends[l]; i++) {
+        int j = this.candidates[i];
+        int endIndex = j + l - 1;
+        if (endIndex < length && this.coverage.isFree(j, endIndex)) {
+          this.coverage.insert(j, endIndex);
+          this.found++;
         }
       }
     }
-    return builder.toString();
+  }
+
+  /**
+   * Remember a word matched in the current sentence for the key index
+   * @param key - id of the word
+   */
+  private void matchKey(int key) {
+    if (this.index == null)
+      return;
+    if (this.sentenceKeyCount == this.sentenceKeys.length)
+      this.sentenceKeys = Arrays.copyOf(this.sentenceKeys,
+          this.sentenceKeyCount * 2);
+    this.sentenceKeys[this.sentenceKeyCount++] = key;
+  }
+
+  /**
+   * Append a tagged word, same as formatting TAG with the gloss and the word.
+   * The tags of a gloss are built once by the dictionary, so a tagged word is
+   * three appends.
+   * @param builder - output buffer
+   * @param key - id of the word in the dictionary
+   * @param law - whether the word is followed by a law title mark
+   * @param text - text containing the word
+   * @param start - start index of the word, inclusive
+   * @param end - end index of the word, exclusive
+   */
+  private void appendTag(StringBuilder builder, int key, boolean law,
+      CharSequence text, int start, int end) {
+    if(!law) {
+      builder.append(this.dict.openTag(key)).append(text, start, end)
+          .append(this.dict.closeTag(key));
+      return;
+    }
+    /* Law titles are rare, their tags are not cached */
+    String enWord = this.dict.gloss(key);
+    builder.append('<').append(enWord).append(LAW_ENG).append('>')
+        .append(text, start, end).append("</").append(enWord).append(LAW_ENG)
+        .append('>');
+  }
+
+  /**
+   * Find all dictionary words in the sentence with the compiled matcher
+   * @param text - text containing the sentence
+   * @param from - start index of the sentence, inclusive
+   * @param to - end index of the sentence, exclusive
+   */
+  private void match(CharSequence text, int from, int to) {
+    if (this.hits.length < to - from)
+      this.hits = new int[Math.max(to - from, this.hits.length * 2)];
+    this.dict.matcher().match(text, from, to, this.hits);
+  }
+
+  /**
+   * Check whether a text has the given prefix at an index
+   * @param text - text to check
+   * @param offset - index in the text
+   * @param prefix - prefix to look for
+   * @return true if the prefix is found
+   */
+  private static boolean startsWith(CharSequence text, int offset,
+      String prefix) {
+    if (offset + prefix.length() > text.length())
+      return false;
+    for (int i = 0; i < prefix.length(); i++) {
+      if (text.charAt(offset + i) != prefix.charAt(i))
+        return false;
+    }
+    return true;
+  }
+
+  /**
+   * Check whether the last matched sentence has a dictionary word at the given
+   * position
+   * @param start - start index of the word
+   * @param length - length of the word
+   * @return true if the word is in the dictionary
+   */
+  private boolean isWord(int start, int length) {
+    this.lookups++;
+    if ((this.hits[start] & (1 << length)) == 0)
+      return false;
+    this.found++;
+    return true;
   }
 
   /**
@@ -411,8 +1063,7 @@ public class docTagger implements Runnable {
   public static void main(String args[]) {
     if(args.length != NUM_ARGS) throw new IllegalArgumentException();
     
-    HashMultimap<String, String> map = HashMultimap.create();
-    docTagger tagger = new docTagger(map, null, null, null);
+    docTagger tagger = new docTagger(null, null, null, null);
     long start = System.nanoTime();
     tagger.loadDict(args[0]);
     long end = System.nanoTime();
@@ -0,0 +1,123 @@
+/**
+ * Simple unit tests for the docTagger
+ * @author agent
+ * @since 10/17/2026
+ */
+package docTagger;
+
+import static org.junit.Assert.*;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.Random;
+import java.util.Set;
+
+import org.junit.Before;
+import org.junit.Test;
+
+public class docTaggerTester {
+  static final String ALPHABET = "abcd"; // Few letters give many overlaps
+  static final int WORDS = 400;
+  static final int MAX_WORD = docTagger.INIT_WL + 2; // Some are never claimed
+  static final int TEXTS = 300;
+  static final int MAX_TEXT = 400;
+  static final long SEED = 20170209L;
+
+  private Random random;
+  private Dictionary dict;
+
+  /**
+   * Set up testing fixture
+   *
+   * @throws Exception
+   */
+  @Before
+  public void setUp() throws Exception {
+    this.random = new Random(SEED);
+    Set<String> words = new LinkedHashSet<>();
+    while (words.size() < WORDS)
+      words.add(this.word(1 + this.random.nextInt(MAX_WORD)));
+    Dictionary.Builder builder = new Dictionary.Builder();
+    int i = 0;
+    for (String word : words)
+      builder.add(word, "g" + i++);
+    this.dict = builder.build(docTagger.INIT_WL);
+  }
+
+  /**
+   * Test that the single-pass engine annotates random texts exactly as the
+   * pass per word length does, sentence delimiters and law titles included
+   *
+   * @throws IOException
+   */
+  @Test
+  public void testSinglePass() throws IOException {
+    docTagger multi = new docTagger(this.dict, null, null, null);
+    docTagger single = new docTagger(this.dict, null, null, null);
+    single.setSinglePass(true);
+    for (int t = 0; t < TEXTS; t++) {
+      StringBuilder text = new StringBuilder();
+      int length = this.random.nextInt(MAX_TEXT);
+      while (text.length() < length) {
+        int r = this.random.nextInt(40);
+        if (r == 0)
+          text.append(docTagger.STOP);
+        else if (r == 1)
+          text.append(docTagger.LAW_CHN);
+        else
+          text.append(this.word(1));
+      }
+      StringBuilder expected = new StringBuilder();
+      StringBuilder actual = new StringBuilder();
+      multi.annotate(text, expected);
+      single.annotate(text, actual);
+      assertEquals(expected.toString(), actual.toString());
+    }
+  }
+
+  /**
+   * Test that a sentence without any dictionary word is left as it is
+   *
+   * @throws IOException
+   */
+  @Test
+  public void testNoHits() throws IOException {
+    docTagger single = new docTagger(this.dict, null, null, null);
+    single.setSinglePass(true);
+    StringBuilder out = new StringBuilder();
+    single.annotate("xyz" + docTagger.STOP, out);
+    assertEquals("xyz" + docTagger.STOP, out.toString());
+  }
+
+  /**
+   * Test that line breaks in a definite field are escaped, so that a record
+   * stays on one line whether it is streamed or serialized
+   */
+  @Test
+  public void testOneLine() {
+    JsonProjection projection = new JsonProjection(Arrays.asList("$.t",
+        "$.u.*"), "$.file");
+    docTagger tagger = new docTagger(this.dict, null, projection, null);
+    String json = "{\"file\": \"a.json\", \"t\": \"ab\\ncd\\r\\n\\tb\", " +
+        "\"u\": [\"c\\nd\"]}";
+    String record = tagger.tag(json);
+    assertFalse(record.contains("\n"));
+    assertFalse(record.contains("\r"));
+    assertEquals(record, docTagger.serialize(projection, "a",
+        tagger.annotate(projection.project(json), "a")));
+    assertEquals("a", docTagger.recordId(record));
+  }
+
+  /**
+   * Generate a random word
+   * @param length - number of letters
+   * @return the word
+   */
+  private String word(int length) {
+    StringBuilder word = new StringBuilder();
+    for (int i = 0; i < length; i++)
+      word.append(ALPHABET.charAt(this.random.nextInt(ALPHABET.length())));
+    return word.toString();
+  }
+}